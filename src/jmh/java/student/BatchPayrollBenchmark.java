@@ -0,0 +1,94 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the payroll of a whole roster computed employee by employee on objects with the same
+ * payroll computed by the columnar batch kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class BatchPayrollBenchmark {
+
+    /**
+     * The number of employees.
+     */
+    @Param({"1000", "1000000"})
+    private int size;
+
+    /**
+     * The roster as objects.
+     */
+    private List<Employee> employees;
+
+    /**
+     * The roster as columns.
+     */
+    private RosterColumns roster;
+
+    /**
+     * The hours worked by each employee.
+     */
+    private double[] hours;
+
+    /**
+     * Creates the roster and the hours worked.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        employees = new ArrayList<>(size);
+        hours = new double[size];
+        for (int i = 0; i < size; i++) {
+            String id = RosterGenerator.employeeID(i);
+            employees.add(i % 2 == 0
+                    ? new HourlyEmployee("Employee " + i, id, 15 + random.nextInt(50), 0.0, 1000.0, 200.0)
+                    : new SalaryEmployee("Employee " + i, id, 40000 + random.nextInt(160000), 250.0, 1000.0, 200.0));
+            hours[i] = random.nextInt(10) == 0 ? Double.NaN : 30 + random.nextInt(200) / 10.0;
+        }
+        roster = RosterColumns.load(employees.iterator());
+    }
+
+    /**
+     * Processes the payroll employee by employee.
+     * @return The last employee, so the loop is not optimized away.
+     */
+    @Benchmark
+    public Employee objects() {
+        for (int i = 0; i < size; i++) {
+            if (hours[i] >= 0) {
+                employees.get(i).processPayroll(hours[i]);
+            }
+        }
+        return employees.get(size - 1);
+    }
+
+    /**
+     * Computes the payroll of the roster with the batch kernel.
+     * @return The roster, so the kernel is not optimized away.
+     */
+    @Benchmark
+    public RosterColumns columns() {
+        BatchPayroll.compute(roster, hours);
+        return roster;
+    }
+}
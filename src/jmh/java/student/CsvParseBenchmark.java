@@ -0,0 +1,86 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing CSV lines with the CsvTokenizer used by Builder against the previous
+ * String.split based parser.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParseBenchmark {
+
+    /**
+     * A typical employee line.
+     */
+    private String employeeLine = "SALARY,Misa Amane,x102,150000,500,12000.55,3500.25";
+
+    /**
+     * A typical time card line.
+     */
+    private String timeCardLine = "x102,42.5";
+
+    /**
+     * Parses an employee line with the tokenizer.
+     * @return The parsed employee.
+     */
+    @Benchmark
+    public IEmployee employeeTokenizer() {
+        return Builder.buildEmployeeFromCSV(employeeLine);
+    }
+
+    /**
+     * Parses an employee line with String.split.
+     * @return The parsed employee.
+     */
+    @Benchmark
+    public IEmployee employeeSplit() {
+        String[] employeeFields = employeeLine.split(",");
+
+        String employeeType = employeeFields[0].trim();
+        String name = employeeFields[1].trim();
+        String id = employeeFields[2].trim();
+        double payRate = Double.parseDouble(employeeFields[3].trim());
+        double pretaxDeductions = Double.parseDouble(employeeFields[4].trim());
+        double ytdEarnings = Double.parseDouble(employeeFields[5].trim());
+        double ytdTaxesPaid = Double.parseDouble(employeeFields[6].trim());
+
+        if (employeeType.equals("HOURLY")) {
+            return new HourlyEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+        }
+        return new SalaryEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+    }
+
+    /**
+     * Parses a time card line with the tokenizer.
+     * @return The parsed time card.
+     */
+    @Benchmark
+    public ITimeCard timeCardTokenizer() {
+        return Builder.buildTimeCardFromCSV(timeCardLine);
+    }
+
+    /**
+     * Parses a time card line with String.split.
+     * @return The parsed time card.
+     */
+    @Benchmark
+    public ITimeCard timeCardSplit() {
+        String[] timeCardFields = timeCardLine.split(",");
+        return new TimeCard(timeCardFields[0].trim(), Double.parseDouble(timeCardFields[1].trim()));
+    }
+}
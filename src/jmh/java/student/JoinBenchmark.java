@@ -0,0 +1,97 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of joining employees with their time cards. The average time per join should
+ * grow linearly with the number of employees for both the hash join and the sort-merge join.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinBenchmark {
+
+    /**
+     * The number of employees, each with one time card.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    /**
+     * The employees sorted by ID.
+     */
+    private List<IEmployee> employees;
+
+    /**
+     * The time cards sorted by employee ID.
+     */
+    private List<ITimeCard> sortedTimeCards;
+
+    /**
+     * The time cards in random order.
+     */
+    private List<ITimeCard> shuffledTimeCards;
+
+    /**
+     * Creates the employees and time cards.
+     */
+    @Setup
+    public void setUp() {
+        employees = new ArrayList<>(size);
+        sortedTimeCards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = String.format("e%09d", i);
+            employees.add(new HourlyEmployee("Employee " + i, id, 25.0, 0.0, 0.0, 0.0));
+            sortedTimeCards.add(new TimeCard(id, 40.0));
+        }
+        shuffledTimeCards = new ArrayList<>(sortedTimeCards);
+        Collections.shuffle(shuffledTimeCards, new Random(42));
+    }
+
+    /**
+     * Builds a time card index from unsorted time cards and joins it with the employees.
+     * @return The total hours matched, so the join is not optimized away.
+     */
+    @Benchmark
+    public double hashJoin() {
+        TimeCardIndex index = new TimeCardIndex(DuplicatePolicy.FIRST);
+        for (ITimeCard timeCard : shuffledTimeCards) {
+            index.add(timeCard);
+        }
+        double[] hours = new double[1];
+        TimeCardJoin.hashJoin(employees.iterator(), index,
+                (employee, timeCard) -> hours[0] += timeCard.getHoursWorked());
+        return hours[0];
+    }
+
+    /**
+     * Merges sorted time cards with the sorted employees.
+     * @return The total hours matched, so the join is not optimized away.
+     */
+    @Benchmark
+    public double mergeJoin() {
+        double[] hours = new double[1];
+        TimeCardJoin.mergeJoin(employees.iterator(), sortedTimeCards.iterator(), DuplicatePolicy.FIRST,
+                (employee, timeCard) -> hours[0] += timeCard.getHoursWorked());
+        return hours[0];
+    }
+}
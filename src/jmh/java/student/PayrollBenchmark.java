@@ -0,0 +1,168 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-employee hot paths of a payroll run: gross pay, payroll processing and the
+ * CSV serialization of employees and pay stubs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayrollBenchmark {
+
+    /**
+     * An hourly employee.
+     */
+    private HourlyEmployee hourlyEmployee;
+
+    /**
+     * A salary employee.
+     */
+    private SalaryEmployee salaryEmployee;
+
+    /**
+     * A pay stub of the salary employee.
+     */
+    private PayStub payStub;
+
+    /**
+     * Hours worked with overtime.
+     */
+    private double hoursWorked = 45.0;
+
+    /**
+     * A tax engine with seven progressive brackets and a capped rule, like a federal withholding table.
+     */
+    private final TaxEngine taxTable = new TaxTable("FEDERAL",
+            new long[] {0, 48_333, 196_458, 418_854, 799_792, 1_015_521, 2_538_958},
+            new long[] {100_000, 120_000, 220_000, 240_000, 320_000, 350_000, 370_000},
+            new long[] {16_860_000}, new long[] {62_000});
+
+    /**
+     * A gross pay cache holding the entries of both employees.
+     */
+    private final GrossPayCache grossPayCache = new GrossPayCache(1024);
+
+    /**
+     * The reused record writer.
+     */
+    private final CsvRecordWriter record = new CsvRecordWriter();
+
+    /**
+     * Creates the employees and pay stub.
+     */
+    @Setup
+    public void setUp() {
+        hourlyEmployee = new HourlyEmployee("Luffy", "s192", 30.0, 20000.0, 4530.0, 0.0);
+        salaryEmployee = new SalaryEmployee("Nami", "s193", 200000.0, 17017.0, 4983.0, 1000.0);
+        salaryEmployee.processPayroll(hoursWorked);
+        payStub = salaryEmployee.getPayStub();
+    }
+
+    /**
+     * Calculates the gross pay of an hourly employee with overtime.
+     * @return The gross pay in cents.
+     */
+    @Benchmark
+    public long hourlyGrossPay() {
+        return hourlyEmployee.calculateGrossPayCents(hoursWorked);
+    }
+
+    /**
+     * Calculates the gross pay of a salary employee.
+     * @return The gross pay in cents.
+     */
+    @Benchmark
+    public long salaryGrossPay() {
+        return salaryEmployee.calculateGrossPayCents(hoursWorked);
+    }
+
+    /**
+     * Looks up the gross pay of an hourly employee in the cache, always a hit.
+     * @return The gross pay in cents.
+     */
+    @Benchmark
+    public long hourlyGrossPayCached() {
+        return grossPayCache.grossPay(hourlyEmployee, hoursWorked);
+    }
+
+    /**
+     * Looks up the gross pay of a salary employee in the cache, always a hit.
+     * @return The gross pay in cents.
+     */
+    @Benchmark
+    public long salaryGrossPayCached() {
+        return grossPayCache.grossPay(salaryEmployee, hoursWorked);
+    }
+
+    /**
+     * Processes the payroll of an hourly employee.
+     * @return The new pay stub.
+     */
+    @Benchmark
+    public PayStub processPayroll() {
+        hourlyEmployee.processPayroll(hoursWorked);
+        return hourlyEmployee.getPayStub();
+    }
+
+    /**
+     * Processes the payroll of an hourly employee with progressive tax brackets.
+     * @return The new pay stub.
+     */
+    @Benchmark
+    public PayStub processPayrollWithTaxTable() {
+        hourlyEmployee.processPayroll(hoursWorked, taxTable);
+        return hourlyEmployee.getPayStub();
+    }
+
+    /**
+     * Converts a pay stub to CSV.
+     * @return The CSV line.
+     */
+    @Benchmark
+    public String payStubToCSV() {
+        return payStub.toCSV();
+    }
+
+    /**
+     * Converts an employee to CSV.
+     * @return The CSV line.
+     */
+    @Benchmark
+    public String employeeToCSV() {
+        return salaryEmployee.toCSV();
+    }
+
+    /**
+     * Writes a pay stub as a CSV record into a reused record writer.
+     * @return The length of the record.
+     */
+    @Benchmark
+    public int payStubWriteCSV() {
+        return payStub.writeCSV(record).length();
+    }
+
+    /**
+     * Writes an employee as a CSV record into a reused record writer.
+     * @return The length of the record.
+     */
+    @Benchmark
+    public int employeeWriteCSV() {
+        return salaryEmployee.writeCSV(record).length();
+    }
+}
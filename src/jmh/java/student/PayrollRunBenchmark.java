@@ -0,0 +1,94 @@
+package student;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a full PayrollGenerator run, from reading the input files to committing the output
+ * files, on synthetic rosters generated by RosterGenerator. Every run reads the employee file
+ * written by the previous one, which has the same size.
+ * Select smaller sizes with, e.g., -p size=1000,100000. The time cards of a run are held in memory,
+ * so larger rosters need a larger heap, e.g. -p size=10000000 -jvmArgsAppend -Xmx8g.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class PayrollRunBenchmark {
+
+    /**
+     * The number of employees in the roster.
+     */
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    /**
+     * The number of payroll threads.
+     */
+    @Param({"1"})
+    private int threads;
+
+    /**
+     * The directory holding the generated files.
+     */
+    private Path dir;
+
+    /**
+     * The command-line arguments of the run.
+     */
+    private String[] args;
+
+    /**
+     * Generates the roster.
+     * @throws IOException if the roster cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("payroll-bench");
+        Path employeeFile = dir.resolve("employees.csv");
+        Path timeCardFile = dir.resolve("time_cards.csv");
+        RosterGenerator.generate(size, employeeFile, timeCardFile, 42L);
+        args = new String[] {"-e", employeeFile.toString(), "-t", timeCardFile.toString(),
+            "-o", dir.resolve("pay_stubs.csv").toString(), "-p", Integer.toString(threads)};
+    }
+
+    /**
+     * Deletes the generated files.
+     * @throws IOException if a file cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Runs the payroll generator.
+     */
+    @Benchmark
+    public void run() {
+        PayrollGenerator.main(args);
+    }
+}
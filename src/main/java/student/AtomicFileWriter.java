@@ -0,0 +1,417 @@
+package student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AtomicFileWriter class writes lines to a temporary file next to the target file and
+ * replaces the target file only when the writer is committed. A commit flushes the temporary
+ * file, forces it to disk, renames it over the target file atomically, and forces the directory
+ * so the rename itself is durable; readers see either the old file or the complete new file and
+ * never a partially written one.
+ * Lines are encoded as UTF-8 straight into a direct ByteBuffer, which is written to the channel of
+ * the temporary file each time it fills up, so memory use does not grow with the size of the output.
+ * A target file ending in .gz is gzip-compressed on the way by a ParallelGzipWriter.
+ * <p>
+ * A resumable writer writes to a temporary file with a fixed name, {@code <file>.checkpoint.tmp},
+ * that is kept when the writer is closed without a commit. Its length at each checkpoint can be
+ * recorded, and a later process resumes it from that length, dropping whatever was written after.
+ */
+public class AtomicFileWriter implements Closeable {
+
+    /**
+     * The number of commits made by all writers, used to detect write amplification.
+     */
+    private static final AtomicInteger COMMIT_COUNT = new AtomicInteger();
+
+    /**
+     * The number of temporary files created by this process, which makes their names unique.
+     */
+    private static final AtomicLong TEMP_COUNT = new AtomicLong();
+
+    /**
+     * The default size of the output buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The smallest allowed size of the output buffer in bytes.
+     */
+    public static final int MIN_BUFFER_SIZE = 16;
+
+    /**
+     * The line separator, in bytes.
+     */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The largest number of bytes a single character or surrogate pair encodes to.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 4;
+
+    /**
+     * The suffix of the temporary file of a resumable writer.
+     */
+    public static final String CHECKPOINT_TEMP_SUFFIX = ".checkpoint.tmp";
+
+    /**
+     * The file to replace on commit.
+     */
+    private final Path target;
+
+    /**
+     * The temporary file that receives the lines.
+     */
+    private final Path temp;
+
+    /**
+     * The channel of the temporary file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The direct buffer holding the bytes not yet written to the channel.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The compressor of a gzip target file, or null if the target file is plain text.
+     */
+    private final ParallelGzipWriter compressor;
+
+    /**
+     * Whether the temporary file is kept when the writer is closed without a commit.
+     */
+    private final boolean resumable;
+
+    /**
+     * Whether the writer has been committed.
+     */
+    private boolean committed;
+
+    /**
+     * Constructs an AtomicFileWriter for the specified target file with the default buffer size.
+     * @param file The file path to replace on commit.
+     * @throws IOException if the temporary file cannot be created.
+     */
+    public AtomicFileWriter(String file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs an AtomicFileWriter for the specified target file.
+     * @param file The file path to replace on commit.
+     * @param bufferSize The size of the output buffer in bytes.
+     * @throws IOException if the temporary file cannot be created, or the compression of the
+     *                     target file is not supported.
+     * @throws IllegalArgumentException if the buffer size is smaller than MIN_BUFFER_SIZE.
+     */
+    public AtomicFileWriter(String file, int bufferSize) throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + ": " + bufferSize);
+        }
+        CompressedFiles.checkSupported(file);
+        this.target = Path.of(file).toAbsolutePath();
+        // Name the temporary file after the process instead of using Files.createTempFile, whose
+        // SecureRandom takes longer to initialize than a short run spends writing
+        String prefix = target.getFileName() + "." + ProcessHandle.current().pid() + ".";
+        Path tempFile;
+        FileChannel tempChannel;
+        while (true) {
+            tempFile = target.resolveSibling(prefix + TEMP_COUNT.incrementAndGet() + ".tmp");
+            try {
+                tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // Left over by an earlier process with the same ID; try the next name
+            }
+        }
+        this.temp = tempFile;
+        this.channel = tempChannel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.compressor = CompressedFiles.isGzip(file) ? new ParallelGzipWriter(tempChannel) : null;
+        this.resumable = false;
+    }
+
+    /**
+     * Constructs a resumable AtomicFileWriter that appends to the checkpoint temporary file.
+     * @param target The file to replace on commit.
+     * @param channel The channel of the checkpoint temporary file, positioned at its end.
+     * @param bufferSize The size of the output buffer in bytes.
+     */
+    private AtomicFileWriter(Path target, FileChannel channel, int bufferSize) {
+        this.target = target;
+        this.temp = checkpointTemp(target);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.compressor = CompressedFiles.isGzip(target.toString()) ? new ParallelGzipWriter(channel) : null;
+        this.resumable = true;
+    }
+
+    /**
+     * Opens a resumable writer for the specified target file, keeping the first bytes of its
+     * checkpoint temporary file and dropping the rest.
+     * @param file The file path to replace on commit.
+     * @param bufferSize The size of the output buffer in bytes.
+     * @param length The length of the temporary file at the checkpoint to resume from, or 0 to
+     *               start a new temporary file.
+     * @return The resumable writer.
+     * @throws IOException if the temporary file cannot be opened, or is shorter than length, or the
+     *                     compression of the target file is not supported.
+     * @throws IllegalArgumentException if the buffer size is smaller than MIN_BUFFER_SIZE.
+     */
+    public static AtomicFileWriter resume(String file, int bufferSize, long length) throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + ": " + bufferSize);
+        }
+        CompressedFiles.checkSupported(file);
+        Path target = Path.of(file).toAbsolutePath();
+        FileChannel channel = FileChannel.open(checkpointTemp(target), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            if (channel.size() < length) {
+                throw new IOException("Checkpoint file is shorter than its checkpoint: " + checkpointTemp(target));
+            }
+            channel.truncate(length);
+            channel.position(length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new AtomicFileWriter(target, channel, bufferSize);
+    }
+
+    /**
+     * Writes a line to the temporary file.
+     * @param line The line to write, without a line separator.
+     * @throws IOException if the line cannot be written.
+     */
+    public void writeLine(CharSequence line) throws IOException {
+        write(line);
+        writeLineSeparator();
+    }
+
+    /**
+     * Writes the current record of a record writer as a line to the temporary file.
+     * @param record The record writer holding the record.
+     * @throws IOException if the record cannot be written.
+     */
+    public void writeRecord(CsvRecordWriter record) throws IOException {
+        writeLine(record.chars());
+    }
+
+    /**
+     * Writes out the buffer and forces the temporary file to disk, so everything written so far
+     * survives a crash of the process or the machine. A compressed file ends with a complete gzip
+     * member at a checkpoint, so it can be resumed from there.
+     * @return The length of the temporary file, which a resumable writer can resume from.
+     * @throws IOException if the file cannot be written.
+     */
+    public long checkpoint() throws IOException {
+        flush();
+        if (compressor != null) {
+            compressor.flush();
+        }
+        channel.force(false);
+        return channel.position();
+    }
+
+    /**
+     * Forces the temporary file to disk and atomically renames it over the target file.
+     * @param backup Whether to keep the old target file as a .bak file.
+     * @throws IOException if the file cannot be committed.
+     */
+    public void commit(boolean backup) throws IOException {
+        flush();
+        if (compressor != null) {
+            compressor.flush();
+        }
+        channel.force(true);
+        channel.close();
+        replace(temp, target, backup);
+        committed = true;
+    }
+
+    /**
+     * Finishes the commit of a resumable writer that was interrupted after its temporary file was
+     * complete: renames the checkpoint temporary file over the target file if it is still there.
+     * @param file The target file of the resumable writer.
+     * @param backup Whether to keep the old target file as a .bak file.
+     * @return true if the temporary file was renamed, false if it was already.
+     * @throws IOException if the file cannot be committed.
+     */
+    public static boolean commitCheckpoint(String file, boolean backup) throws IOException {
+        Path target = Path.of(file).toAbsolutePath();
+        Path temp = checkpointTemp(target);
+        if (!Files.exists(temp)) {
+            return false;
+        }
+        replace(temp, target, backup);
+        return true;
+    }
+
+    /**
+     * Closes the writer, deleting the temporary file if the writer was not committed and is not
+     * resumable.
+     * @throws IOException if the temporary file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            if (compressor != null) {
+                compressor.close();
+            }
+            channel.close();
+            if (!resumable) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Atomically renames a complete temporary file over its target file.
+     * @param temp The temporary file, already forced to disk.
+     * @param target The file to replace.
+     * @param backup Whether to keep the old target file as a .bak file.
+     * @throws IOException if the file cannot be renamed.
+     */
+    private static void replace(Path temp, Path target, boolean backup) throws IOException {
+        if (backup && Files.exists(target)) {
+            backup(target, Path.of(target + ".bak"));
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(target.getParent());
+        COMMIT_COUNT.incrementAndGet();
+    }
+
+    /**
+     * Forces a directory to disk, so a rename in it survives a power loss. Directories cannot be
+     * opened on some platforms, such as Windows, where the rename is left to the file system.
+     * @param dir The directory, or null for none.
+     * @throws IOException if the opened directory cannot be forced to disk.
+     */
+    private static void forceDirectory(Path dir) throws IOException {
+        if (dir == null) {
+            return;
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Gets the checkpoint temporary file of a target file.
+     * @param target The absolute target file.
+     * @return The checkpoint temporary file next to it.
+     */
+    private static Path checkpointTemp(Path target) {
+        return target.resolveSibling(target.getFileName() + CHECKPOINT_TEMP_SUFFIX);
+    }
+
+    /**
+     * Encodes characters as UTF-8 into the buffer, writing the buffer out whenever it fills up.
+     * Unpaired surrogates are replaced with '?', like String.getBytes does.
+     * @param chars The characters to write.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void write(CharSequence chars) throws IOException {
+        int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < MAX_BYTES_PER_CHAR) {
+                flush();
+            }
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) '?');
+            }
+        }
+    }
+
+    /**
+     * Writes the line separator into the buffer.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void writeLineSeparator() throws IOException {
+        if (buffer.remaining() < LINE_SEPARATOR.length) {
+            flush();
+        }
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel, or to the compressor, and empties it.
+     * @throws IOException if the buffer cannot be written.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        if (compressor != null) {
+            compressor.write(buffer);
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Keeps the current target file as a backup. The backup is a hard link when the file system
+     * supports it, so the target file never disappears and its data is not copied.
+     * @param file The file to back up.
+     * @param backupFile The backup file.
+     * @throws IOException if the backup cannot be created.
+     */
+    private static void backup(Path file, Path backupFile) throws IOException {
+        Files.deleteIfExists(backupFile);
+        try {
+            Files.createLink(backupFile, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(file, backupFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Gets the number of commits made by all writers.
+     * @return The number of commits.
+     */
+    static int getCommitCount() {
+        return COMMIT_COUNT.get();
+    }
+}
@@ -0,0 +1,83 @@
+package student;
+
+/**
+ * The BatchPayroll class computes the payroll of a whole roster on its columns. Each step is a
+ * separate loop over primitive arrays with no object access and no allocation, so the JIT can
+ * unroll it and vectorize what the hardware supports. The results are the same as
+ * Employee.processPayroll for every employee, to the cent.
+ */
+public final class BatchPayroll {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BatchPayroll() {
+
+    }
+
+    /**
+     * Computes the payroll of a roster with the default flat tax rate.
+     * @param roster The roster.
+     * @param hours The hours worked by each employee, NaN for employees without a time card.
+     * @throws IllegalArgumentException if the number of hours does not match the roster size.
+     */
+    public static void compute(RosterColumns roster, double[] hours) {
+        compute(roster, hours, FlatTaxEngine.DEFAULT);
+    }
+
+    /**
+     * Computes the payroll of a roster. Employees with a NaN or negative number of hours are not
+     * paid, like employees without a time card; the others get their net pay and taxes in the
+     * result columns of the roster and their year-to-date values updated.
+     * @param roster The roster.
+     * @param hours The hours worked by each employee, NaN for employees without a time card.
+     * @param taxEngine The tax engine calculating the taxes.
+     * @throws IllegalArgumentException if the number of hours does not match the roster size.
+     */
+    public static void compute(RosterColumns roster, double[] hours, TaxEngine taxEngine) {
+        int size = roster.size();
+        if (hours.length != size) {
+            throw new IllegalArgumentException("Expected hours for " + size + " employees, got " + hours.length);
+        }
+        byte[] types = roster.types;
+        long[] payRates = roster.payRates;
+        long[] pretaxDeductions = roster.pretaxDeductions;
+        long[] ytdEarnings = roster.ytdEarnings;
+        long[] ytdTaxesPaid = roster.ytdTaxesPaid;
+        long[] netPay = new long[size];
+        long[] taxes = new long[size];
+        boolean[] paid = new boolean[size];
+
+        // Gross pay, kept in the net pay column until the taxes are known, and zero for employees not paid
+        for (int i = 0; i < size; i++) {
+            paid[i] = hours[i] >= 0;
+            if (!paid[i]) {
+                netPay[i] = 0;
+            } else if (types[i] == RosterColumns.HOURLY) {
+                long hundredths = Math.round(hours[i] * 100);
+                long regular = Math.min(hundredths, HourlyEmployee.REGULAR_HOURS * 100);
+                long overtime = hundredths - regular;
+                netPay[i] = Money.divideHalfEven(payRates[i] * (2 * regular + 3 * overtime), 200);
+            } else {
+                netPay[i] = Money.divideHalfEven(payRates[i], SalaryEmployee.PAY_PERIODS);
+            }
+        }
+
+        // Taxable pay, taxes, and net pay
+        for (int i = 0; i < size; i++) {
+            long taxablePay = netPay[i] - pretaxDeductions[i];
+            taxes[i] = taxEngine.calculateTaxes(taxablePay, ytdEarnings[i]);
+            netPay[i] = taxablePay - taxes[i];
+        }
+
+        // Year-to-date totals of the employees that were paid
+        for (int i = 0; i < size; i++) {
+            ytdEarnings[i] += paid[i] ? netPay[i] : 0;
+            ytdTaxesPaid[i] += paid[i] ? taxes[i] : 0;
+        }
+
+        roster.netPay = netPay;
+        roster.taxes = taxes;
+        roster.paid = paid;
+    }
+}
@@ -6,6 +6,11 @@ package student;
  */
 public final class Builder {
 
+    /**
+     * The tokenizer of each thread, reused for every line it parses.
+     */
+    private static final ThreadLocal<CsvTokenizer> TOKENIZER = ThreadLocal.withInitial(CsvTokenizer::new);
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -14,30 +19,34 @@ public final class Builder {
     }
 
     /**
-     * Creates an IEmployee instance from a CSV string.
+     * Creates an IEmployee instance from a CSV string. Money amounts are read as cents.
      * @param csv The CSV string containing employee data.
      * @return An IEmployee instance created from the CSV data.
-     * @throws IllegalArgumentException if the employee type is invalid.
+     * @throws IllegalArgumentException if the employee type is invalid or a field is missing.
      */
     public static IEmployee buildEmployeeFromCSV(String csv) {
-        String[] employeeFields = csv.split(",");
+        CsvTokenizer employeeFields = TOKENIZER.get().reset(csv);
+
+        // The employee type is matched in place, so every employee shares the same type constant
+        nextField(employeeFields, csv);
+        boolean hourly = employeeFields.fieldEquals(HourlyEmployee.TYPE);
+        if (!hourly && !employeeFields.fieldEquals(SalaryEmployee.TYPE)) {
+            throw new IllegalArgumentException("Invalid employee type: " + employeeFields.fieldString());
+        }
 
-        String employeeType = employeeFields[0].trim();
-        String name = employeeFields[1].trim();
-        String id = employeeFields[2].trim();
-        double payRate = Double.parseDouble(employeeFields[3].trim());
-        double pretaxDeductions = Double.parseDouble(employeeFields[4].trim());
-        double ytdEarnings = Double.parseDouble(employeeFields[5].trim());
-        double ytdTaxesPaid = Double.parseDouble(employeeFields[6].trim());
+        String name = nextField(employeeFields, csv).fieldString();
+        String id = nextField(employeeFields, csv).fieldString();
+        long payRate = nextField(employeeFields, csv).fieldCents();
+        long pretaxDeductions = nextField(employeeFields, csv).fieldCents();
+        long ytdEarnings = nextField(employeeFields, csv).fieldCents();
+        long ytdTaxesPaid = nextField(employeeFields, csv).fieldCents();
 
         IEmployee employee = null;
 
-        if (employeeType.equals("HOURLY")) {
-            employee = new HourlyEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
-        } else if (employeeType.equals("SALARY")) {
-            employee = new SalaryEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+        if (hourly) {
+            employee = HourlyEmployee.ofCents(name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
         } else {
-            throw new IllegalArgumentException("Invalid employee type: " + employeeType);
+            employee = SalaryEmployee.ofCents(name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
         }
 
         return employee;
@@ -47,12 +56,13 @@ public final class Builder {
      * Creates an ITimeCard instance from a CSV string.
      * @param csv The CSV string containing time card data.
      * @return An ITimeCard instance created from the CSV data.
+     * @throws IllegalArgumentException if a field is missing.
      */
     public static ITimeCard buildTimeCardFromCSV(String csv) {
-        String[] timeCardFields = csv.split(",");
+        CsvTokenizer timeCardFields = TOKENIZER.get().reset(csv);
 
-        String employeeID = timeCardFields[0].trim();
-        double hoursWorked = Double.parseDouble(timeCardFields[1].trim());
+        String employeeID = nextField(timeCardFields, csv).fieldString();
+        double hoursWorked = nextField(timeCardFields, csv).fieldDouble();
 
         ITimeCard timeCard = null;
 
@@ -60,4 +70,18 @@ public final class Builder {
 
         return timeCard;
     }
+
+    /**
+     * Advances a tokenizer to the next field of a CSV string.
+     * @param fields The tokenizer of the CSV string.
+     * @param csv The CSV string, used in the error message.
+     * @return The tokenizer, positioned on the next field.
+     * @throws IllegalArgumentException if the CSV string has no more fields.
+     */
+    private static CsvTokenizer nextField(CsvTokenizer fields, String csv) {
+        if (!fields.nextField()) {
+            throw new IllegalArgumentException("Missing field in: " + csv);
+        }
+        return fields;
+    }
 }
@@ -0,0 +1,96 @@
+package student;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * The CheckpointSupport class lets a long-running process take part in Coordinated Restore at
+ * Checkpoint (CRaC) without depending on it. On a JVM with CRaC, a warm process can be saved with
+ * {@code jcmd <pid> JDK.checkpoint} and started again from that image in milliseconds; files and
+ * sockets must be closed before the checkpoint and reopened after the restore, which is what the
+ * registered actions are for. The CRaC API is looked up by reflection, first the portable
+ * org.crac package and then the jdk.crac module, so on any other JVM registering does nothing.
+ */
+public final class CheckpointSupport {
+
+    /**
+     * The packages of the CRaC API, in the order they are tried.
+     */
+    private static final String[] API_PACKAGES = {"org.crac.", "jdk.crac."};
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CheckpointSupport() {
+
+    }
+
+    /**
+     * Registers actions to run before a checkpoint and after a restore of the JVM.
+     * CRaC only holds registered resources weakly, so the caller must keep the returned resource
+     * for as long as the actions should run.
+     * @param beforeCheckpoint The action that closes files and sockets before a checkpoint.
+     * @param afterRestore The action that reopens them after a restore.
+     * @return The registered resource, or null if the JVM does not support CRaC.
+     */
+    public static Object register(Runnable beforeCheckpoint, Runnable afterRestore) {
+        for (String api : API_PACKAGES) {
+            Object resource = register(api, beforeCheckpoint, afterRestore);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registers actions with the global context of a CRaC API.
+     * @param api The prefix of the class names of the API, e.g. "org.crac.".
+     * @param beforeCheckpoint The action to run before a checkpoint.
+     * @param afterRestore The action to run after a restore.
+     * @return The registered resource, or null if the API is not available.
+     */
+    static Object register(String api, Runnable beforeCheckpoint, Runnable afterRestore) {
+        Class<?> core;
+        Class<?> resourceType;
+        try {
+            core = Class.forName(api + "Core");
+            resourceType = Class.forName(api + "Resource");
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "beforeCheckpoint":
+                    beforeCheckpoint.run();
+                    return null;
+                case "afterRestore":
+                    afterRestore.run();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "CheckpointSupport resource";
+            }
+        };
+        Object resource = Proxy.newProxyInstance(CheckpointSupport.class.getClassLoader(),
+                new Class<?>[] {resourceType}, handler);
+        try {
+            // Call register through the public Context type, as the context itself may be of a private class
+            Method getGlobalContext = core.getMethod("getGlobalContext");
+            Object context = getGlobalContext.invoke(null);
+            getGlobalContext.getReturnType().getMethod("register", resourceType).invoke(context, resource);
+            return resource;
+        } catch (InvocationTargetException e) {
+            System.err.println("Cannot register with CRaC: " + e.getCause());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Cannot register with CRaC: " + e);
+        }
+        return null;
+    }
+}
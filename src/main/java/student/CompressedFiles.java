@@ -0,0 +1,119 @@
+package student;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The CompressedFiles class picks the compression of a payroll file from its extension, so the
+ * employee, time card and pay stub files can each be compressed without any option: a file ending
+ * in .gz is gzip-compressed, and any other file is plain text. Readers decompress a gzip file as a
+ * stream, and AtomicFileWriter compresses one on all cores with a ParallelGzipWriter.
+ * Zstandard files (.zst) are recognized but rejected, as the JDK has no zstd codec.
+ */
+public final class CompressedFiles {
+
+    /**
+     * The extension of gzip-compressed files.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * The extension of Zstandard-compressed files, which are not supported.
+     */
+    public static final String ZSTD_SUFFIX = ".zst";
+
+    /**
+     * The size in bytes of the buffer of the decompressor.
+     */
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CompressedFiles() {
+
+    }
+
+    /**
+     * Checks whether a file is gzip-compressed.
+     * @param file The file path.
+     * @return true if the file name ends in .gz.
+     */
+    public static boolean isGzip(String file) {
+        return file.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Checks whether a file is compressed, with a supported codec or not.
+     * @param file The file path.
+     * @return true if the file name ends in .gz or .zst.
+     */
+    public static boolean isCompressed(String file) {
+        return isGzip(file) || file.endsWith(ZSTD_SUFFIX);
+    }
+
+    /**
+     * Removes the compression extension of a file name.
+     * @param name The file name.
+     * @return The name without its .gz or .zst extension, or the name itself if it has neither.
+     */
+    public static String stripSuffix(String name) {
+        if (isGzip(name)) {
+            return name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        if (name.endsWith(ZSTD_SUFFIX)) {
+            return name.substring(0, name.length() - ZSTD_SUFFIX.length());
+        }
+        return name;
+    }
+
+    /**
+     * Checks that the compression of a file is supported.
+     * @param file The file path.
+     * @throws IOException if the file is Zstandard-compressed.
+     */
+    public static void checkSupported(String file) throws IOException {
+        if (file.endsWith(ZSTD_SUFFIX)) {
+            throw new IOException("Zstandard files are not supported, use gzip (.gz) instead: " + file);
+        }
+    }
+
+    /**
+     * Opens a file for reading its decompressed bytes.
+     * @param file The file path to read.
+     * @return The stream of the contents of the file, decompressed if the file is compressed.
+     * @throws IOException if the file cannot be opened, or its compression is not supported.
+     */
+    public static InputStream newInputStream(String file) throws IOException {
+        checkSupported(file);
+        InputStream in = Files.newInputStream(Path.of(file));
+        if (!isGzip(file)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, INPUT_BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a text file for reading its decompressed lines as UTF-8.
+     * @param file The file path to read.
+     * @return The reader of the file.
+     * @throws IOException if the file cannot be opened, or its compression is not supported.
+     */
+    public static BufferedReader newBufferedReader(String file) throws IOException {
+        if (!isCompressed(file)) {
+            return Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8);
+        }
+        return new BufferedReader(new InputStreamReader(newInputStream(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,139 @@
+package student;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * The CsvRecordReader class reads the records of a CSV file lazily, one line at a time.
+ * The header line is skipped, and every following line is parsed with the given parser only
+ * when it is requested, so only one record is held in memory no matter how large the file is.
+ * The time spent reading and parsing records is reported to the payroll metrics of the reader.
+ * A compressed file is decompressed as it is read.
+ * @param <T> The type of the parsed records.
+ */
+public class CsvRecordReader<T> implements Iterator<T>, Closeable {
+
+    /**
+     * The reader over the CSV file.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The parser that turns a CSV line into a record.
+     */
+    private final Function<String, T> parser;
+
+    /**
+     * The metrics timing the read and parse phases.
+     */
+    private final PayrollMetrics metrics;
+
+    /**
+     * The next line to parse, or null at the end of the file.
+     */
+    private String nextLine;
+
+    /**
+     * Constructs a CsvRecordReader for the specified file and skips its header line.
+     * @param file The file path to read.
+     * @param parser The parser that turns a CSV line into a record.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public CsvRecordReader(String file, Function<String, T> parser) throws IOException {
+        this(file, parser, PayrollMetrics.DISABLED);
+    }
+
+    /**
+     * Constructs a CsvRecordReader for the specified file that reports to payroll metrics, and
+     * skips its header line.
+     * @param file The file path to read.
+     * @param parser The parser that turns a CSV line into a record.
+     * @param metrics The metrics timing the read and parse phases.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public CsvRecordReader(String file, Function<String, T> parser, PayrollMetrics metrics) throws IOException {
+        this.reader = CompressedFiles.newBufferedReader(file);
+        this.parser = parser;
+        this.metrics = metrics;
+        // Skip the header line
+        reader.readLine();
+        this.nextLine = readNonEmptyLine();
+    }
+
+    /**
+     * Checks whether there is another record in the file.
+     * @return true if there is another record.
+     */
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    /**
+     * Reads and parses the next record in the file.
+     * @return The next record.
+     * @throws NoSuchElementException if there are no more records.
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    @Override
+    public T next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        PayrollMetrics.Phase previous = metrics.enter(PayrollMetrics.Phase.READ);
+        try {
+            nextLine = readNonEmptyLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        metrics.enter(PayrollMetrics.Phase.PARSE);
+        T record = parser.apply(line);
+        metrics.enter(previous);
+        return record;
+    }
+
+    /**
+     * Skips records without parsing them, e.g. the records a resumed run already processed.
+     * @param count The number of records to skip.
+     * @return The number of records skipped, fewer than count if the file ends first.
+     * @throws IOException if the file cannot be read.
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        PayrollMetrics.Phase previous = metrics.enter(PayrollMetrics.Phase.READ);
+        while (skipped < count && nextLine != null) {
+            nextLine = readNonEmptyLine();
+            skipped++;
+        }
+        metrics.enter(previous);
+        return skipped;
+    }
+
+    /**
+     * Closes the underlying file.
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next line that is not blank.
+     * @return The next non-blank line, or null at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private String readNonEmptyLine() throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            line = reader.readLine();
+        }
+        return line;
+    }
+}
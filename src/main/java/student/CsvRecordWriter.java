@@ -0,0 +1,142 @@
+package student;
+
+/**
+ * The CsvRecordWriter class builds one CSV record at a time in a reusable buffer. Text fields are
+ * quoted only when needed, and money fields are formatted straight from long cents, so a record
+ * is built without format strings, Formatter instances or intermediate Strings, and the output
+ * does not depend on the default locale. A record writer is reusable but not thread-safe.
+ */
+public class CsvRecordWriter {
+
+    /**
+     * The field separator.
+     */
+    private static final char SEPARATOR = ',';
+
+    /**
+     * The quote character.
+     */
+    private static final char QUOTE = '"';
+
+    /**
+     * The buffer holding the current record.
+     */
+    private final StringBuilder record = new StringBuilder(128);
+
+    /**
+     * The number of fields in the current record.
+     */
+    private int fields;
+
+    /**
+     * Starts a new, empty record.
+     * @return This record writer.
+     */
+    public CsvRecordWriter reset() {
+        record.setLength(0);
+        fields = 0;
+        return this;
+    }
+
+    /**
+     * Appends a text field, quoting it if it contains a separator, a quote, a line break, or
+     * surrounding whitespace.
+     * @param field The text of the field.
+     * @return This record writer.
+     */
+    public CsvRecordWriter text(String field) {
+        separate();
+        if (!needsQuotes(field)) {
+            record.append(field);
+            return this;
+        }
+        record.append(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == QUOTE) {
+                record.append(QUOTE);
+            }
+            record.append(c);
+        }
+        record.append(QUOTE);
+        return this;
+    }
+
+    /**
+     * Appends a money field with two decimals.
+     * @param cents The amount in cents.
+     * @return This record writer.
+     */
+    public CsvRecordWriter money(long cents) {
+        return money(cents, 2);
+    }
+
+    /**
+     * Appends a money field with one or two decimals.
+     * @param cents The amount in cents.
+     * @param decimals The number of decimals, 1 or 2.
+     * @return This record writer.
+     */
+    public CsvRecordWriter money(long cents, int decimals) {
+        separate();
+        Money.appendTo(record, cents, decimals);
+        return this;
+    }
+
+    /**
+     * Gets the length of the current record.
+     * @return The number of characters in the record.
+     */
+    public int length() {
+        return record.length();
+    }
+
+    /**
+     * Gets the characters of the current record without copying them. The characters change
+     * when the record writer is reset or appended to.
+     * @return The current record.
+     */
+    public CharSequence chars() {
+        return record;
+    }
+
+    /**
+     * Gets the current record as a String.
+     * @return The CSV record.
+     */
+    @Override
+    public String toString() {
+        return record.toString();
+    }
+
+    /**
+     * Appends a separator unless the field is the first of the record. The field count is used
+     * rather than the length of the record, as a first field may be empty.
+     */
+    private void separate() {
+        if (fields++ > 0) {
+            record.append(SEPARATOR);
+        }
+    }
+
+    /**
+     * Checks whether a text field needs quotes.
+     * @param field The text of the field.
+     * @return true if the field must be quoted.
+     */
+    private static boolean needsQuotes(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        if (field.charAt(0) <= ' ' || field.charAt(field.length() - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
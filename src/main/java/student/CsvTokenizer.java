@@ -0,0 +1,275 @@
+package student;
+
+import java.math.BigDecimal;
+
+/**
+ * The CsvTokenizer class splits one CSV line into fields without regular expressions and without
+ * creating a String per field. Fields are read in place from the line: numeric fields are parsed
+ * straight from its characters, and text fields are only copied when they are requested.
+ * Leading and trailing whitespace around a field is ignored, and fields may be quoted so that
+ * they can contain commas, with a doubled quote standing for a literal quote.
+ * A tokenizer is reusable but not thread-safe.
+ */
+public class CsvTokenizer {
+
+    /**
+     * The field separator.
+     */
+    private static final char SEPARATOR = ',';
+
+    /**
+     * The quote character.
+     */
+    private static final char QUOTE = '"';
+
+    /**
+     * The maximum number of significant digits that always fit exactly in a double.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The line being tokenized.
+     */
+    private CharSequence line = "";
+
+    /**
+     * The position where the next field starts, past the end of the line when there are no more fields.
+     */
+    private int position;
+
+    /**
+     * The start of the current field, inclusive.
+     */
+    private int start;
+
+    /**
+     * The end of the current field, exclusive.
+     */
+    private int end;
+
+    /**
+     * Whether the current field contains doubled quotes.
+     */
+    private boolean escaped;
+
+    /**
+     * Starts tokenizing a new line.
+     * @param line The CSV line to tokenize.
+     * @return This tokenizer.
+     */
+    public CsvTokenizer reset(CharSequence line) {
+        this.line = line;
+        this.position = 0;
+        return this;
+    }
+
+    /**
+     * Advances to the next field of the line.
+     * @return true if there is a next field, false at the end of the line.
+     * @throws IllegalArgumentException if a quoted field is malformed.
+     */
+    public boolean nextField() {
+        int length = line.length();
+        if (position > length) {
+            return false;
+        }
+
+        int i = position;
+        while (i < length && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+
+        escaped = false;
+        if (i < length && line.charAt(i) == QUOTE) {
+            start = ++i;
+            while (true) {
+                if (i >= length) {
+                    throw new IllegalArgumentException("Unterminated quoted field in: " + line);
+                }
+                if (line.charAt(i) == QUOTE) {
+                    if (i + 1 < length && line.charAt(i + 1) == QUOTE) {
+                        escaped = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            end = i++;
+            while (i < length && isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i < length && line.charAt(i) != SEPARATOR) {
+                throw new IllegalArgumentException("Unexpected character after quoted field in: " + line);
+            }
+        } else {
+            start = i;
+            while (i < length && line.charAt(i) != SEPARATOR) {
+                i++;
+            }
+            end = i;
+            while (end > start && isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+        }
+
+        position = i + 1;
+        return true;
+    }
+
+    /**
+     * Gets the current field as a String.
+     * @return The current field, without surrounding whitespace or quotes.
+     */
+    public String fieldString() {
+        String field = line.subSequence(start, end).toString();
+        return escaped ? field.replace("\"\"", "\"") : field;
+    }
+
+    /**
+     * Checks whether the current field equals the given text, without creating a String.
+     * @param text The text to compare with.
+     * @return true if the current field equals the text.
+     */
+    public boolean fieldEquals(String text) {
+        if (escaped) {
+            return fieldString().equals(text);
+        }
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current field as a double. Plain decimal numbers with up to fifteen significant
+     * digits are parsed directly from the line; they are exact integers divided by an exact power
+     * of ten, so the result is the same correctly rounded value Double.parseDouble returns.
+     * Any other number falls back to Double.parseDouble.
+     * @return The value of the current field.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public double fieldDouble() {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+                digits++;
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(fieldString());
+            }
+            if (significantDigits > MAX_EXACT_DIGITS || scale >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(fieldString());
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(fieldString());
+        }
+
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the current field as an amount in cents, rounding half-even to the cent.
+     * Plain decimal numbers are parsed directly from the line; any other number falls back to
+     * BigDecimal.
+     * @return The amount of the current field in cents.
+     * @throws NumberFormatException if the field is not a number.
+     * @throws ArithmeticException if the amount does not fit in a long.
+     */
+    public long fieldCents() {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+
+        long cents = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        // The first dropped fraction digit, and whether any later dropped digit is not zero
+        int roundingDigit = 0;
+        boolean sticky = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (!point) {
+                    if (++integerDigits > MAX_EXACT_DIGITS) {
+                        return Money.fromBigDecimal(new BigDecimal(fieldString()));
+                    }
+                    cents = cents * 10 + digit;
+                } else if (fractionDigits < 2) {
+                    cents = cents * 10 + digit;
+                    fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    roundingDigit = digit;
+                    fractionDigits++;
+                } else {
+                    sticky |= digit != 0;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Money.fromBigDecimal(new BigDecimal(fieldString()));
+            }
+        }
+        if (integerDigits + fractionDigits == 0) {
+            throw new NumberFormatException("Not a number: \"" + fieldString() + "\"");
+        }
+
+        for (int scale = Math.min(fractionDigits, 2); scale < 2; scale++) {
+            cents *= 10;
+        }
+        if (roundingDigit > 5 || (roundingDigit == 5 && (sticky || (cents & 1) != 0))) {
+            cents++;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Checks whether a character is whitespace in the sense of String.trim.
+     * @param c The character to check.
+     * @return true if the character is whitespace.
+     */
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+}
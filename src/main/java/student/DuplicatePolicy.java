@@ -0,0 +1,51 @@
+package student;
+
+/**
+ * The DuplicatePolicy enum defines what happens when an employee has more than one time card
+ * in the same time card file.
+ */
+public enum DuplicatePolicy {
+
+    /**
+     * Use the first time card found for the employee and ignore the rest.
+     */
+    FIRST,
+
+    /**
+     * Add the hours worked of every time card found for the employee.
+     */
+    SUM,
+
+    /**
+     * Reject the time card file by throwing an exception.
+     */
+    REJECT;
+
+    /**
+     * Resolves two time cards for the same employee into a single time card.
+     * @param first The time card that was found first.
+     * @param duplicate The time card that was found after the first one.
+     * @return The time card to use for the employee.
+     * @throws IllegalArgumentException if the policy is REJECT.
+     */
+    public ITimeCard resolve(ITimeCard first, ITimeCard duplicate) {
+        switch (this) {
+            case SUM:
+                return new TimeCard(first.getEmployeeID(), first.getHoursWorked() + duplicate.getHoursWorked());
+            case REJECT:
+                throw new IllegalArgumentException("Duplicate time card for employee: " + first.getEmployeeID());
+            default:
+                return first;
+        }
+    }
+
+    /**
+     * Gets the duplicate policy matching the given name, ignoring case.
+     * @param name The name of the policy.
+     * @return The matching duplicate policy.
+     * @throws IllegalArgumentException if no policy matches the name.
+     */
+    public static DuplicatePolicy fromString(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -6,13 +6,16 @@ import java.math.BigDecimal;
  * The Employee class is an abstract class that implements the IEmployee interface.
  * It provides common functionality for different types of employees, including calculating
  * payroll details such as net pay, taxes, year-to-date earnings, and year-to-date taxes paid.
+ * Money amounts are kept as long cents and calculated with the rounding rules of the Money class.
+ * Data that is the same for every employee of a type, such as the type name and the tax rate, is
+ * kept in static constants rather than in every instance.
  */
 public abstract class Employee implements IEmployee {
 
     /**
-     * The type of the employee.
+     * The tax rate of all employees in millionths, used by FlatTaxEngine.DEFAULT.
      */
-    private String employeeType;
+    static final long TAX_RATE = 226_500L;
 
     /**
      * The name of the employee.
@@ -25,29 +28,24 @@ public abstract class Employee implements IEmployee {
     private String id;
 
     /**
-     * The pay rate of the employee.
+     * The pay rate of the employee in cents.
      */
-    private double payRate;
+    private long payRate;
 
     /**
-     * The year-to-date earnings of the employee.
+     * The year-to-date earnings of the employee in cents.
      */
-    private double ytdEarnings;
+    private long ytdEarnings;
 
     /**
-     * The year-to-date taxes paid of the employee.
+     * The year-to-date taxes paid of the employee in cents.
      */
-    private double ytdTaxesPaid;
+    private long ytdTaxesPaid;
 
     /**
-     * The pre-tax dedections of the employee.
+     * The pre-tax dedections of the employee in cents.
      */
-    private double pretaxDeductions;
-
-    /**
-     * The tax rate.
-     */
-    private double taxRate = 0.2265;
+    private long pretaxDeductions;
 
     /**
      * The pay stub for the employee.
@@ -56,7 +54,6 @@ public abstract class Employee implements IEmployee {
 
     /**
      * Constructs an Employee instance with the specified details.
-     * @param employeeType The type of the employee.
      * @param name The name of the employee.
      * @param id The ID of the employee.
      * @param payRate The pay rate of the employee.
@@ -64,9 +61,23 @@ public abstract class Employee implements IEmployee {
      * @param ytdEarnings The year-to-date earnings of the employee.
      * @param ytdTaxesPaid The year-to-date taxes paid by the employee.
      */
-    public Employee(String employeeType, String name, String id, double payRate,
+    public Employee(String name, String id, double payRate,
                     double ytdEarnings, double ytdTaxesPaid, double pretaxDeductions) {
-        this.employeeType = employeeType;
+        this(name, id, Money.fromDouble(payRate), Money.fromDouble(ytdEarnings),
+                Money.fromDouble(ytdTaxesPaid), Money.fromDouble(pretaxDeductions));
+    }
+
+    /**
+     * Constructs an Employee instance with the specified details in cents.
+     * @param name The name of the employee.
+     * @param id The ID of the employee.
+     * @param payRate The pay rate of the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @param pretaxDeductions The pre-tax deductions of the employee in cents.
+     */
+    protected Employee(String name, String id, long payRate,
+                       long ytdEarnings, long ytdTaxesPaid, long pretaxDeductions) {
         this.name = name;
         this.id = id;
         this.payRate = payRate;
@@ -75,12 +86,68 @@ public abstract class Employee implements IEmployee {
         this.pretaxDeductions = pretaxDeductions;
     }
 
+    /**
+     * Calculates the gross pay in cents for the employee based on hours worked.
+     * @param hoursWorked The number of hours worked by the employee.
+     * @return The gross pay in cents.
+     */
+    protected abstract long calculateGrossPayCents(double hoursWorked);
+
+    /**
+     * Gets the hours bucket of a number of hours worked: two numbers of hours in the same bucket
+     * give the same gross pay for the same employee type and pay rate.
+     * @param hoursWorked The number of hours worked by the employee.
+     * @return The hours worked rounded to the hundredth, in hundredths.
+     */
+    protected long hoursBucket(double hoursWorked) {
+        return Math.round(hoursWorked * 100);
+    }
+
     /**
      * Calculates the gross pay for the employee based on hours worked.
      * @param hoursWorked The number of hours worked by the employee.
      * @return The gross pay.
      */
-    protected abstract BigDecimal calculateGrossPay(double hoursWorked);
+    protected BigDecimal calculateGrossPay(double hoursWorked) {
+        return Money.toBigDecimal(calculateGrossPayCents(hoursWorked));
+    }
+
+    /**
+     * Computes the payroll for the employee based on hours worked in a single pass, with the
+     * default flat tax rate.
+     * @param hoursWorked The number of hours worked by the employee.
+     * @return The payroll result.
+     */
+    public PayrollResult computePayroll(double hoursWorked) {
+        return computePayroll(hoursWorked, FlatTaxEngine.DEFAULT);
+    }
+
+    /**
+     * Computes the payroll for the employee based on hours worked in a single pass.
+     * The gross pay is calculated once and every other amount is derived from it on long cents,
+     * without allocating anything but the result.
+     * @param hoursWorked The number of hours worked by the employee.
+     * @param taxEngine The tax engine calculating the taxes on the taxable pay.
+     * @return The payroll result.
+     */
+    public PayrollResult computePayroll(double hoursWorked, TaxEngine taxEngine) {
+        return computePayroll(calculateGrossPayCents(hoursWorked), taxEngine);
+    }
+
+    /**
+     * Computes the payroll for the employee from a gross pay calculated beforehand.
+     * @param grossPay The gross pay in cents.
+     * @param taxEngine The tax engine calculating the taxes on the taxable pay.
+     * @return The payroll result.
+     */
+    private PayrollResult computePayroll(long grossPay, TaxEngine taxEngine) {
+        long taxablePay = grossPay - pretaxDeductions;
+        long taxes = taxEngine.calculateTaxes(taxablePay, this.ytdEarnings);
+        long netPay = taxablePay - taxes;
+
+        return new PayrollResult(grossPay, taxablePay, taxes, netPay,
+                this.ytdEarnings + netPay, this.ytdTaxesPaid + taxes);
+    }
 
     /**
      * Calculates the net pay for the employee based on hours worked.
@@ -88,13 +155,7 @@ public abstract class Employee implements IEmployee {
      * @return The net pay.
      */
     public BigDecimal calculateNetPay(double hoursWorked) {
-        BigDecimal netPay;
-        BigDecimal grossPay = calculateGrossPay(hoursWorked);
-
-        netPay = (grossPay.subtract(BigDecimal.valueOf(pretaxDeductions)))
-                .multiply(BigDecimal.valueOf(1).subtract(BigDecimal.valueOf(taxRate)));
-
-        return netPay;
+        return Money.toBigDecimal(computePayroll(hoursWorked).getNetPay());
     }
 
     /**
@@ -103,12 +164,7 @@ public abstract class Employee implements IEmployee {
      * @return The taxes.
      */
     public BigDecimal calculateTaxes(double hoursWorked) {
-        BigDecimal taxes;
-        BigDecimal grossPay = calculateGrossPay(hoursWorked);
-
-        taxes = (grossPay.subtract(BigDecimal.valueOf(pretaxDeductions))).multiply(BigDecimal.valueOf(taxRate));
-
-        return taxes;
+        return Money.toBigDecimal(computePayroll(hoursWorked).getTaxes());
     }
 
     /**
@@ -117,11 +173,7 @@ public abstract class Employee implements IEmployee {
      * @return The year-to-date earnings.
      */
     public BigDecimal calculateYTDEarnings(double hoursWorked) {
-        BigDecimal netPay = calculateNetPay(hoursWorked);
-
-        BigDecimal ytdEarnings = BigDecimal.valueOf(this.ytdEarnings).add(netPay);
-
-        return ytdEarnings;
+        return Money.toBigDecimal(computePayroll(hoursWorked).getYtdEarnings());
     }
 
     /**
@@ -130,20 +182,7 @@ public abstract class Employee implements IEmployee {
      * @return The year-to-date taxes paid.
      */
     public BigDecimal calculateYTDTaxesPaid(double hoursWorked) {
-        BigDecimal taxes = calculateTaxes(hoursWorked);
-
-        BigDecimal ytdTaxesPaid = BigDecimal.valueOf(this.ytdTaxesPaid).add(taxes);
-
-        return ytdTaxesPaid;
-    }
-
-    /**
-     * Gets the type of the employee.
-     * @return The employee's type.
-     */
-    @Override
-    public String getEmployeeType() {
-        return employeeType;
+        return Money.toBigDecimal(computePayroll(hoursWorked).getYtdTaxesPaid());
     }
 
     /**
@@ -170,6 +209,14 @@ public abstract class Employee implements IEmployee {
      */
     @Override
     public double getPayRate() {
+        return Money.toDouble(payRate);
+    }
+
+    /**
+     * Gets the pay rate of the employee in cents.
+     * @return The employee's pay rate in cents.
+     */
+    public long getPayRateCents() {
         return payRate;
     }
 
@@ -179,6 +226,14 @@ public abstract class Employee implements IEmployee {
      */
     @Override
     public double getPretaxDeductions() {
+        return Money.toDouble(pretaxDeductions);
+    }
+
+    /**
+     * Gets the pre-tax deductions of the employee in cents.
+     * @return The employee's pre-tax deductions in cents.
+     */
+    public long getPretaxDeductionsCents() {
         return pretaxDeductions;
     }
 
@@ -188,6 +243,14 @@ public abstract class Employee implements IEmployee {
      */
     @Override
     public double getYTDEarnings() {
+        return Money.toDouble(ytdEarnings);
+    }
+
+    /**
+     * Gets the year-to-date earnings of the employee in cents.
+     * @return The employee's year-to-date earnings in cents.
+     */
+    public long getYTDEarningsCents() {
         return ytdEarnings;
     }
 
@@ -196,6 +259,14 @@ public abstract class Employee implements IEmployee {
      * @param ytdEarnings The employee's year-to-date earnings.
      */
     public void setYTDEarnings(double ytdEarnings) {
+        this.ytdEarnings = Money.fromDouble(ytdEarnings);
+    }
+
+    /**
+     * Sets the year-to-date earnings by the employee in cents.
+     * @param ytdEarnings The employee's year-to-date earnings in cents.
+     */
+    public void setYTDEarningsCents(long ytdEarnings) {
         this.ytdEarnings = ytdEarnings;
     }
 
@@ -205,6 +276,14 @@ public abstract class Employee implements IEmployee {
      */
     @Override
     public double getYTDTaxesPaid() {
+        return Money.toDouble(ytdTaxesPaid);
+    }
+
+    /**
+     * Gets the year-to-date taxes paid by the employee in cents.
+     * @return The employee's year-to-date taxes paid in cents.
+     */
+    public long getYTDTaxesPaidCents() {
         return ytdTaxesPaid;
     }
 
@@ -213,6 +292,14 @@ public abstract class Employee implements IEmployee {
      * @param ytdTaxesPaid The employee's year-to-date taxes paid.
      */
     public void setYTDTaxesPaid(double ytdTaxesPaid) {
+        this.ytdTaxesPaid = Money.fromDouble(ytdTaxesPaid);
+    }
+
+    /**
+     * Sets the year-to-date taxes paid by the employee in cents.
+     * @param ytdTaxesPaid The employee's year-to-date taxes paid in cents.
+     */
+    public void setYTDTaxesPaidCents(long ytdTaxesPaid) {
         this.ytdTaxesPaid = ytdTaxesPaid;
     }
 
@@ -225,28 +312,45 @@ public abstract class Employee implements IEmployee {
     }
 
     /**
-     * Updates the pay stub of the employee based on hours worked.
-     * @param hoursWorked The number of hours worked.
+     * Updates the pay stub of the employee from its gross pay.
+     * @param grossPay The gross pay in cents.
+     * @param taxEngine The tax engine calculating the taxes.
      */
-    private void updatePayStub(double hoursWorked) {
-        BigDecimal netPay = calculateNetPay(hoursWorked);
-        BigDecimal taxes = calculateTaxes(hoursWorked);
-        BigDecimal updatedYTDEarnings = calculateYTDEarnings(hoursWorked);
-        BigDecimal updatedYTDTaxesPaid = calculateYTDTaxesPaid(hoursWorked);
+    private void updatePayStub(long grossPay, TaxEngine taxEngine) {
+        PayrollResult result = computePayroll(grossPay, taxEngine);
 
-        setYTDEarnings(updatedYTDEarnings.doubleValue());
-        setYTDTaxesPaid(updatedYTDTaxesPaid.doubleValue());
+        setYTDEarningsCents(result.getYtdEarnings());
+        setYTDTaxesPaidCents(result.getYtdTaxesPaid());
 
-        this.payStub = new PayStub(this, netPay.doubleValue(), taxes.doubleValue(),
-                updatedYTDEarnings.doubleValue(), updatedYTDTaxesPaid.doubleValue());
+        this.payStub = PayStub.ofCents(this, result.getNetPay(), result.getTaxes(),
+                result.getYtdEarnings(), result.getYtdTaxesPaid());
     }
 
     /**
-     * Processes the payroll for the employee based on hours worked.
+     * Processes the payroll for the employee based on hours worked, with the default flat tax rate.
      * @param hoursWorked The number of hours worked.
      */
     public void processPayroll(double hoursWorked) {
-        updatePayStub(hoursWorked);
+        processPayroll(hoursWorked, FlatTaxEngine.DEFAULT);
+    }
+
+    /**
+     * Processes the payroll for the employee based on hours worked.
+     * @param hoursWorked The number of hours worked.
+     * @param taxEngine The tax engine calculating the taxes.
+     */
+    public void processPayroll(double hoursWorked, TaxEngine taxEngine) {
+        updatePayStub(calculateGrossPayCents(hoursWorked), taxEngine);
+    }
+
+    /**
+     * Processes the payroll for the employee based on hours worked, looking the gross pay up in a cache.
+     * @param hoursWorked The number of hours worked.
+     * @param taxEngine The tax engine calculating the taxes.
+     * @param grossPayCache The cache of gross pay calculations.
+     */
+    public void processPayroll(double hoursWorked, TaxEngine taxEngine, GrossPayCache grossPayCache) {
+        updatePayStub(grossPayCache.grossPay(this, hoursWorked), taxEngine);
     }
 
     /**
@@ -255,14 +359,22 @@ public abstract class Employee implements IEmployee {
      */
     @Override
     public String toCSV() {
-        return String.join(",",
-                getEmployeeType(),
-                getName(),
-                getID(),
-                String.format("%.1f", getPayRate()),
-                String.format("%.1f", getPretaxDeductions()),
-                String.format("%.2f", getYTDEarnings()),
-                String.format("%.2f", getYTDTaxesPaid())
-        );
+        return writeCSV(new CsvRecordWriter()).toString();
+    }
+
+    /**
+     * Writes the employee's data as a new CSV record, without creating intermediate Strings.
+     * @param record The record writer to write to; its current record is replaced.
+     * @return The record writer.
+     */
+    public CsvRecordWriter writeCSV(CsvRecordWriter record) {
+        return record.reset()
+                .text(getEmployeeType())
+                .text(getName())
+                .text(getID())
+                .money(payRate, 1)
+                .money(pretaxDeductions, 1)
+                .money(ytdEarnings)
+                .money(ytdTaxesPaid);
     }
 }
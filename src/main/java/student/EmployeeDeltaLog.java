@@ -0,0 +1,317 @@
+package student;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The EmployeeDeltaLog class keeps the employee records changed by incremental payroll runs in an
+ * append-only log next to the employee file, so a run only writes the rows it changed.
+ * <p>
+ * The delta log holds full employee CSV records, and each time card batch appended to it ends with
+ * a marker line {@code #batch,<batch id>,<time cards file name>}. Records after the last marker are
+ * left over from an interrupted append and are ignored and truncated. Because the records hold
+ * absolute year-to-date values rather than increments, replaying a record twice is harmless.
+ * <p>
+ * Compaction merges the log into the employee file with one atomic write, then moves the batch IDs
+ * to the applied batches file and deletes the log. A batch ID is in the log or in the applied
+ * batches file at any point in time, so a batch that was applied is never applied again.
+ */
+public class EmployeeDeltaLog {
+
+    /**
+     * The suffix of the delta log next to the employee file.
+     */
+    public static final String DELTA_SUFFIX = ".delta";
+
+    /**
+     * The suffix of the applied batches file next to the employee file.
+     */
+    public static final String BATCHES_SUFFIX = ".batches";
+
+    /**
+     * The prefix of a batch marker line.
+     */
+    private static final String BATCH_MARKER = "#batch";
+
+    /**
+     * The employee file the log applies to.
+     */
+    private final String employeeFile;
+
+    /**
+     * The delta log file.
+     */
+    private final Path deltaFile;
+
+    /**
+     * The applied batches file.
+     */
+    private final Path batchesFile;
+
+    /**
+     * The latest committed record of each employee in the log, by employee ID.
+     */
+    private final Map<String, String> records = new HashMap<>();
+
+    /**
+     * The IDs of all applied batches, compacted or not.
+     */
+    private final Set<String> appliedBatches = new HashSet<>();
+
+    /**
+     * The batch marker lines in the log, in order.
+     */
+    private final StringBuilder pendingMarkers = new StringBuilder();
+
+    /**
+     * The number of batches in the log.
+     */
+    private int pendingBatches;
+
+    /**
+     * The length in bytes of the committed part of the log.
+     */
+    private long committedLength;
+
+    /**
+     * Constructs an empty EmployeeDeltaLog for the specified employee file.
+     * @param employeeFile The employee file the log applies to.
+     */
+    private EmployeeDeltaLog(String employeeFile) {
+        this.employeeFile = employeeFile;
+        this.deltaFile = Path.of(employeeFile + DELTA_SUFFIX);
+        this.batchesFile = Path.of(employeeFile + BATCHES_SUFFIX);
+    }
+
+    /**
+     * Opens the delta log of an employee file and reads its committed records and applied batches.
+     * @param employeeFile The employee file the log applies to.
+     * @return The loaded delta log.
+     * @throws IOException if the log or the applied batches file cannot be read.
+     */
+    public static EmployeeDeltaLog open(String employeeFile) throws IOException {
+        EmployeeDeltaLog log = new EmployeeDeltaLog(employeeFile);
+        log.load();
+        return log;
+    }
+
+    /**
+     * Reads the applied batches file and replays the committed part of the delta log.
+     * @throws IOException if a file cannot be read.
+     */
+    private void load() throws IOException {
+        if (Files.exists(batchesFile)) {
+            for (String line : Files.readAllLines(batchesFile, StandardCharsets.UTF_8)) {
+                if (line.startsWith(BATCH_MARKER)) {
+                    appliedBatches.add(markerBatchID(line));
+                }
+            }
+        }
+        if (!Files.exists(deltaFile)) {
+            return;
+        }
+
+        byte[] bytes = Files.readAllBytes(deltaFile);
+        Map<String, String> batchRecords = new HashMap<>();
+        int start = 0;
+        for (int end = 0; end < bytes.length; end++) {
+            if (bytes[end] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8).strip();
+            start = end + 1;
+            if (line.startsWith(BATCH_MARKER)) {
+                // The batch is complete, so its records are committed
+                records.putAll(batchRecords);
+                batchRecords.clear();
+                appliedBatches.add(markerBatchID(line));
+                pendingMarkers.append(line).append('\n');
+                pendingBatches++;
+                committedLength = start;
+            } else if (!line.isEmpty()) {
+                batchRecords.put(recordID(line), line);
+            }
+        }
+    }
+
+    /**
+     * Computes the ID of a time card batch from the contents of its file, so the same batch is
+     * recognized even when the file is renamed or compressed.
+     * @param timeCardFile The time card file.
+     * @return The SHA-256 digest of the file as a hex string.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String batchID(String timeCardFile) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(CompressedFiles.newInputStream(timeCardFile), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the ID of a time card batch received in memory, the same as for a file with the
+     * same contents.
+     * @param timeCards The contents of the time card batch.
+     * @return The SHA-256 digest of the contents as a hex string.
+     */
+    public static String batchID(byte[] timeCards) {
+        return HexFormat.of().formatHex(sha256().digest(timeCards));
+    }
+
+    /**
+     * Creates a SHA-256 message digest.
+     * @return The message digest.
+     * @throws IllegalStateException if the JDK has no SHA-256 implementation.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the ID of the employee of a CSV record.
+     * @param record The employee CSV record.
+     * @return The employee ID.
+     * @throws IllegalArgumentException if the record has no ID field.
+     */
+    public static String recordID(String record) {
+        CsvTokenizer fields = new CsvTokenizer().reset(record);
+        if (!fields.nextField() || !fields.nextField() || !fields.nextField()) {
+            throw new IllegalArgumentException("Missing field in: " + record);
+        }
+        return fields.fieldString();
+    }
+
+    /**
+     * Checks whether a time card batch was already applied.
+     * @param batchID The ID of the batch.
+     * @return true if the batch was applied.
+     */
+    public boolean isApplied(String batchID) {
+        return appliedBatches.contains(batchID);
+    }
+
+    /**
+     * Gets the latest record of an employee in the log.
+     * @param employeeID The ID of the employee.
+     * @return The employee CSV record, or null if the employee has no record in the log.
+     */
+    public String get(String employeeID) {
+        return records.get(employeeID);
+    }
+
+    /**
+     * Gets the number of batches in the log that have not been compacted yet.
+     * @return The number of pending batches.
+     */
+    public int getPendingBatches() {
+        return pendingBatches;
+    }
+
+    /**
+     * Appends the changed records of a batch and its marker to the log and forces them to disk.
+     * @param batchID The ID of the batch.
+     * @param timeCardFile The time card file of the batch, recorded for reference.
+     * @param changed The changed employee CSV records.
+     * @throws IOException if the log cannot be written.
+     */
+    public void append(String batchID, String timeCardFile, List<String> changed) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        for (String record : changed) {
+            batch.append(record).append('\n');
+        }
+        String marker = new CsvRecordWriter().text(BATCH_MARKER).text(batchID)
+                .text(Path.of(timeCardFile).getFileName().toString()).toString();
+        batch.append(marker).append('\n');
+
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop the records of an interrupted append before adding the new batch
+            channel.truncate(committedLength);
+            ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            channel.position(committedLength);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+            committedLength = channel.position();
+        }
+
+        for (String record : changed) {
+            records.put(recordID(record), record);
+        }
+        appliedBatches.add(batchID);
+        pendingMarkers.append(marker).append('\n');
+        pendingBatches++;
+    }
+
+    /**
+     * Merges the log into the employee file and deletes it. The employee file is replaced with one
+     * atomic write, keeping the old file as a .bak file.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public void compact() throws IOException {
+        if (pendingBatches == 0) {
+            return;
+        }
+
+        try (CsvRecordReader<String> base = FileUtil.readRecords(employeeFile, line -> line);
+             AtomicFileWriter writer = new AtomicFileWriter(employeeFile)) {
+            writer.writeLine(FileUtil.EMPLOYEE_HEADER);
+            while (base.hasNext()) {
+                String record = base.next();
+                String changed = records.get(recordID(record));
+                writer.writeLine(changed != null ? changed : record);
+            }
+            writer.commit(true);
+        }
+
+        // Keep the batch IDs before the log that holds them is deleted
+        try (FileChannel channel = FileChannel.open(batchesFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(pendingMarkers.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.deleteIfExists(deltaFile);
+
+        records.clear();
+        pendingMarkers.setLength(0);
+        pendingBatches = 0;
+        committedLength = 0;
+    }
+
+    /**
+     * Gets the batch ID of a marker line.
+     * @param marker The marker line.
+     * @return The batch ID.
+     */
+    private static String markerBatchID(String marker) {
+        CsvTokenizer fields = new CsvTokenizer().reset(marker);
+        if (!fields.nextField() || !fields.nextField()) {
+            throw new IllegalArgumentException("Invalid batch marker: " + marker);
+        }
+        return fields.fieldString();
+    }
+}
@@ -0,0 +1,108 @@
+package student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The EmployeeFileLock class keeps payroll runs of different processes from changing the same
+ * employee file at once. It is an exclusive lock on the file {@code <employee file>.lock}, which
+ * stays in place between runs; the employee file itself cannot be locked, as every commit replaces
+ * it with a new file. The payroll service holds the lock while it runs a job, and the runs of
+ * PayrollGenerator hold it from start to end.
+ */
+public class EmployeeFileLock implements Closeable {
+
+    /**
+     * The suffix of the lock file next to the employee file.
+     */
+    public static final String LOCK_SUFFIX = ".lock";
+
+    /**
+     * The channel of the lock file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The lock held on the lock file.
+     */
+    private final FileLock lock;
+
+    /**
+     * Constructs an EmployeeFileLock for a lock that is held.
+     * @param channel The channel of the lock file.
+     * @param lock The lock held on the lock file.
+     */
+    private EmployeeFileLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Locks an employee file, waiting until no other process holds the lock.
+     * @param employeeFile The employee file.
+     * @return The held lock.
+     * @throws IOException if the lock file cannot be opened or locked, or the lock is held
+     *                     elsewhere in this process.
+     */
+    public static EmployeeFileLock acquire(String employeeFile) throws IOException {
+        return acquire(employeeFile, true);
+    }
+
+    /**
+     * Locks an employee file if no other run holds the lock.
+     * @param employeeFile The employee file.
+     * @return The held lock, or null if another run holds it.
+     * @throws IOException if the lock file cannot be opened or locked.
+     */
+    public static EmployeeFileLock tryAcquire(String employeeFile) throws IOException {
+        return acquire(employeeFile, false);
+    }
+
+    /**
+     * Locks an employee file.
+     * @param employeeFile The employee file.
+     * @param wait Whether to wait for another process to release the lock.
+     * @return The held lock, or null if it is held elsewhere and wait is false.
+     * @throws IOException if the lock file cannot be opened or locked, or the lock is held
+     *                     elsewhere in this process and wait is true.
+     */
+    private static EmployeeFileLock acquire(String employeeFile, boolean wait) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(employeeFile + LOCK_SUFFIX), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock = wait ? channel.lock() : channel.tryLock();
+            if (lock != null) {
+                return new EmployeeFileLock(channel, lock);
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another run in this process, which a file lock cannot wait for
+            if (wait) {
+                channel.close();
+                throw new IOException("Employee file is locked by another run in this process: " + employeeFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return null;
+    }
+
+    /**
+     * Releases the lock.
+     * @throws IOException if the lock file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
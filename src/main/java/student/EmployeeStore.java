@@ -0,0 +1,429 @@
+package student;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The EmployeeStore class is a binary, column-oriented alternative to the employee CSV file.
+ * The file is memory-mapped, so employees are read without parsing text and year-to-date updates
+ * are written in place instead of rewriting the whole file.
+ * <p>
+ * The file starts with a 16 byte header (magic number, version, number of employees), followed by
+ * one column per field: a type byte per employee, padded to 8 bytes, then the pay rate, pre-tax
+ * deductions, year-to-date earnings and year-to-date taxes paid as little-endian long cents, then
+ * the name and ID as int offsets into the string table at the end of the file. Each string in the
+ * table is an int length followed by its UTF-8 bytes.
+ * <p>
+ * Updates are forced to disk when the store is closed. They are not atomic: a run interrupted
+ * before that can leave some employees updated and others not.
+ */
+public class EmployeeStore implements Iterable<IEmployee>, Closeable {
+
+    /**
+     * The file extension that selects the binary store instead of CSV.
+     */
+    public static final String FILE_EXTENSION = ".bin";
+
+    /**
+     * The magic number at the start of the file, "EMPS" in ASCII.
+     */
+    private static final int MAGIC = 0x454D5053;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The type byte of hourly employees.
+     */
+    private static final byte TYPE_HOURLY = 0;
+
+    /**
+     * The type byte of salary employees.
+     */
+    private static final byte TYPE_SALARY = 1;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The memory-mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The column layout of the file.
+     */
+    private final Layout layout;
+
+    /**
+     * Constructs an EmployeeStore over an open channel.
+     * @param channel The channel of the file.
+     * @throws IOException if the file cannot be mapped or is not an employee store.
+     */
+    private EmployeeStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IOException("Not an employee store: invalid file size " + size);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an employee store: invalid header");
+        }
+        this.layout = new Layout(buffer.getInt(8));
+        if (layout.strings > size) {
+            throw new IOException("Not an employee store: file is truncated");
+        }
+    }
+
+    /**
+     * Opens an employee store for reading and in-place updates.
+     * @param file The store file.
+     * @return The open store.
+     * @throws IOException if the file cannot be opened or is not an employee store.
+     */
+    public static EmployeeStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new EmployeeStore(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a file name selects the binary store.
+     * @param file The file name.
+     * @return true if the file has the store extension.
+     */
+    public static boolean isStoreFile(String file) {
+        return file.endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Gets the number of employees in the store.
+     * @return The number of employees.
+     */
+    public int size() {
+        return layout.count;
+    }
+
+    /**
+     * Gets the ID of an employee without building it.
+     * @param index The index of the employee.
+     * @return The employee ID.
+     */
+    public String getID(int index) {
+        return string(buffer.getInt(layout.ids + 4 * index));
+    }
+
+    /**
+     * Gets the year-to-date earnings of an employee.
+     * @param index The index of the employee.
+     * @return The year-to-date earnings in cents.
+     */
+    public long getYTDEarningsCents(int index) {
+        return buffer.getLong(layout.ytdEarnings + 8 * index);
+    }
+
+    /**
+     * Gets the year-to-date taxes paid of an employee.
+     * @param index The index of the employee.
+     * @return The year-to-date taxes paid in cents.
+     */
+    public long getYTDTaxesPaidCents(int index) {
+        return buffer.getLong(layout.ytdTaxesPaid + 8 * index);
+    }
+
+    /**
+     * Builds an employee from its columns.
+     * @param index The index of the employee.
+     * @return The employee.
+     */
+    public IEmployee get(int index) {
+        String name = string(buffer.getInt(layout.names + 4 * index));
+        String id = getID(index);
+        long payRate = buffer.getLong(layout.payRates + 8 * index);
+        long pretaxDeductions = buffer.getLong(layout.pretaxDeductions + 8 * index);
+        long ytdEarnings = getYTDEarningsCents(index);
+        long ytdTaxesPaid = getYTDTaxesPaidCents(index);
+        if (buffer.get(layout.types + index) == TYPE_HOURLY) {
+            return HourlyEmployee.ofCents(name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
+        }
+        return SalaryEmployee.ofCents(name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
+    }
+
+    /**
+     * Updates the year-to-date values of an employee in place.
+     * @param index The index of the employee.
+     * @param ytdEarnings The year-to-date earnings in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid in cents.
+     */
+    public void setYTD(int index, long ytdEarnings, long ytdTaxesPaid) {
+        buffer.putLong(layout.ytdEarnings + 8 * index, ytdEarnings);
+        buffer.putLong(layout.ytdTaxesPaid + 8 * index, ytdTaxesPaid);
+    }
+
+    /**
+     * Gets an iterator over the employees in store order.
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<IEmployee> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < layout.count;
+            }
+
+            @Override
+            public IEmployee next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Forces the updates to disk and closes the store.
+     * @throws IOException if the updates cannot be forced or the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            buffer.force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Imports an employee CSV file into a new store file, replacing it atomically.
+     * @param csvFile The employee CSV file.
+     * @param storeFile The store file to write.
+     * @return The number of employees imported.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static int importCSV(String csvFile, Path storeFile) throws IOException {
+        int count = 0;
+        try (CsvRecordReader<String> lines = FileUtil.readRecords(csvFile, line -> line)) {
+            while (lines.hasNext()) {
+                lines.next();
+                count++;
+            }
+        }
+
+        Layout layout = new Layout(count);
+        Path target = storeFile.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 CsvRecordReader<IEmployee> employees = FileUtil.readRecords(csvFile,
+                         Builder::buildEmployeeFromCSV)) {
+                MappedByteBuffer columns = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.strings);
+                columns.order(ByteOrder.LITTLE_ENDIAN);
+                columns.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, count);
+
+                channel.position(layout.strings);
+                DataOutputStream strings = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(channel), 1 << 16));
+                for (int i = 0; i < count; i++) {
+                    Employee employee = (Employee) employees.next();
+                    columns.put(layout.types + i,
+                            employee instanceof HourlyEmployee ? TYPE_HOURLY : TYPE_SALARY);
+                    columns.putLong(layout.payRates + 8 * i, employee.getPayRateCents());
+                    columns.putLong(layout.pretaxDeductions + 8 * i, employee.getPretaxDeductionsCents());
+                    columns.putLong(layout.ytdEarnings + 8 * i, employee.getYTDEarningsCents());
+                    columns.putLong(layout.ytdTaxesPaid + 8 * i, employee.getYTDTaxesPaidCents());
+                    columns.putInt(layout.names + 4 * i, writeString(strings, employee.getName()));
+                    columns.putInt(layout.ids + 4 * i, writeString(strings, employee.getID()));
+                }
+                strings.flush();
+                if (layout.strings + strings.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Employee store is larger than 2 GB: " + csvFile);
+                }
+                columns.force();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    /**
+     * Exports the store to an employee CSV file, replacing it atomically.
+     * @param csvFile The employee CSV file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void exportCSV(String csvFile) throws IOException {
+        try (AtomicFileWriter writer = new AtomicFileWriter(csvFile)) {
+            writer.writeLine(FileUtil.EMPLOYEE_HEADER);
+            CsvRecordWriter record = new CsvRecordWriter();
+            for (int i = 0; i < layout.count; i++) {
+                writer.writeRecord(((Employee) get(i)).writeCSV(record));
+            }
+            writer.commit(false);
+        }
+    }
+
+    /**
+     * Reads a string from the string table.
+     * @param offset The offset of the string in the string table.
+     * @return The string.
+     */
+    private String string(int offset) {
+        int position = layout.strings + offset;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a string to the string table.
+     * @param strings The stream of the string table.
+     * @param value The string to append.
+     * @return The offset of the string in the string table.
+     * @throws IOException if the string cannot be written.
+     */
+    private static int writeString(DataOutputStream strings, String value) throws IOException {
+        int offset = strings.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // DataOutputStream is big-endian, and the store is little-endian
+        strings.writeInt(Integer.reverseBytes(bytes.length));
+        strings.write(bytes);
+        return offset;
+    }
+
+    /**
+     * Imports a CSV file into a store, or exports a store to a CSV file.
+     * @param args "import employee_csv_file store_file" or "export store_file employee_csv_file".
+     */
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.out.println("Usage: java student.EmployeeStore import employee_csv_file store_file");
+            System.out.println("       java student.EmployeeStore export store_file employee_csv_file");
+            System.exit(1);
+        }
+        try {
+            if (args[0].equals("import")) {
+                int count = importCSV(args[1], Path.of(args[2]));
+                System.out.println("Imported " + count + " employees into " + args[2]);
+            } else {
+                try (EmployeeStore store = open(Path.of(args[1]))) {
+                    store.exportCSV(args[2]);
+                    System.out.println("Exported " + store.size() + " employees to " + args[2]);
+                }
+            }
+        } catch (IOException | IllegalArgumentException | UncheckedIOException e) {
+            System.err.println("Error converting employee store: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The Layout class computes the offset of each column from the number of employees.
+     */
+    private static final class Layout {
+
+        /**
+         * The number of employees.
+         */
+        private final int count;
+
+        /**
+         * The offset of the type column.
+         */
+        private final int types;
+
+        /**
+         * The offset of the pay rate column.
+         */
+        private final int payRates;
+
+        /**
+         * The offset of the pre-tax deductions column.
+         */
+        private final int pretaxDeductions;
+
+        /**
+         * The offset of the year-to-date earnings column.
+         */
+        private final int ytdEarnings;
+
+        /**
+         * The offset of the year-to-date taxes paid column.
+         */
+        private final int ytdTaxesPaid;
+
+        /**
+         * The offset of the name column.
+         */
+        private final int names;
+
+        /**
+         * The offset of the ID column.
+         */
+        private final int ids;
+
+        /**
+         * The offset of the string table.
+         */
+        private final int strings;
+
+        /**
+         * Constructs the layout for a number of employees.
+         * @param count The number of employees.
+         * @throws IOException if the columns do not fit in 2 GB.
+         */
+        private Layout(int count) throws IOException {
+            if (count < 0 || count > (Integer.MAX_VALUE - HEADER_SIZE) / 48) {
+                throw new IOException("Invalid number of employees in store: " + count);
+            }
+            this.count = count;
+            this.types = HEADER_SIZE;
+            this.payRates = types + (count + 7) / 8 * 8;
+            this.pretaxDeductions = payRates + 8 * count;
+            this.ytdEarnings = pretaxDeductions + 8 * count;
+            this.ytdTaxesPaid = ytdEarnings + 8 * count;
+            this.names = ytdTaxesPaid + 8 * count;
+            this.ids = names + 4 * count;
+            this.strings = ids + 4 * count;
+        }
+    }
+}
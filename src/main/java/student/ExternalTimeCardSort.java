@@ -0,0 +1,303 @@
+package student;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * The ExternalTimeCardSort class sorts a time card file of any size by employee ID within a fixed
+ * memory budget. Time cards are read into memory until their estimated size reaches the budget,
+ * sorted, and spilled as a sorted run to a temporary file; the runs are then merged k ways, a
+ * few at a time if there are more than can be opened at once, and read back one time card at a
+ * time. The sort is stable, so time cards of the same employee stay in file order and the
+ * duplicate policies see them as they would in the unsorted file.
+ * A file that fits in the budget is sorted in memory without any temporary file.
+ * The sorted time cards are meant for TimeCardJoin.mergeJoin; closing the sort deletes its runs.
+ */
+public class ExternalTimeCardSort implements Iterator<ITimeCard>, Closeable {
+
+    /**
+     * The smallest memory budget in bytes.
+     */
+    public static final long MIN_MEMORY_BUDGET = 1 << 16;
+
+    /**
+     * The default memory budget in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * The maximum number of runs merged at once.
+     */
+    static final int MAX_FAN_IN = 64;
+
+    /**
+     * The estimated heap size of a buffered time card without its employee ID characters: the
+     * time card, the ID String and its array headers, and the reference in the buffer.
+     */
+    private static final long TIME_CARD_OVERHEAD = 72;
+
+    /**
+     * The header line of a run file.
+     */
+    private static final String RUN_HEADER = "employee_id,hours_worked";
+
+    /**
+     * The order of time cards, by employee ID.
+     */
+    private static final Comparator<ITimeCard> BY_EMPLOYEE_ID = Comparator.comparing(ITimeCard::getEmployeeID);
+
+    /**
+     * The run files that have not been deleted yet.
+     */
+    private final List<Path> runFiles = new ArrayList<>();
+
+    /**
+     * The readers of the runs being merged.
+     */
+    private final List<CsvRecordReader<ITimeCard>> runReaders = new ArrayList<>();
+
+    /**
+     * The next time card of each run, ordered by employee ID and then by run.
+     */
+    private final PriorityQueue<RunCursor> heads = new PriorityQueue<>();
+
+    /**
+     * The time cards sorted in memory when they fit in the budget, or null if they were spilled.
+     */
+    private Iterator<ITimeCard> inMemory;
+
+    /**
+     * Sorts a time card file.
+     * @param timeCardFile The time card file.
+     * @param memoryBudget The estimated number of heap bytes the buffered time cards may use.
+     * @param tempDir The directory of the run files.
+     * @param metrics The metrics timing the read and parse phases.
+     * @throws IOException if a file cannot be read or written.
+     * @throws IllegalArgumentException if the memory budget is below MIN_MEMORY_BUDGET.
+     */
+    public ExternalTimeCardSort(String timeCardFile, long memoryBudget, Path tempDir, PayrollMetrics metrics)
+            throws IOException {
+        if (memoryBudget < MIN_MEMORY_BUDGET) {
+            throw new IllegalArgumentException("Memory budget too small: " + memoryBudget);
+        }
+        try {
+            List<ITimeCard> buffer = new ArrayList<>();
+            long bufferSize = 0;
+            try (CsvRecordReader<ITimeCard> timeCards = FileUtil.readRecords(timeCardFile,
+                    Builder::buildTimeCardFromCSV, metrics)) {
+                while (timeCards.hasNext()) {
+                    ITimeCard timeCard = timeCards.next();
+                    buffer.add(timeCard);
+                    bufferSize += TIME_CARD_OVERHEAD + timeCard.getEmployeeID().length();
+                    if (bufferSize >= memoryBudget) {
+                        spill(buffer, tempDir);
+                        buffer.clear();
+                        bufferSize = 0;
+                    }
+                }
+            }
+
+            if (runFiles.isEmpty()) {
+                buffer.sort(BY_EMPLOYEE_ID);
+                inMemory = buffer.iterator();
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                spill(buffer, tempDir);
+            }
+            // Release the buffer before the runs are merged
+            buffer = null;
+
+            // Merge the oldest runs into one until the rest can be opened at once; the merged run
+            // takes their place before the newer runs so that the order of equal IDs is kept
+            while (runFiles.size() > MAX_FAN_IN) {
+                List<Path> group = new ArrayList<>(runFiles.subList(0, MAX_FAN_IN));
+                Path merged = Files.createTempFile(tempDir, "time_cards", ".run");
+                runFiles.add(MAX_FAN_IN, merged);
+                openRuns(group, metrics);
+                writeRun(merged, this);
+                closeRuns();
+                runFiles.subList(0, MAX_FAN_IN).clear();
+                for (Path run : group) {
+                    Files.deleteIfExists(run);
+                }
+            }
+            openRuns(runFiles, metrics);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of run files merged in the last merge pass.
+     * @return The number of run files, 0 if the time cards were sorted in memory.
+     */
+    public int getRunCount() {
+        return runFiles.size();
+    }
+
+    /**
+     * Checks whether there is another time card.
+     * @return true if there is another time card.
+     */
+    @Override
+    public boolean hasNext() {
+        return inMemory != null ? inMemory.hasNext() : !heads.isEmpty();
+    }
+
+    /**
+     * Gets the next time card in employee ID order.
+     * @return The next time card.
+     * @throws NoSuchElementException if there are no more time cards.
+     * @throws UncheckedIOException if a run file cannot be read.
+     */
+    @Override
+    public ITimeCard next() {
+        if (inMemory != null) {
+            return inMemory.next();
+        }
+        RunCursor head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        ITimeCard timeCard = head.timeCard;
+        if (head.reader.hasNext()) {
+            head.timeCard = head.reader.next();
+            heads.add(head);
+        }
+        return timeCard;
+    }
+
+    /**
+     * Closes the run files and deletes them.
+     * @throws IOException if a run file cannot be closed or deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        closeRuns();
+        for (Path run : runFiles) {
+            Files.deleteIfExists(run);
+        }
+        runFiles.clear();
+    }
+
+    /**
+     * Sorts buffered time cards and writes them to a new run file.
+     * @param buffer The buffered time cards.
+     * @param tempDir The directory of the run file.
+     * @throws IOException if the run file cannot be written.
+     */
+    private void spill(List<ITimeCard> buffer, Path tempDir) throws IOException {
+        // List.sort is a stable merge sort, so equal IDs keep their file order
+        buffer.sort(BY_EMPLOYEE_ID);
+        Path run = Files.createTempFile(tempDir, "time_cards", ".run");
+        runFiles.add(run);
+        writeRun(run, buffer.iterator());
+    }
+
+    /**
+     * Opens the readers of runs and reads the first time card of each.
+     * @param runs The run files, oldest first.
+     * @param metrics The metrics timing the read and parse phases.
+     * @throws IOException if a run file cannot be opened.
+     */
+    private void openRuns(List<Path> runs, PayrollMetrics metrics) throws IOException {
+        for (int i = 0; i < runs.size(); i++) {
+            CsvRecordReader<ITimeCard> reader = FileUtil.readRecords(runs.get(i).toString(),
+                    Builder::buildTimeCardFromCSV, metrics);
+            runReaders.add(reader);
+            if (reader.hasNext()) {
+                heads.add(new RunCursor(reader, i, reader.next()));
+            }
+        }
+    }
+
+    /**
+     * Closes the readers of the runs being merged.
+     * @throws IOException if a run file cannot be closed.
+     */
+    private void closeRuns() throws IOException {
+        heads.clear();
+        for (CsvRecordReader<ITimeCard> reader : runReaders) {
+            reader.close();
+        }
+        runReaders.clear();
+    }
+
+    /**
+     * Writes sorted time cards to a run file.
+     * @param run The run file.
+     * @param timeCards The sorted time cards.
+     * @throws IOException if the run file cannot be written.
+     */
+    private static void writeRun(Path run, Iterator<ITimeCard> timeCards) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            writer.write(RUN_HEADER);
+            writer.newLine();
+            CsvRecordWriter record = new CsvRecordWriter();
+            while (timeCards.hasNext()) {
+                ITimeCard timeCard = timeCards.next();
+                // Double.toString gives back the exact same double when it is parsed
+                record.reset().text(timeCard.getEmployeeID()).text(Double.toString(timeCard.getHoursWorked()));
+                writer.append(record.chars());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * The next time card of a run being merged.
+     */
+    private static final class RunCursor implements Comparable<RunCursor> {
+
+        /**
+         * The reader of the run.
+         */
+        private final CsvRecordReader<ITimeCard> reader;
+
+        /**
+         * The position of the run, older runs first.
+         */
+        private final int run;
+
+        /**
+         * The next time card of the run.
+         */
+        private ITimeCard timeCard;
+
+        /**
+         * Constructs the cursor of a run.
+         * @param reader The reader of the run.
+         * @param run The position of the run.
+         * @param timeCard The next time card of the run.
+         */
+        private RunCursor(CsvRecordReader<ITimeCard> reader, int run, ITimeCard timeCard) {
+            this.reader = reader;
+            this.run = run;
+            this.timeCard = timeCard;
+        }
+
+        /**
+         * Orders cursors by the employee ID of their next time card, and by run for equal IDs.
+         * @param other The other cursor.
+         * @return The order of the cursors.
+         */
+        @Override
+        public int compareTo(RunCursor other) {
+            int order = timeCard.getEmployeeID().compareTo(other.timeCard.getEmployeeID());
+            return order != 0 ? order : Integer.compare(run, other.run);
+        }
+    }
+}
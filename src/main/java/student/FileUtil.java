@@ -1,11 +1,10 @@
 package student;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * The FileUtil class provides utility methods for reading and writing files.
@@ -35,20 +34,47 @@ public final class FileUtil {
 
     /**
      * Reads a file and returns its content as a list of strings, excluding the header line.
+     * Large files should be read with readRecords instead, which does not hold every line in memory.
      * @param file The file path to read.
      * @return A list of strings containing the lines of the files, excluding the header line.
      */
     public static List<String> readFileToList(String file) {
-        List<String> lines = Collections.emptyList();
-        try {
-            lines = Files.readAllLines(Path.of(file));
-            lines.remove(0);
-        } catch (IOException e) {
+        List<String> lines = new ArrayList<>();
+        try (CsvRecordReader<String> reader = readRecords(file, Function.identity())) {
+            reader.forEachRemaining(lines::add);
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading employee file: " + e.getMessage());
         }
         return lines;
     }
 
+    /**
+     * Opens a file for reading its records lazily, excluding the header line.
+     * @param file The file path to read.
+     * @param parser The parser that turns a CSV line into a record.
+     * @param <T> The type of the parsed records.
+     * @return A reader that parses one record at a time.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static <T> CsvRecordReader<T> readRecords(String file, Function<String, T> parser) throws IOException {
+        return new CsvRecordReader<>(file, parser);
+    }
+
+    /**
+     * Opens a file for reading its records lazily, excluding the header line, and reports the time
+     * spent reading and parsing them to payroll metrics.
+     * @param file The file path to read.
+     * @param parser The parser that turns a CSV line into a record.
+     * @param metrics The metrics timing the read and parse phases.
+     * @param <T> The type of the parsed records.
+     * @return A reader that parses one record at a time.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static <T> CsvRecordReader<T> readRecords(String file, Function<String, T> parser,
+                                                     PayrollMetrics metrics) throws IOException {
+        return new CsvRecordReader<>(file, parser, metrics);
+    }
+
     /**
      * Writes a list of strings to a file.
      * @param outFile The file path to write to.
@@ -60,26 +86,18 @@ public final class FileUtil {
 
     /**
      * Writes a list of strings to a file, with an option to create a backup of the file if it exists.
+     * The lines are written to a temporary file that is forced to disk and then atomically renamed
+     * over the file, so a failed write never leaves a partial or missing file behind.
      * @param outFile The file path to write to.
      * @param lines The list of strings to write.
      * @param backup Whether to create a backup of the file if it exists.
      */
     public static void writeFile(String outFile, List<String> lines, boolean backup) {
-        if (backup) {
-            try {
-                if (Files.exists(Path.of(outFile))) {
-                    Files.move(Path.of(outFile), Path.of(outFile + ".bak"),
-                            StandardCopyOption.REPLACE_EXISTING);
-                }
-            } catch (IOException e) {
-                System.err.println("Error backing up file: " + e.getMessage());
-                e.printStackTrace();
-                return;
+        try (AtomicFileWriter writer = new AtomicFileWriter(outFile)) {
+            for (String line : lines) {
+                writer.writeLine(line);
             }
-        }
-
-        try {
-            Files.write(Path.of(outFile), lines);
+            writer.commit(backup);
         } catch (IOException e) {
             System.err.println("Error writing to file: " + e.getMessage());
         }
@@ -0,0 +1,37 @@
+package student;
+
+/**
+ * The FlatTaxEngine class taxes all taxable pay at a single rate, whatever the year-to-date
+ * earnings. It is the tax engine used when no tax rules are given.
+ */
+public final class FlatTaxEngine implements TaxEngine {
+
+    /**
+     * The engine with the default tax rate of all employees.
+     */
+    public static final FlatTaxEngine DEFAULT = new FlatTaxEngine(Employee.TAX_RATE);
+
+    /**
+     * The tax rate in millionths.
+     */
+    private final long rate;
+
+    /**
+     * Constructs a flat tax engine.
+     * @param rate The tax rate in millionths.
+     */
+    public FlatTaxEngine(long rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Calculates the taxes as the taxable pay times the rate, rounding half-even to the cent.
+     * @param taxablePay The pay after pre-tax deductions in cents.
+     * @param ytdEarnings The year-to-date earnings, not used.
+     * @return The taxes in cents.
+     */
+    @Override
+    public long calculateTaxes(long taxablePay, long ytdEarnings) {
+        return Money.multiplyRate(taxablePay, rate);
+    }
+}
@@ -0,0 +1,232 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The GrossPayCache class memoizes gross pay calculations in bounded maps with least recently
+ * used eviction. Gross pay depends only on the employee type, the pay rate and the hours worked
+ * rounded to the hundredth, so employees that share a pay band and an hour value share an entry.
+ * Hits and misses are counted so a run can report how well the cache did.
+ * Each thread has its own segment of up to capacity entries, so payroll threads never wait for
+ * each other on a lookup; the statistics add up the segments, and are exact once the threads that
+ * used the cache are done. Gross pay is a few long operations for both employee types, so a
+ * lookup, which has to build a key and update the access order, usually costs more than it saves;
+ * the cache is off unless a run asks for it.
+ */
+public class GrossPayCache {
+
+    /**
+     * The maximum number of entries of a segment.
+     */
+    private final int capacity;
+
+    /**
+     * The segment of each thread.
+     */
+    private final ThreadLocal<Segment> segment = ThreadLocal.withInitial(this::newSegment);
+
+    /**
+     * Every segment created, for the statistics.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Constructs a cache holding at most the given number of entries per thread.
+     * @param capacity The maximum number of entries of each thread.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public GrossPayCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid gross pay cache capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the gross pay of an employee, calculating and caching it if it is not cached yet in
+     * the segment of the calling thread.
+     * @param employee The employee.
+     * @param hoursWorked The number of hours worked by the employee.
+     * @return The gross pay in cents.
+     */
+    public long grossPay(Employee employee, double hoursWorked) {
+        return segment.get().grossPay(employee, hoursWorked);
+    }
+
+    /**
+     * Gets the number of cached entries. An entry cached by several threads is counted once for
+     * each of them.
+     * @return The number of entries.
+     */
+    public int size() {
+        synchronized (segments) {
+            int size = 0;
+            for (Segment segment : segments) {
+                size += segment.entries.size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Gets the number of lookups found in the cache.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        synchronized (segments) {
+            long hits = 0;
+            for (Segment segment : segments) {
+                hits += segment.hits;
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that had to calculate the gross pay.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        synchronized (segments) {
+            long misses = 0;
+            for (Segment segment : segments) {
+                misses += segment.misses;
+            }
+            return misses;
+        }
+    }
+
+    /**
+     * Gets a summary of the cache for the end of a run.
+     * @return The summary, e.g. "Gross pay cache: 990 hits, 10 misses, 10 entries".
+     */
+    @Override
+    public String toString() {
+        return "Gross pay cache: " + getHits() + " hits, " + getMisses() + " misses, " + size() + " entries";
+    }
+
+    /**
+     * Creates the segment of a thread and adds it to the statistics.
+     * @return The new segment.
+     */
+    private Segment newSegment() {
+        Segment created = new Segment(capacity);
+        synchronized (segments) {
+            segments.add(created);
+        }
+        return created;
+    }
+
+    /**
+     * The entries and statistics of one thread, in access order.
+     */
+    private static final class Segment {
+
+        /**
+         * The entries, in access order.
+         */
+        private final LinkedHashMap<Key, Long> entries;
+
+        /**
+         * The number of lookups found in the segment.
+         */
+        private long hits;
+
+        /**
+         * The number of lookups that had to calculate the gross pay.
+         */
+        private long misses;
+
+        /**
+         * Constructs an empty segment.
+         * @param capacity The maximum number of entries.
+         */
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        /**
+         * Gets the gross pay of an employee, calculating and caching it if it is not cached yet.
+         * @param employee The employee.
+         * @param hoursWorked The number of hours worked by the employee.
+         * @return The gross pay in cents.
+         */
+        private long grossPay(Employee employee, double hoursWorked) {
+            Key key = new Key(employee.getEmployeeType(), employee.getPayRateCents(),
+                    employee.hoursBucket(hoursWorked));
+            Long grossPay = entries.get(key);
+            if (grossPay != null) {
+                hits++;
+                return grossPay;
+            }
+            misses++;
+            long calculated = employee.calculateGrossPayCents(hoursWorked);
+            entries.put(key, calculated);
+            return calculated;
+        }
+    }
+
+    /**
+     * The inputs gross pay depends on.
+     */
+    private static final class Key {
+
+        /**
+         * The employee type.
+         */
+        private final String type;
+
+        /**
+         * The pay rate in cents.
+         */
+        private final long payRate;
+
+        /**
+         * The hours bucket of the hours worked.
+         */
+        private final long hoursBucket;
+
+        /**
+         * Constructs a key.
+         * @param type The employee type.
+         * @param payRate The pay rate in cents.
+         * @param hoursBucket The hours bucket of the hours worked.
+         */
+        private Key(String type, long payRate, long hoursBucket) {
+            this.type = type;
+            this.payRate = payRate;
+            this.hoursBucket = hoursBucket;
+        }
+
+        /**
+         * Checks whether another key has the same inputs.
+         * @param o The other object.
+         * @return true if it is a key with the same inputs.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return payRate == other.payRate && hoursBucket == other.hoursBucket && type.equals(other.type);
+        }
+
+        /**
+         * Gets the hash code of the inputs.
+         * @return The hash code.
+         */
+        @Override
+        public int hashCode() {
+            return 31 * (31 * type.hashCode() + Long.hashCode(payRate)) + Long.hashCode(hoursBucket);
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package student;
 
-import java.math.BigDecimal;
-
 /**
  * The HourlyEmployee class represents an employee who is paid on an hourly basis.
  * It extends the Employee class and provides an implementation for calculating gross pay.
  */
 public class HourlyEmployee extends Employee {
 
+    /**
+     * The type of all hourly employees.
+     */
+    public static final String TYPE = "HOURLY";
+
+    /**
+     * The number of hours per pay period paid at the regular rate.
+     */
+    static final long REGULAR_HOURS = 40;
+
     /**
      * Constructs an HourlyEmployee object with the specified details.
      * @param name The name of the employee.
@@ -19,28 +27,61 @@ public class HourlyEmployee extends Employee {
      */
     public HourlyEmployee(String name, String id, double payRate,
                           double pretaxDeductions, double ytdEarnings, double ytdTaxesPaid) {
-        super("HOURLY", name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
+        super(name, id, payRate, pretaxDeductions, ytdEarnings, ytdTaxesPaid);
+    }
+
+    /**
+     * Constructs an HourlyEmployee object with the specified details in cents.
+     * @param name The name of the employee.
+     * @param id The ID of the employee.
+     * @param payRate The hourly pay rate of the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @param pretaxDeductions The pre-tax deductions of the employee in cents.
+     */
+    private HourlyEmployee(String name, String id, long payRate, long ytdEarnings, long ytdTaxesPaid,
+                           long pretaxDeductions) {
+        super(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
     }
 
     /**
-     * Calculates the gross pay of the hourly employee based on hours worked.
+     * Creates an HourlyEmployee with the specified details in cents, in employee CSV field order.
+     * @param name The name of the employee.
+     * @param id The ID of the employee.
+     * @param payRate The hourly pay rate of the employee in cents.
+     * @param pretaxDeductions The pre-tax deductions of the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @return The new employee.
+     */
+    public static HourlyEmployee ofCents(String name, String id, long payRate, long pretaxDeductions,
+                                         long ytdEarnings, long ytdTaxesPaid) {
+        return new HourlyEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+    }
+
+    /**
+     * Calculates the gross pay in cents of the hourly employee based on hours worked.
+     * Hours over 40 are paid at one and a half times the hourly rate. Hours are taken to the
+     * hundredth, and the gross pay is rounded half-even to the cent once.
      * @param hoursWorked The number of hours worked.
-     * @return The gross pay.
+     * @return The gross pay in cents.
+     */
+    @Override
+    protected long calculateGrossPayCents(double hoursWorked) {
+        long hundredths = Math.round(hoursWorked * 100);
+        long regularHundredths = Math.min(hundredths, REGULAR_HOURS * 100);
+        long overtimeHundredths = hundredths - regularHundredths;
+
+        // rate * (regular + 1.5 * overtime) / 100, kept exact as rate * (2 * regular + 3 * overtime) / 200
+        return Money.divideHalfEven(getPayRateCents() * (2 * regularHundredths + 3 * overtimeHundredths), 200);
+    }
+
+    /**
+     * Gets the employee type of the hourly employee.
+     * @return A string representing the employee type.
      */
     @Override
-    protected BigDecimal calculateGrossPay(double hoursWorked) {
-        BigDecimal hourlyRate = BigDecimal.valueOf(getPayRate());
-        BigDecimal grossPay;
-
-        if (hoursWorked <= 40) {
-            grossPay = hourlyRate.multiply(BigDecimal.valueOf(hoursWorked));
-        } else {
-            BigDecimal normalPay = hourlyRate.multiply(BigDecimal.valueOf(40));
-            BigDecimal overtimePay = hourlyRate.multiply(BigDecimal.valueOf(hoursWorked)
-                    .subtract(BigDecimal.valueOf(40))).multiply(BigDecimal.valueOf(1.5));
-            grossPay = normalPay.add(overtimePay);
-        }
-
-        return grossPay;
+    public String getEmployeeType() {
+        return TYPE;
     }
 }
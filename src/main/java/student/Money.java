@@ -0,0 +1,158 @@
+package student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The Money class provides static methods for fixed-point money arithmetic on long cents.
+ * Amounts are exact to the cent, and every operation that can produce fractions of a cent
+ * rounds explicitly:
+ * <ul>
+ *     <li>amounts parsed or converted with more than two decimals round half-even to the cent;</li>
+ *     <li>products and quotients (gross pay, taxes) round half-even to the cent once, at the end;</li>
+ *     <li>net pay is the taxable pay minus the rounded taxes, so net pay and taxes always add up
+ *     to the taxable pay;</li>
+ *     <li>amounts formatted with one decimal round half-up, like String.format("%.1f").</li>
+ * </ul>
+ */
+public final class Money {
+
+    /**
+     * The number of cents in one unit.
+     */
+    public static final long CENTS_PER_UNIT = 100L;
+
+    /**
+     * The scale of rates expressed in millionths, e.g. 226_500 for 22.65%.
+     */
+    public static final long RATE_SCALE = 1_000_000L;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Money() {
+
+    }
+
+    /**
+     * Converts an amount to cents, rounding half-even to the cent.
+     * @param amount The amount.
+     * @return The amount in cents.
+     * @throws ArithmeticException if the amount does not fit in a long.
+     */
+    public static long fromDouble(double amount) {
+        return fromBigDecimal(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Converts an amount to cents, rounding half-even to the cent.
+     * @param amount The amount.
+     * @return The amount in cents.
+     * @throws ArithmeticException if the amount does not fit in a long.
+     */
+    public static long fromBigDecimal(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts cents to a double amount.
+     * @param cents The amount in cents.
+     * @return The amount.
+     */
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /**
+     * Converts cents to a BigDecimal amount with a scale of two.
+     * @param cents The amount in cents.
+     * @return The amount.
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Divides two longs, rounding the quotient half-even.
+     * @param dividend The dividend.
+     * @param divisor The divisor, which must be positive.
+     * @return The rounded quotient.
+     */
+    public static long divideHalfEven(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Multiplies an amount by a rate in millionths, rounding half-even to the cent.
+     * @param cents The amount in cents.
+     * @param rate The rate in millionths.
+     * @return The product in cents.
+     */
+    public static long multiplyRate(long cents, long rate) {
+        return divideHalfEven(Math.multiplyExact(cents, rate), RATE_SCALE);
+    }
+
+    /**
+     * Converts a rate to millionths, rounding half-even.
+     * @param rate The rate, e.g. 0.2265.
+     * @return The rate in millionths.
+     */
+    public static long rateFromDouble(double rate) {
+        return BigDecimal.valueOf(rate).movePointRight(6).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    /**
+     * Formats an amount in cents with two decimals.
+     * @param cents The amount in cents.
+     * @return The formatted amount, e.g. "1102.24".
+     */
+    public static String format(long cents) {
+        return format(cents, 2);
+    }
+
+    /**
+     * Formats an amount in cents with one or two decimals, independent of the default locale.
+     * @param cents The amount in cents.
+     * @param decimals The number of decimals, 1 or 2.
+     * @return The formatted amount.
+     */
+    public static String format(long cents, int decimals) {
+        return appendTo(new StringBuilder(24), cents, decimals).toString();
+    }
+
+    /**
+     * Appends an amount in cents with one or two decimals, independent of the default locale.
+     * One decimal rounds half-up, away from zero, like String.format("%.1f").
+     * @param builder The builder to append to.
+     * @param cents The amount in cents.
+     * @param decimals The number of decimals, 1 or 2.
+     * @return The builder.
+     * @throws IllegalArgumentException if decimals is not 1 or 2.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long cents, int decimals) {
+        if (decimals != 1 && decimals != 2) {
+            throw new IllegalArgumentException("Unsupported number of decimals: " + decimals);
+        }
+        boolean negative = cents < 0;
+        long magnitude = Math.abs(cents);
+        long unit = CENTS_PER_UNIT;
+        if (decimals == 1) {
+            magnitude = (magnitude + 5) / 10;
+            unit = 10;
+        }
+        long fraction = magnitude % unit;
+        if (negative && magnitude != 0) {
+            builder.append('-');
+        }
+        builder.append(magnitude / unit).append('.');
+        if (decimals == 2 && fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+}
@@ -0,0 +1,199 @@
+package student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The ParallelCsvLoader class parses a whole CSV file on a pool of worker threads. The file is
+ * memory-mapped and divided into byte ranges that start and end on line boundaries; each range is
+ * parsed by one worker, with the thread-local tokenizer of Builder, and the records of the ranges
+ * are put back together in file order, so the result is the same as reading the file with a
+ * CsvRecordReader: the header line and blank lines are skipped, and "\r\n" ends a line like "\n".
+ * There are a few ranges per thread so a slow range does not hold up the others, but ranges are
+ * never smaller than MIN_RANGE_SIZE, so a small file is parsed by a single worker.
+ * Every record is held in memory; files that must be streamed should be read with readRecords.
+ * A compressed file cannot be mapped, so it is decompressed and parsed on the calling thread.
+ */
+public final class ParallelCsvLoader {
+
+    /**
+     * The smallest range in bytes that is given to a worker of its own.
+     */
+    static final long MIN_RANGE_SIZE = 1 << 16;
+
+    /**
+     * The largest range in bytes, below the limit of a single memory mapping.
+     */
+    static final long MAX_RANGE_SIZE = 1 << 30;
+
+    /**
+     * The number of ranges per thread.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ParallelCsvLoader() {
+
+    }
+
+    /**
+     * Parses every record of a CSV file in parallel, excluding the header line.
+     * @param file The file path to read.
+     * @param parser The parser that turns a CSV line into a record; it is called concurrently.
+     * @param threads The number of worker threads.
+     * @param metrics The metrics timing the read and parse phases.
+     * @param <T> The type of the parsed records.
+     * @return The records in file order.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public static <T> List<T> load(String file, Function<String, T> parser, int threads,
+                                   PayrollMetrics metrics) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive");
+        }
+        if (CompressedFiles.isCompressed(file)) {
+            List<T> records = new ArrayList<>();
+            try (CsvRecordReader<T> reader = new CsvRecordReader<>(file, parser, metrics)) {
+                reader.forEachRemaining(records::add);
+            }
+            return records;
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            long[] bounds = split(channel, threads);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<List<T>> ranges = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> parseRange(channel, bounds[i], bounds[i + 1], parser, metrics))
+                        .collect(Collectors.toList())).join();
+                List<T> records = new ArrayList<>(ranges.stream().mapToInt(List::size).sum());
+                ranges.forEach(records::addAll);
+                return records;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Divides the records of a file into ranges that each start at the beginning of a line.
+     * @param channel The channel of the file.
+     * @param threads The number of worker threads.
+     * @return The offsets of the ranges: range i goes from bounds[i] to bounds[i + 1].
+     * @throws IOException if the file cannot be read.
+     */
+    static long[] split(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        // The records start after the header line
+        long start = nextLineStart(channel, 0);
+        long length = size - start;
+        long ranges = Math.max(1, Math.min((long) threads * RANGES_PER_THREAD, length / MIN_RANGE_SIZE));
+        // Half the largest range leaves room for the split points to move to the end of a line
+        ranges = Math.max(ranges, (length + MAX_RANGE_SIZE / 2 - 1) / (MAX_RANGE_SIZE / 2));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        for (long i = 1; i < ranges; i++) {
+            // Move each split point forward to the start of the next line; lines longer than a
+            // range can leave ranges empty, which is harmless
+            long bound = nextLineStart(channel, Math.max(start + length * i / ranges, bounds.get(bounds.size() - 1)));
+            bounds.add(bound);
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Finds the start of the line after an offset.
+     * @param channel The channel of the file.
+     * @param offset The offset to search from.
+     * @return The offset after the first line feed at or after the offset, or the file size if
+     *         there is none.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long nextLineStart(FileChannel channel, long offset) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long position = offset;
+        while (true) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Parses the lines of a range of a file.
+     * @param channel The channel of the file.
+     * @param start The offset of the first line of the range.
+     * @param end The offset after the last line of the range.
+     * @param parser The parser that turns a CSV line into a record.
+     * @param metrics The metrics timing the read and parse phases.
+     * @param <T> The type of the parsed records.
+     * @return The records of the range in file order.
+     * @throws UncheckedIOException if the range cannot be mapped.
+     */
+    private static <T> List<T> parseRange(FileChannel channel, long start, long end, Function<String, T> parser,
+                                          PayrollMetrics metrics) {
+        List<T> records = new ArrayList<>();
+        if (start >= end) {
+            return records;
+        }
+        MappedByteBuffer range;
+        try {
+            range = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        PayrollMetrics.Phase previous = metrics.enter(PayrollMetrics.Phase.READ);
+        byte[] line = new byte[256];
+        int size = range.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= size; i++) {
+            if (i < size && range.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && range.get(i - 1) == '\r' ? i - 1 : i;
+            int length = lineEnd - lineStart;
+            if (length > 0) {
+                if (length > line.length) {
+                    line = new byte[Math.max(length, 2 * line.length)];
+                }
+                range.get(lineStart, line, 0, length);
+                String text = new String(line, 0, length, StandardCharsets.UTF_8);
+                if (!text.isBlank()) {
+                    metrics.enter(PayrollMetrics.Phase.PARSE);
+                    records.add(parser.apply(text));
+                    metrics.enter(PayrollMetrics.Phase.READ);
+                }
+            }
+            lineStart = i + 1;
+        }
+        metrics.enter(previous);
+        return records;
+    }
+}
@@ -0,0 +1,188 @@
+package student;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The ParallelGzipWriter class gzip-compresses bytes on a pool of threads and writes them to a
+ * file channel in order. The bytes are cut into blocks of BLOCK_SIZE, and each block is compressed
+ * on its own into a complete gzip member. A gzip file may hold any number of members, and gzip and
+ * GZIPInputStream decompress them as one stream, so the output is a normal gzip file while the
+ * blocks are compressed side by side, like pigz does.
+ * The pool has one daemon thread per processor and is shared by every writer. Each writer has at
+ * most two blocks per thread in flight, so memory use does not grow with the size of the output.
+ */
+public class ParallelGzipWriter implements Closeable {
+
+    /**
+     * The size in bytes of an uncompressed block.
+     */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * The compression level, the fastest level as the blocks of a payroll file compress well
+     * at any level.
+     */
+    private static final int LEVEL = Deflater.BEST_SPEED;
+
+    /**
+     * The channel the compressed blocks are written to.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The largest number of blocks being compressed at once.
+     */
+    private final int maxPending;
+
+    /**
+     * The blocks being compressed, in output order.
+     */
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    /**
+     * The block being filled.
+     */
+    private byte[] block = new byte[BLOCK_SIZE];
+
+    /**
+     * The number of bytes in the block being filled.
+     */
+    private int blockLength;
+
+    /**
+     * Holds the compression pool, which is only started when a compressed file is written.
+     */
+    private static final class Pool {
+
+        /**
+         * The shared pool of daemon compression threads.
+         */
+        static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), task -> {
+                    Thread thread = new Thread(task, "gzip-compressor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Constructs a ParallelGzipWriter that writes to a channel.
+     * @param channel The channel to write the compressed blocks to, at its current position.
+     */
+    public ParallelGzipWriter(FileChannel channel) {
+        this.channel = channel;
+        this.maxPending = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Adds bytes to the output, handing each full block to the pool.
+     * @param bytes The bytes to add, from their position to their limit.
+     * @throws IOException if a compressed block cannot be written.
+     */
+    public void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            int length = Math.min(bytes.remaining(), BLOCK_SIZE - blockLength);
+            bytes.get(block, blockLength, length);
+            blockLength += length;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compresses the partly filled block and writes every pending block to the channel, so the
+     * channel holds a complete gzip file.
+     * @throws IOException if a compressed block cannot be written.
+     */
+    public void flush() throws IOException {
+        if (blockLength > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Abandons the blocks not written yet.
+     */
+    @Override
+    public void close() {
+        for (Future<byte[]> block : pending) {
+            block.cancel(false);
+        }
+        pending.clear();
+        blockLength = 0;
+    }
+
+    /**
+     * Hands the current block to the pool and starts a new one, first writing the oldest pending
+     * blocks while too many are in flight.
+     * @throws IOException if a compressed block cannot be written.
+     */
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        pending.add(Pool.INSTANCE.submit(() -> compress(data, length)));
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+        while (pending.size() > maxPending) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Waits for the oldest pending block and writes it to the channel.
+     * @throws IOException if the block cannot be compressed or written.
+     */
+    private void writeNext() throws IOException {
+        byte[] compressed;
+        try {
+            compressed = pending.peek().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Cannot compress block", e.getCause());
+        }
+        pending.poll();
+        ByteBuffer bytes = ByteBuffer.wrap(compressed);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Compresses a block into a complete gzip member.
+     * @param data The block.
+     * @param length The number of bytes in the block.
+     * @return The gzip member.
+     */
+    static byte[] compress(byte[] data, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16) {
+            {
+                def.setLevel(LEVEL);
+            }
+        }) {
+            gzip.write(data, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
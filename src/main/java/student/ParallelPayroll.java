@@ -0,0 +1,126 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * The ParallelPayroll class processes the payroll of employees on a pool of worker threads.
+ * Employees are collected with their time cards into batches; each batch is processed in
+ * parallel on a ForkJoinPool, and its employees are then handed to the output in the order they
+ * arrived. Output order is therefore deterministic, and only one batch is held in memory.
+ */
+public class ParallelPayroll implements BiConsumer<IEmployee, ITimeCard>, AutoCloseable {
+
+    /**
+     * The default number of employees per batch and worker thread.
+     */
+    public static final int DEFAULT_BATCH_SIZE_PER_THREAD = 1024;
+
+    /**
+     * The pool that runs the payroll processing.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of employees collected before a batch is processed.
+     */
+    private final int batchSize;
+
+    /**
+     * The action that processes the payroll of an employee with its time card.
+     */
+    private final BiConsumer<IEmployee, ITimeCard> payroll;
+
+    /**
+     * The action to call for every employee, in arrival order, once its payroll is processed.
+     */
+    private final Consumer<IEmployee> output;
+
+    /**
+     * The employees of the current batch.
+     */
+    private final List<IEmployee> employees;
+
+    /**
+     * The time cards of the current batch, null for employees without a time card.
+     */
+    private final List<ITimeCard> timeCards;
+
+    /**
+     * Constructs a ParallelPayroll with the default batch size.
+     * @param threads The number of worker threads.
+     * @param payroll The action that processes the payroll of an employee with its time card.
+     * @param output The action to call for every employee once its payroll is processed.
+     */
+    public ParallelPayroll(int threads, BiConsumer<IEmployee, ITimeCard> payroll, Consumer<IEmployee> output) {
+        this(threads, threads * DEFAULT_BATCH_SIZE_PER_THREAD, payroll, output);
+    }
+
+    /**
+     * Constructs a ParallelPayroll with the specified batch size.
+     * @param threads The number of worker threads.
+     * @param batchSize The number of employees collected before a batch is processed.
+     * @param payroll The action that processes the payroll of an employee with its time card.
+     * @param output The action to call for every employee once its payroll is processed.
+     * @throws IllegalArgumentException if threads or batchSize is less than 1.
+     */
+    public ParallelPayroll(int threads, int batchSize, BiConsumer<IEmployee, ITimeCard> payroll,
+                           Consumer<IEmployee> output) {
+        if (threads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Threads and batch size must be positive");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.batchSize = batchSize;
+        this.payroll = payroll;
+        this.output = output;
+        this.employees = new ArrayList<>(batchSize);
+        this.timeCards = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Adds an employee with its time card to the current batch, processing the batch when it is full.
+     * @param employee The employee.
+     * @param timeCard The time card of the employee, or null if it has none.
+     */
+    @Override
+    public void accept(IEmployee employee, ITimeCard timeCard) {
+        employees.add(employee);
+        timeCards.add(timeCard);
+        if (employees.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the remaining employees. Must be called once every employee has been added.
+     */
+    public void finish() {
+        flush();
+    }
+
+    /**
+     * Shuts the worker threads down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Processes the current batch in parallel and hands its employees to the output in order.
+     */
+    private void flush() {
+        if (employees.isEmpty()) {
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, employees.size()).parallel()
+                .forEach(i -> payroll.accept(employees.get(i), timeCards.get(i)))).join();
+        employees.forEach(output);
+        employees.clear();
+        timeCards.clear();
+    }
+}
@@ -0,0 +1,171 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The PayPeriods class finds the time card files of a multi-period run and orders them by period.
+ * The time cards option of a multi-period run is a directory, whose CSV files, plain or gzip, are
+ * all periods, or a glob over file names such as {@code time_cards/2024-*.csv}. Periods are ordered by file name,
+ * comparing runs of digits by their value, so "period_9.csv" comes before "period_10.csv" and
+ * dates in year-month-day order sort by date.
+ * Each period has its own pay stub file, named after the payroll file and the period file.
+ */
+public final class PayPeriods {
+
+    /**
+     * The characters that make a time cards option a glob.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * The order of periods, by file name with runs of digits compared by value.
+     */
+    public static final Comparator<Path> PERIOD_ORDER = (a, b) -> comparePeriods(
+            a.getFileName().toString(), b.getFileName().toString());
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PayPeriods() {
+
+    }
+
+    /**
+     * Checks whether a time cards option selects several periods.
+     * @param timeCards The time cards option.
+     * @return true if it is a directory or a glob.
+     */
+    public static boolean isMultiPeriod(String timeCards) {
+        return containsGlob(timeCards) || Files.isDirectory(Path.of(timeCards));
+    }
+
+    /**
+     * Finds the time card files of the periods selected by a time cards option.
+     * @param timeCards A directory, whose CSV and CSV.GZ files are selected, or a glob over the file names
+     *                  of a directory.
+     * @return The time card files in period order.
+     * @throws IOException if the directory cannot be listed.
+     * @throws IllegalArgumentException if no file is selected, or the glob is in a directory name.
+     */
+    public static List<Path> resolve(String timeCards) throws IOException {
+        Path dir;
+        String glob;
+        if (containsGlob(timeCards)) {
+            Path pattern = Path.of(timeCards);
+            dir = pattern.getParent() != null ? pattern.getParent() : Path.of("");
+            glob = pattern.getFileName().toString();
+            if (containsGlob(dir.toString())) {
+                throw new IllegalArgumentException("Time card globs can only match file names: " + timeCards);
+            }
+        } else {
+            dir = Path.of(timeCards);
+            glob = "*.{csv,csv" + CompressedFiles.GZIP_SUFFIX + "}";
+        }
+
+        List<Path> periods = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir.toAbsolutePath(), glob)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    periods.add(file);
+                }
+            }
+        }
+        if (periods.isEmpty()) {
+            throw new IllegalArgumentException("No time card files match " + timeCards);
+        }
+        periods.sort(PERIOD_ORDER);
+        return periods;
+    }
+
+    /**
+     * Gets the pay stub file of a period: the payroll file name with the name of the time card
+     * file of the period added before its extension, e.g. pay_stubs-2024-01.csv for the period
+     * file 2024-01.csv and the payroll file pay_stubs.csv. A compressed payroll file keeps its
+     * compression, e.g. pay_stubs-2024-01.csv.gz.
+     * @param payrollFile The payroll file of the run.
+     * @param period The time card file of the period.
+     * @return The pay stub file of the period.
+     */
+    public static String payStubFile(String payrollFile, Path period) {
+        String periodName = stripExtension(period.getFileName().toString());
+        Path payroll = Path.of(payrollFile);
+        String name = payroll.getFileName().toString();
+        String extension = name.substring(stripExtension(name).length());
+        return payroll.resolveSibling(stripExtension(name) + "-" + periodName + extension).toString();
+    }
+
+    /**
+     * Checks whether a path contains glob characters.
+     * @param path The path.
+     * @return true if it contains a glob character.
+     */
+    private static boolean containsGlob(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(path.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the extension of a file name, together with its compression extension if it has one.
+     * @param name The file name.
+     * @return The name up to its last dot before any .gz or .zst, or the whole name if it has no
+     *         extension.
+     */
+    private static String stripExtension(String name) {
+        String uncompressed = CompressedFiles.stripSuffix(name);
+        int dot = uncompressed.lastIndexOf('.');
+        return dot > 0 ? uncompressed.substring(0, dot) : uncompressed;
+    }
+
+    /**
+     * Compares two file names, comparing runs of digits by their value and the rest by character.
+     * @param a The first name.
+     * @param b The second name.
+     * @return The order of the names.
+     */
+    static int comparePeriods(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (Character.isDigit(ca) && Character.isDigit(cb)) {
+                int endA = i;
+                while (endA < a.length() && Character.isDigit(a.charAt(endA))) {
+                    endA++;
+                }
+                int endB = j;
+                while (endB < b.length() && Character.isDigit(b.charAt(endB))) {
+                    endB++;
+                }
+                // Compare the values without leading zeros by length first, then digit by digit
+                String digitsA = a.substring(i, endA).replaceFirst("^0+(?=.)", "");
+                String digitsB = b.substring(j, endB).replaceFirst("^0+(?=.)", "");
+                int order = digitsA.length() != digitsB.length()
+                        ? Integer.compare(digitsA.length(), digitsB.length()) : digitsA.compareTo(digitsB);
+                if (order != 0) {
+                    return order;
+                }
+                i = endA;
+                j = endB;
+            } else {
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+                i++;
+                j++;
+            }
+        }
+        int order = Integer.compare(a.length() - i, b.length() - j);
+        return order != 0 ? order : a.compareTo(b);
+    }
+}
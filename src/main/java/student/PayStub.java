@@ -3,33 +3,34 @@ package student;
 /**
  * The PayStub class represents a pay stub for an employee. It implements the IPayStub interface
  * and includes details such as net pay, taxes, year-to-date earnings, and year-to-date taxes paid.
+ * A pay stub is an immutable value: it keeps the name of the employee, not the employee itself.
  */
-public class PayStub implements IPayStub {
+public final class PayStub implements IPayStub {
 
     /**
-     * The employee associated with the pay stub.
+     * The name of the employee associated with the pay stub.
      */
-    private Employee employee;
+    private final String employeeName;
 
     /**
-     * The net pay of the employee.
+     * The net pay of the employee in cents.
      */
-    private double netPay;
+    private final long netPay;
 
     /**
-     * The taxes paid by the employee.
+     * The taxes paid by the employee in cents.
      */
-    private double taxes;
+    private final long taxes;
 
     /**
-     * The year-to-date earnings of the employee.
+     * The year-to-date earnings of the employee in cents.
      */
-    private double ytdEarnings;
+    private final long ytdEarnings;
 
     /**
-     * The year-to-date taxes paid by the employee.
+     * The year-to-date taxes paid by the employee in cents.
      */
-    private double ytdTaxesPaid;
+    private final long ytdTaxesPaid;
 
     /**
      * Constructs a PayStub object with the specified employee and payroll details.
@@ -40,20 +41,46 @@ public class PayStub implements IPayStub {
      * @param ytdTaxesPaid The year-to-date taxes paid by the employee.
      */
     public PayStub(Employee employee, double netPay, double taxes, double ytdEarnings, double ytdTaxesPaid) {
-        this.employee = employee;
+        this(employee.getName(), Money.fromDouble(netPay), Money.fromDouble(taxes), Money.fromDouble(ytdEarnings),
+                Money.fromDouble(ytdTaxesPaid));
+    }
+
+    /**
+     * Constructs a PayStub object with the specified employee name and payroll details in cents.
+     * @param employeeName The name of the employee associated with the pay stub.
+     * @param netPay The net pay of the employee in cents.
+     * @param taxes The taxes paid by the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     */
+    private PayStub(String employeeName, long netPay, long taxes, long ytdEarnings, long ytdTaxesPaid) {
+        this.employeeName = employeeName;
         this.netPay = netPay;
         this.taxes = taxes;
         this.ytdEarnings = ytdEarnings;
         this.ytdTaxesPaid = ytdTaxesPaid;
     }
 
+    /**
+     * Creates a PayStub with the specified employee and payroll details in cents.
+     * @param employee The employee associated with the pay stub.
+     * @param netPay The net pay of the employee in cents.
+     * @param taxes The taxes paid by the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @return The new pay stub.
+     */
+    public static PayStub ofCents(Employee employee, long netPay, long taxes, long ytdEarnings, long ytdTaxesPaid) {
+        return new PayStub(employee.getName(), netPay, taxes, ytdEarnings, ytdTaxesPaid);
+    }
+
     /**
      * Gets the name of the employee associated with the pay stub.
      * @return The employee's name.
      */
     @Override
     public String getEmployeeName() {
-        return employee.getName();
+        return employeeName;
     }
 
     /**
@@ -62,7 +89,7 @@ public class PayStub implements IPayStub {
      */
     @Override
     public double getNetPay() {
-        return netPay;
+        return Money.toDouble(netPay);
     }
 
     /**
@@ -71,7 +98,7 @@ public class PayStub implements IPayStub {
      */
     @Override
     public double getTaxes() {
-        return taxes;
+        return Money.toDouble(taxes);
     }
 
     /**
@@ -80,7 +107,7 @@ public class PayStub implements IPayStub {
      */
     @Override
     public double getYtdEarnings() {
-        return ytdEarnings;
+        return Money.toDouble(ytdEarnings);
     }
 
     /**
@@ -89,7 +116,7 @@ public class PayStub implements IPayStub {
      */
     @Override
     public double getYtdTaxesPaid() {
-        return ytdTaxesPaid;
+        return Money.toDouble(ytdTaxesPaid);
     }
 
     /**
@@ -98,12 +125,20 @@ public class PayStub implements IPayStub {
      */
     @Override
     public String toCSV() {
-        return String.join(",",
-                getEmployeeName(),
-                String.format("%.2f", getNetPay()),
-                String.format("%.2f", getTaxes()),
-                String.format("%.2f", getYtdEarnings()),
-                String.format("%.2f", getYtdTaxesPaid())
-        );
+        return writeCSV(new CsvRecordWriter()).toString();
+    }
+
+    /**
+     * Writes the pay stub data as a new CSV record, without creating intermediate Strings.
+     * @param record The record writer to write to; its current record is replaced.
+     * @return The record writer.
+     */
+    public CsvRecordWriter writeCSV(CsvRecordWriter record) {
+        return record.reset()
+                .text(getEmployeeName())
+                .money(netPay)
+                .money(taxes)
+                .money(ytdEarnings)
+                .money(ytdTaxesPaid);
     }
 }
@@ -0,0 +1,333 @@
+package student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The PayrollCheckpoint class is the write-ahead log that lets a full payroll run resume after a
+ * crash instead of starting over.
+ * <p>
+ * The run writes the employee file and the pay stub file with resumable AtomicFileWriters. At each
+ * checkpoint both temporary files are forced to disk, and only then is an entry
+ * {@code #checkpoint,<run id>,<records>,<employee bytes>,<pay stub bytes>,<crc>} appended to the
+ * log {@code <employee file>.checkpoint} and forced to disk as well. A resumed run skips the
+ * employee records counted by the last entry and cuts both temporary files back to the recorded
+ * lengths; the records before the checkpoint already hold their new year-to-date values, so the
+ * output is the same as that of an uninterrupted run.
+ * <p>
+ * The run ID is a digest of the input files and the settings that change the output, so the log of
+ * a run with other inputs is discarded rather than resumed. An entry that does not end with a line
+ * feed or whose CRC does not match was torn by a crash, and it is ignored with everything after it.
+ * <p>
+ * A {@code #commit} entry is logged before the temporary files are renamed over their targets.
+ * A run that finds it finishes the renames instead of paying again, as the employee file may
+ * already hold the new year-to-date values.
+ */
+public class PayrollCheckpoint {
+
+    /**
+     * The suffix of the checkpoint log next to the employee file.
+     */
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    /**
+     * The prefix of a checkpoint entry.
+     */
+    private static final String CHECKPOINT_MARKER = "#checkpoint";
+
+    /**
+     * The prefix of the entry logged before the output files are renamed.
+     */
+    private static final String COMMIT_MARKER = "#commit";
+
+    /**
+     * The employee file of the run.
+     */
+    private final String employeeFile;
+
+    /**
+     * The pay stub file of the run.
+     */
+    private final String payrollFile;
+
+    /**
+     * The checkpoint log file.
+     */
+    private final Path logFile;
+
+    /**
+     * The run ID of the last entry, or null if the log has no entries.
+     */
+    private String runID;
+
+    /**
+     * Whether the last entry is a commit entry.
+     */
+    private boolean committing;
+
+    /**
+     * The number of employee records processed at the last checkpoint.
+     */
+    private long records;
+
+    /**
+     * The length of the employee temporary file at the last checkpoint.
+     */
+    private long employeeLength;
+
+    /**
+     * The length of the pay stub temporary file at the last checkpoint.
+     */
+    private long payStubLength;
+
+    /**
+     * The length in bytes of the valid part of the log.
+     */
+    private long committedLength;
+
+    /**
+     * Constructs an empty PayrollCheckpoint for a run.
+     * @param employeeFile The employee file of the run.
+     * @param payrollFile The pay stub file of the run.
+     */
+    private PayrollCheckpoint(String employeeFile, String payrollFile) {
+        this.employeeFile = employeeFile;
+        this.payrollFile = payrollFile;
+        this.logFile = Path.of(employeeFile + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * Opens the checkpoint log of an employee file and reads its last valid entry.
+     * @param employeeFile The employee file of the run.
+     * @param payrollFile The pay stub file of the run.
+     * @return The loaded checkpoint log.
+     * @throws IOException if the log cannot be read.
+     */
+    public static PayrollCheckpoint open(String employeeFile, String payrollFile) throws IOException {
+        PayrollCheckpoint checkpoint = new PayrollCheckpoint(employeeFile, payrollFile);
+        checkpoint.load();
+        return checkpoint;
+    }
+
+    /**
+     * Replays the entries of the log up to the first torn entry.
+     * @throws IOException if the log cannot be read.
+     */
+    private void load() throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(logFile);
+        int start = 0;
+        for (int end = 0; end < bytes.length; end++) {
+            if (bytes[end] != '\n') {
+                continue;
+            }
+            String[] fields = parseEntry(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            if (fields == null) {
+                break;
+            }
+            runID = fields[1];
+            committing = fields[0].equals(COMMIT_MARKER);
+            records = Long.parseLong(fields[2]);
+            employeeLength = Long.parseLong(fields[3]);
+            payStubLength = Long.parseLong(fields[4]);
+            start = end + 1;
+            committedLength = start;
+        }
+    }
+
+    /**
+     * Computes the ID of a run from its input files and settings. A file is identified by its
+     * path, size and modification time rather than its contents, so a run of any size is
+     * identified without reading it.
+     * @param files The input files of the run.
+     * @param settings The settings that change the output of the run.
+     * @return The SHA-256 digest of the description of the run as a hex string.
+     * @throws IOException if a file cannot be read.
+     */
+    public static String runID(List<String> files, List<String> settings) throws IOException {
+        StringBuilder description = new StringBuilder();
+        for (String file : files) {
+            Path path = Path.of(file).toAbsolutePath();
+            description.append(path).append('\n').append(Files.size(path)).append('\n')
+                    .append(Files.getLastModifiedTime(path).toMillis()).append('\n');
+        }
+        for (String setting : settings) {
+            description.append(setting).append('\n');
+        }
+        return EmployeeDeltaLog.batchID(description.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks whether the log has no entries.
+     * @return true if there is nothing to resume or commit.
+     */
+    public boolean isEmpty() {
+        return runID == null;
+    }
+
+    /**
+     * Checks whether a run was interrupted while renaming its complete output files.
+     * @return true if the last entry is a commit entry.
+     */
+    public boolean isCommitting() {
+        return committing;
+    }
+
+    /**
+     * Finishes an interrupted commit: renames the output files that were not renamed yet, in the
+     * same order as a commit, and deletes the log.
+     * @throws IOException if a file cannot be renamed or the log cannot be deleted.
+     */
+    public void finishCommit() throws IOException {
+        AtomicFileWriter.commitCheckpoint(payrollFile, true);
+        AtomicFileWriter.commitCheckpoint(employeeFile, true);
+        Files.deleteIfExists(logFile);
+        clear();
+    }
+
+    /**
+     * Prepares to resume a run. If the last entry belongs to the run, the run resumes from it;
+     * otherwise the log is discarded and the run starts over.
+     * @param runID The ID of the run.
+     * @return true if the run resumes from a checkpoint.
+     */
+    public boolean resume(String runID) {
+        if (runID.equals(this.runID) && !committing) {
+            return true;
+        }
+        clear();
+        this.runID = runID;
+        return false;
+    }
+
+    /**
+     * Gets the number of employee records processed at the last checkpoint.
+     * @return The number of records to skip when resuming.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the length of the employee temporary file at the last checkpoint.
+     * @return The length in bytes.
+     */
+    public long getEmployeeLength() {
+        return employeeLength;
+    }
+
+    /**
+     * Gets the length of the pay stub temporary file at the last checkpoint.
+     * @return The length in bytes.
+     */
+    public long getPayStubLength() {
+        return payStubLength;
+    }
+
+    /**
+     * Forces both output files to disk and logs a checkpoint.
+     * @param records The number of employee records processed, including those of earlier runs.
+     * @param employeeWriter The resumable writer of the employee records.
+     * @param payStubWriter The resumable writer of the pay stubs.
+     * @throws IOException if a file cannot be written.
+     */
+    public void checkpoint(long records, AtomicFileWriter employeeWriter, AtomicFileWriter payStubWriter)
+            throws IOException {
+        append(CHECKPOINT_MARKER, records, employeeWriter.checkpoint(), payStubWriter.checkpoint());
+    }
+
+    /**
+     * Logs a commit entry, renames the pay stub file and then the employee file over their
+     * targets, and deletes the log.
+     * @param records The number of employee records processed, including those of earlier runs.
+     * @param employeeWriter The resumable writer of the employee records.
+     * @param payStubWriter The resumable writer of the pay stubs.
+     * @throws IOException if a file cannot be written or renamed.
+     */
+    public void commit(long records, AtomicFileWriter employeeWriter, AtomicFileWriter payStubWriter)
+            throws IOException {
+        append(COMMIT_MARKER, records, employeeWriter.checkpoint(), payStubWriter.checkpoint());
+        payStubWriter.commit(true);
+        employeeWriter.commit(true);
+        Files.deleteIfExists(logFile);
+        clear();
+    }
+
+    /**
+     * Appends an entry to the log and forces it to disk.
+     * @param marker The marker of the entry.
+     * @param records The number of employee records processed.
+     * @param employeeLength The length of the employee temporary file.
+     * @param payStubLength The length of the pay stub temporary file.
+     * @throws IOException if the log cannot be written.
+     */
+    private void append(String marker, long records, long employeeLength, long payStubLength) throws IOException {
+        String entry = marker + "," + runID + "," + records + "," + employeeLength + "," + payStubLength;
+        byte[] bytes = (entry + "," + crc(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop a torn entry, or the log of another run, before adding the new entry
+            channel.truncate(committedLength);
+            channel.position(committedLength);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            committedLength = channel.position();
+        }
+        this.committing = marker.equals(COMMIT_MARKER);
+        this.records = records;
+        this.employeeLength = employeeLength;
+        this.payStubLength = payStubLength;
+    }
+
+    /**
+     * Forgets the entries of the log, which is truncated by the next append.
+     */
+    private void clear() {
+        runID = null;
+        committing = false;
+        records = 0;
+        employeeLength = 0;
+        payStubLength = 0;
+        committedLength = 0;
+    }
+
+    /**
+     * Splits an entry of the log into its fields and checks its CRC.
+     * @param line The entry, without its line feed.
+     * @return The marker, run ID, records and lengths, or null if the entry is torn or invalid.
+     */
+    private static String[] parseEntry(String line) {
+        int crcStart = line.lastIndexOf(',');
+        if (crcStart < 0 || !line.substring(crcStart + 1).equals(crc(line.substring(0, crcStart)))) {
+            return null;
+        }
+        String[] fields = line.substring(0, crcStart).split(",", -1);
+        if (fields.length != 5 || !fields[0].equals(CHECKPOINT_MARKER) && !fields[0].equals(COMMIT_MARKER)) {
+            return null;
+        }
+        return fields;
+    }
+
+    /**
+     * Computes the CRC-32 of an entry.
+     * @param entry The entry without its CRC.
+     * @return The CRC as a hex string.
+     */
+    private static String crc(String entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().toHexDigits((int) crc.getValue());
+    }
+}
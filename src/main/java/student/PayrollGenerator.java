@@ -1,9 +1,17 @@
 package student;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import student.PayrollMetrics.Phase;
 
 /**
  * The PayrollGenerator class is responsible for processing payroll information.
@@ -23,6 +31,10 @@ public final class PayrollGenerator {
      * Default file path for time card records.
      */
     private static final String DEFAULT_TIME_CARD_FILE = "resources/time_cards.csv";
+    /**
+     * Default number of incremental batches kept in the delta log before it is compacted.
+     */
+    private static final int DEFAULT_COMPACTION_INTERVAL = 10;
 
     /**
      * Private constructor to prevent instantiation.
@@ -32,121 +44,640 @@ public final class PayrollGenerator {
     }
 
     /**
-     * The main method that runs the payroll generation process.
+     * The main method that runs the payroll generation process, for the whole roster or, in
+     * incremental mode, only for the employees in the time card batch.
      * @param args Command-line arguments for specifying file paths.
      */
     public static void main(String[] args) {
         // Process the command-line arguments and store them in an Arguments object
         Arguments arguments = Arguments.process(args);
+        PayrollMetrics metrics = arguments.getMetrics();
+        metrics.setGrossPayCache(arguments.getGrossPayCache());
 
-        // Read the employee data from the specified file and store it in a list of strings
-        List<String> employeeLines = FileUtil.readFileToList(arguments.getEmployeeFile());
+        if (arguments.getServicePort() >= 0) {
+            runService(arguments);
+            return;
+        }
 
-        // Read the time card data from the specified file and store it in a list of strings
-        List<String> timeCards = FileUtil.readFileToList(arguments.getTimeCards());
+        metrics.start();
+        // Hold the lock of the employee file for the whole run, so a payroll service job or another
+        // run cannot change the file or its delta log in the middle of it
+        try (EmployeeFileLock lock = EmployeeFileLock.tryAcquire(arguments.getEmployeeFile())) {
+            if (lock == null) {
+                System.err.println("Employee file is in use by another payroll run: " + arguments.getEmployeeFile());
+            } else if (arguments.isMultiPeriod()) {
+                runMultiPeriod(arguments);
+            } else if (EmployeeStore.isStoreFile(arguments.getEmployeeFile())) {
+                runStore(arguments);
+            } else if (arguments.isIncremental()) {
+                runIncremental(arguments);
+            } else if (arguments.isColumnar()) {
+                runColumnar(arguments);
+            } else if (arguments.isPipelined()) {
+                runPipelined(arguments);
+            } else {
+                runFull(arguments);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error running payroll: " + e.getMessage());
+        }
+        metrics.finish();
 
-        // Convert the list of employee CSV strings to a list of IEmployee objects using the Builder class
-        List<IEmployee> employees = employeeLines.stream().map(Builder::buildEmployeeFromCSV)
-                .collect(Collectors.toList());
+        if (arguments.getMetricsFile() != null) {
+            try {
+                metrics.writeJSON(arguments.getMetricsFile());
+            } catch (IOException e) {
+                System.err.println("Error writing metrics: " + e.getMessage());
+            }
+        }
+        metrics.commitEvents();
+    }
 
-        // Convert the list of time card CSV strings to a list of ITimeCard objects using the Builder class
-        List<ITimeCard> timeCardList = timeCards.stream().map(Builder::buildTimeCardFromCSV)
-                .collect(Collectors.toList());
+    /**
+     * Starts a PayrollService on the employee file and leaves it running after main returns,
+     * until the JVM is stopped. The service is closed on shutdown once the job that is running is
+     * done, so the job is not cut off halfway through updating the files.
+     * @param arguments The arguments holding the employee file, service port, tax engine, gross
+     *                  pay cache, duplicate policy and compaction interval.
+     */
+    private static void runService(Arguments arguments) {
+        if (EmployeeStore.isStoreFile(arguments.getEmployeeFile())) {
+            System.err.println("The payroll service needs a CSV employee file: " + arguments.getEmployeeFile());
+            return;
+        }
+        try {
+            PayrollService service = new PayrollService(arguments.getEmployeeFile(), arguments.getTaxEngine(),
+                    arguments.getGrossPayCache(), arguments.getDuplicatePolicy(), arguments.getCompactionInterval());
+            int port = service.start(arguments.getServicePort());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronized (service) {
+                    service.close();
+                }
+            }));
+            System.out.println("Payroll service with " + service.size() + " employees listening on http://localhost:"
+                    + port + PayrollService.PAYROLL_PATH);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error starting payroll service: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the payroll for the whole roster and rewrites the employee file. Changes left in the
+     * delta log by incremental runs are compacted into the employee file first.
+     * Employees are streamed from the employee file: each one is read, paid, and written to the
+     * updated employee file and the pay stub file before the next one is read, so memory use does
+     * not grow with the size of the roster.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runFull(Arguments arguments) throws IOException {
+        if (Files.exists(Path.of(arguments.getEmployeeFile() + EmployeeDeltaLog.DELTA_SUFFIX))) {
+            EmployeeDeltaLog.open(arguments.getEmployeeFile()).compact();
+        }
+        if (arguments.getCheckpointInterval() > 0) {
+            runCheckpointed(arguments);
+            return;
+        }
 
-        // Update the employee records based on the time cards and write the updated records back to the employee file
-        updateEmployeeRecords(employees, timeCardList, arguments.getEmployeeFile());
+        // Open the employee file for lazy parsing and the two output files for streaming writes
+        PayrollMetrics metrics = arguments.getMetrics();
+        try (CsvRecordReader<IEmployee> employees = FileUtil.readRecords(arguments.getEmployeeFile(),
+                Builder::buildEmployeeFromCSV, metrics);
+             AtomicFileWriter employeeWriter = new AtomicFileWriter(arguments.getEmployeeFile(),
+                     arguments.getBufferSize());
+             AtomicFileWriter payStubWriter = new AtomicFileWriter(arguments.getPayrollFile(),
+                     arguments.getBufferSize())) {
 
-        // Generate pay stubs for the employees and write them to the specified payroll file
-        generatePayStubs(employees, arguments.getPayrollFile());
+            // Add the CSV header lines of the updated employee records and the pay stubs
+            employeeWriter.writeLine(FileUtil.EMPLOYEE_HEADER);
+            payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+
+            // Update the employee records based on the time cards and write each one as soon as it is done,
+            // reusing one record buffer for every line
+            CsvRecordWriter record = new CsvRecordWriter();
+            updateEmployeeRecords(employees, arguments,
+                    employee -> writeEmployeeRecords(employee, record, employeeWriter, payStubWriter, metrics));
+
+            // Commit the pay stubs and then the updated employee records, each with a single write, so a
+            // crash between the two leaves the old year-to-date values and a re-run does not pay twice
+            Phase previous = metrics.enterTimed(Phase.WRITE);
+            payStubWriter.commit(true);
+            employeeWriter.commit(true);
+            metrics.enter(previous);
+        }
     }
 
     /**
-     * Updates employee records with their payroll information based on time card data.
-     * @param employees List of employees to update.
-     * @param timeCardList List of time cards to use for updates.
-     * @param employeeFile The file path to write the updated employee records to.
+     * Runs the payroll for the whole roster like runFull, logging a checkpoint to a
+     * PayrollCheckpoint every checkpoint interval employees. A run that crashes leaves its
+     * checkpoint log and its resumable output files behind, and running the same command again
+     * skips the employees before the last checkpoint and carries on from there; the output is the
+     * same as that of an uninterrupted run. A run interrupted while renaming its output files
+     * only finishes the renames.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
      */
-    private static void updateEmployeeRecords(List<IEmployee> employees, List<ITimeCard> timeCardList,
-                                              String employeeFile) {
-        for (IEmployee employee : employees) {
-            // Find the first time card that matches the current employee's ID
-            Optional<ITimeCard> matchingTimeCard = timeCardList.stream()
-                    .filter(tc -> tc.getEmployeeID().equals(employee.getID()))
-                    .findFirst();
-
-            // If a matching time card is found
-            if (matchingTimeCard.isPresent()) {
-                // Get the hours worked from the matching time card
-                double hoursWorked = matchingTimeCard.get().getHoursWorked();
-
-                // If the hours worked are negative, skip this iteration and move to the next employee
-                if (hoursWorked < 0) {
-                    continue;
+    private static void runCheckpointed(Arguments arguments) throws IOException {
+        PayrollCheckpoint checkpoint = PayrollCheckpoint.open(arguments.getEmployeeFile(),
+                arguments.getPayrollFile());
+        if (checkpoint.isCommitting()) {
+            checkpoint.finishCommit();
+            System.err.println("Finished committing an interrupted payroll run: " + arguments.getEmployeeFile());
+            return;
+        }
+
+        // Resume only a run with the same inputs and the same settings that change the output
+        List<String> inputs = new ArrayList<>(List.of(arguments.getEmployeeFile(), arguments.getTimeCards()));
+        if (arguments.getTaxRulesFile() != null) {
+            inputs.add(arguments.getTaxRulesFile());
+        }
+        String runID = PayrollCheckpoint.runID(inputs, List.of(arguments.getPayrollFile(),
+                arguments.getJoinMode().name(), arguments.getDuplicatePolicy().name(),
+                String.join(",", arguments.getJurisdictions())));
+        boolean stale = !checkpoint.isEmpty();
+        boolean resumed = checkpoint.resume(runID);
+        if (resumed) {
+            System.err.println("Resuming payroll run after " + checkpoint.getRecords() + " employees");
+        } else if (stale) {
+            System.err.println("Discarding the checkpoint of a payroll run with other inputs");
+        }
+
+        PayrollMetrics metrics = arguments.getMetrics();
+        int interval = arguments.getCheckpointInterval();
+        try (CsvRecordReader<IEmployee> employees = FileUtil.readRecords(arguments.getEmployeeFile(),
+                Builder::buildEmployeeFromCSV, metrics);
+             AtomicFileWriter employeeWriter = AtomicFileWriter.resume(arguments.getEmployeeFile(),
+                     arguments.getBufferSize(), checkpoint.getEmployeeLength());
+             AtomicFileWriter payStubWriter = AtomicFileWriter.resume(arguments.getPayrollFile(),
+                     arguments.getBufferSize(), checkpoint.getPayStubLength())) {
+            if (!resumed) {
+                employeeWriter.writeLine(FileUtil.EMPLOYEE_HEADER);
+                payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+            }
+
+            // The records of the employees before the checkpoint are already in the output files
+            AtomicLong records = new AtomicLong(employees.skip(checkpoint.getRecords()));
+            CsvRecordWriter record = new CsvRecordWriter();
+            updateEmployeeRecords(employees, arguments, employee -> {
+                writeEmployeeRecords(employee, record, employeeWriter, payStubWriter, metrics);
+                if (records.incrementAndGet() % interval == 0) {
+                    Phase previous = metrics.enter(Phase.WRITE);
+                    try {
+                        checkpoint.checkpoint(records.get(), employeeWriter, payStubWriter);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    metrics.enter(previous);
                 }
+            });
+
+            Phase previous = metrics.enterTimed(Phase.WRITE);
+            checkpoint.commit(records.get(), employeeWriter, payStubWriter);
+            metrics.enter(previous);
+        }
+    }
+
+    /**
+     * Runs the payroll for the whole roster over several pay periods in one pass. The roster is
+     * read once and held in memory; the periods selected by the time cards option are paid in
+     * period order, each from its own time card file and into its own pay stub file, so the
+     * year-to-date values of each period roll forward into the next. The employee file is written
+     * once, after the last period. A run that stops part way leaves the employee file as it was,
+     * so running it again writes the same pay stub files.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runMultiPeriod(Arguments arguments) throws IOException {
+        if (EmployeeStore.isStoreFile(arguments.getEmployeeFile())) {
+            System.err.println("Multi-period runs need a CSV employee file: " + arguments.getEmployeeFile());
+            return;
+        }
+        List<Path> periods;
+        try {
+            periods = PayPeriods.resolve(arguments.getTimeCards());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (Files.exists(Path.of(arguments.getEmployeeFile() + EmployeeDeltaLog.DELTA_SUFFIX))) {
+            EmployeeDeltaLog.open(arguments.getEmployeeFile()).compact();
+        }
+
+        PayrollMetrics metrics = arguments.getMetrics();
+        List<IEmployee> roster = new ArrayList<>();
+        try (CsvRecordReader<IEmployee> employees = FileUtil.readRecords(arguments.getEmployeeFile(),
+                Builder::buildEmployeeFromCSV, metrics)) {
+            employees.forEachRemaining(roster::add);
+        }
+
+        CsvRecordWriter record = new CsvRecordWriter();
+        for (Path period : periods) {
+            Phase previous = metrics.enterTimed(Phase.JOIN);
+            TimeCardIndex timeCardIndex = indexTimeCards(period.toString(), arguments);
+            try (AtomicFileWriter payStubWriter = new AtomicFileWriter(
+                    PayPeriods.payStubFile(arguments.getPayrollFile(), period), arguments.getBufferSize())) {
+                payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+                for (IEmployee employee : roster) {
+                    // The pay stub of an employee is left from an earlier period unless it is paid in this one
+                    ITimeCard timeCard = timeCardIndex.get(employee.getID());
+                    if (timeCard == null || timeCard.getHoursWorked() < 0) {
+                        continue;
+                    }
+                    processTimeCard(employee, timeCard, arguments);
+                    PayStub payStub = ((Employee) employee).getPayStub();
+                    if (payStub != null) {
+                        metrics.enter(Phase.SERIALIZE);
+                        payStub.writeCSV(record);
+                        metrics.enter(Phase.WRITE);
+                        payStubWriter.writeRecord(record);
+                        metrics.enter(Phase.JOIN);
+                    }
+                }
+                metrics.enterTimed(Phase.WRITE);
+                payStubWriter.commit(true);
+            } finally {
+                metrics.enter(previous);
+            }
+            metrics.addRecords(roster.size());
+        }
+
+        // Write the employee records once, with the year-to-date values of the last period
+        try (AtomicFileWriter employeeWriter = new AtomicFileWriter(arguments.getEmployeeFile(),
+                arguments.getBufferSize())) {
+            employeeWriter.writeLine(FileUtil.EMPLOYEE_HEADER);
+            Phase previous = metrics.enter(Phase.SERIALIZE);
+            for (IEmployee employee : roster) {
+                ((Employee) employee).writeCSV(record);
+                employeeWriter.writeRecord(record);
+            }
+            metrics.enterTimed(Phase.WRITE);
+            employeeWriter.commit(true);
+            metrics.enter(previous);
+        }
+    }
+
+    /**
+     * Runs the payroll for the whole roster as a PayrollPipeline: the employee file is read on a
+     * reader thread, the employees are built and paid by pools of parser and compute workers with
+     * the number of threads of the arguments, and written in file order on the calling thread.
+     * The time cards are indexed before the pipeline starts, as the compute workers look them up
+     * in any order; like runFull, memory use does not grow with the size of the roster.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runPipelined(Arguments arguments) throws IOException {
+        if (Files.exists(Path.of(arguments.getEmployeeFile() + EmployeeDeltaLog.DELTA_SUFFIX))) {
+            EmployeeDeltaLog.open(arguments.getEmployeeFile()).compact();
+        }
+
+        PayrollMetrics metrics = arguments.getMetrics();
+        Phase previous = metrics.enterTimed(Phase.JOIN);
+        TimeCardIndex timeCardIndex = indexTimeCards(arguments);
+
+        // The reader thread only splits the file into lines; the employees are built by the parser workers
+        try (CsvRecordReader<String> lines = FileUtil.readRecords(arguments.getEmployeeFile(), line -> line,
+                metrics);
+             AtomicFileWriter employeeWriter = new AtomicFileWriter(arguments.getEmployeeFile(),
+                     arguments.getBufferSize());
+             AtomicFileWriter payStubWriter = new AtomicFileWriter(arguments.getPayrollFile(),
+                     arguments.getBufferSize())) {
+            employeeWriter.writeLine(FileUtil.EMPLOYEE_HEADER);
+            payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+
+            CsvRecordWriter record = new CsvRecordWriter();
+            int threads = Math.max(1, arguments.getThreads());
+            PayrollPipeline pipeline = new PayrollPipeline(threads, threads);
+            pipeline.run(lines,
+                    line -> {
+                        Phase phase = metrics.enter(Phase.PARSE);
+                        IEmployee employee = Builder.buildEmployeeFromCSV(line);
+                        metrics.enter(phase);
+                        return employee;
+                    },
+                    employee -> processTimeCard(employee, timeCardIndex.get(employee.getID()), arguments),
+                    employee -> writeEmployeeRecords(employee, record, employeeWriter, payStubWriter, metrics));
+
+            metrics.enterTimed(Phase.WRITE);
+            payStubWriter.commit(true);
+            employeeWriter.commit(true);
+        } finally {
+            metrics.enter(previous);
+        }
+    }
+
+    /**
+     * Runs the payroll for the whole roster with the columnar batch kernel. The roster is loaded
+     * into RosterColumns, paid by BatchPayroll in one batch, and then written out, so memory use
+     * grows with the size of the roster but the payroll itself runs in tight loops over arrays.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runColumnar(Arguments arguments) throws IOException {
+        if (Files.exists(Path.of(arguments.getEmployeeFile() + EmployeeDeltaLog.DELTA_SUFFIX))) {
+            EmployeeDeltaLog.open(arguments.getEmployeeFile()).compact();
+        }
+
+        PayrollMetrics metrics = arguments.getMetrics();
+        RosterColumns roster;
+        if (arguments.getThreads() > 1) {
+            // The whole roster is held in memory anyway, so it is parsed in parallel
+            roster = RosterColumns.load(ParallelCsvLoader.load(arguments.getEmployeeFile(),
+                    Builder::buildEmployeeFromCSV, arguments.getThreads(), metrics).iterator());
+        } else {
+            try (CsvRecordReader<IEmployee> employees = FileUtil.readRecords(arguments.getEmployeeFile(),
+                    Builder::buildEmployeeFromCSV, metrics)) {
+                roster = RosterColumns.load(employees);
+            }
+        }
+        Phase previous = metrics.enterTimed(Phase.JOIN);
+        TimeCardIndex timeCardIndex = indexTimeCards(arguments);
+        double[] hours = roster.hoursWorked(timeCardIndex);
+
+        metrics.enterTimed(Phase.COMPUTE);
+        BatchPayroll.compute(roster, hours, arguments.getTaxEngine());
+        metrics.enter(previous);
+
+        try (AtomicFileWriter employeeWriter = new AtomicFileWriter(arguments.getEmployeeFile(),
+                arguments.getBufferSize());
+             AtomicFileWriter payStubWriter = new AtomicFileWriter(arguments.getPayrollFile(),
+                     arguments.getBufferSize())) {
+            employeeWriter.writeLine(FileUtil.EMPLOYEE_HEADER);
+            payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+            CsvRecordWriter record = new CsvRecordWriter();
+            for (int i = 0; i < roster.size(); i++) {
+                metrics.enter(Phase.SERIALIZE);
+                roster.writeEmployeeCSV(i, record);
+                metrics.enter(Phase.WRITE);
+                employeeWriter.writeRecord(record);
+                if (roster.isPaid(i)) {
+                    metrics.enter(Phase.SERIALIZE);
+                    roster.writePayStubCSV(i, record);
+                    metrics.enter(Phase.WRITE);
+                    payStubWriter.writeRecord(record);
+                }
+            }
+            metrics.enterTimed(Phase.WRITE);
+            payStubWriter.commit(true);
+            employeeWriter.commit(true);
+            metrics.enter(previous);
+            metrics.addRecords(roster.size());
+        }
+    }
+
+    /**
+     * Runs the payroll for the whole roster of a binary employee store. The year-to-date values of
+     * the paid employees are updated in place in the memory-mapped store instead of rewriting it.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runStore(Arguments arguments) throws IOException {
+        if (arguments.isIncremental()) {
+            System.err.println("Incremental mode needs a CSV employee file: " + arguments.getEmployeeFile());
+            return;
+        }
+
+        try (EmployeeStore store = EmployeeStore.open(Path.of(arguments.getEmployeeFile()));
+             AtomicFileWriter payStubWriter = new AtomicFileWriter(arguments.getPayrollFile(),
+                     arguments.getBufferSize())) {
+            payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+            CsvRecordWriter record = new CsvRecordWriter();
 
-                // Cast the IEmployee interface to the Employee class
+            // The employees reach the output in store order, so a counter gives their index in the store
+            PayrollMetrics metrics = arguments.getMetrics();
+            int[] index = {0};
+            updateEmployeeRecords(store.iterator(), arguments, employee -> {
                 Employee emp = (Employee) employee;
+                int i = index[0]++;
+                PayStub payStub = emp.getPayStub();
+                if (payStub != null) {
+                    Phase previous = metrics.enter(Phase.WRITE);
+                    store.setYTD(i, emp.getYTDEarningsCents(), emp.getYTDTaxesPaidCents());
+                    metrics.enter(Phase.SERIALIZE);
+                    payStub.writeCSV(record);
+                    metrics.enter(Phase.WRITE);
+                    try {
+                        payStubWriter.writeRecord(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    metrics.enter(previous);
+                }
+                metrics.addRecords(1);
+            });
 
-                // Process the payroll for the employee based on the hours worked
-                emp.processPayroll(hoursWorked);
+            Phase previous = metrics.enterTimed(Phase.WRITE);
+            payStubWriter.commit(true);
+            metrics.enter(previous);
+        }
+    }
+
+    /**
+     * Runs the payroll only for the employees with a time card in the batch. The employee file is
+     * not rewritten: the changed records are appended to the delta log, which is compacted into
+     * the employee file once it holds the number of batches set by the compaction interval.
+     * A batch that was already applied is skipped, so running it again does not pay it twice.
+     * @param arguments The arguments of the run.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private static void runIncremental(Arguments arguments) throws IOException {
+        EmployeeDeltaLog deltaLog = EmployeeDeltaLog.open(arguments.getEmployeeFile());
+        String batchID = EmployeeDeltaLog.batchID(arguments.getTimeCards());
+        if (deltaLog.isApplied(batchID)) {
+            System.err.println("Time card batch already applied: " + arguments.getTimeCards());
+            return;
+        }
+
+        PayrollMetrics metrics = arguments.getMetrics();
+        Phase previous = metrics.enterTimed(Phase.JOIN);
+        TimeCardIndex timeCardIndex = indexTimeCards(arguments);
+
+        List<String> changed = new ArrayList<>();
+        try (CsvRecordReader<String> employees = FileUtil.readRecords(arguments.getEmployeeFile(), line -> line,
+                metrics);
+             AtomicFileWriter payStubWriter = new AtomicFileWriter(arguments.getPayrollFile(),
+                     arguments.getBufferSize())) {
+            payStubWriter.writeLine(FileUtil.PAY_STUB_HEADER);
+            CsvRecordWriter record = new CsvRecordWriter();
+            while (employees.hasNext()) {
+                // Only build the employees with a time card, from their latest record in the delta log
+                String line = employees.next();
+                String id = EmployeeDeltaLog.recordID(line);
+                ITimeCard timeCard = timeCardIndex.get(id);
+                if (timeCard == null) {
+                    continue;
+                }
+                String latest = deltaLog.get(id);
+                metrics.enter(Phase.PARSE);
+                Employee employee = (Employee) Builder.buildEmployeeFromCSV(latest != null ? latest : line);
+
+                processTimeCard(employee, timeCard, arguments);
+                if (employee.getPayStub() != null) {
+                    metrics.enter(Phase.SERIALIZE);
+                    employee.getPayStub().writeCSV(record);
+                    metrics.enter(Phase.WRITE);
+                    payStubWriter.writeRecord(record);
+                    metrics.enter(Phase.SERIALIZE);
+                    changed.add(employee.writeCSV(record).toString());
+                }
+                metrics.enter(Phase.JOIN);
+                metrics.addRecords(1);
             }
 
-            // Write the updated employee records to a file
-            writeUpdatedEmployeesToFile(employees, employeeFile);
+            // Commit the pay stubs before the batch is recorded, so an interrupted run can be repeated
+            metrics.enterTimed(Phase.WRITE);
+            payStubWriter.commit(true);
+        }
+
+        deltaLog.append(batchID, arguments.getTimeCards(), changed);
+        if (deltaLog.getPendingBatches() >= arguments.getCompactionInterval()) {
+            deltaLog.compact();
         }
+        metrics.enter(previous);
     }
 
     /**
-     * Writes the updated employee records to the specified file.
-     * @param employees List of employees with updated records.
-     * @param employeeFile The file path to write the updated employee records to.
+     * Updates employee records with their payroll information based on time card data.
+     * The time cards are parsed and joined with the employees using the join mode of the arguments,
+     * and the payroll is processed on the calling thread or, with more than one thread, on a
+     * ParallelPayroll pool that still hands the employees to the output in input order.
+     * @param employees The employees to update.
+     * @param arguments The arguments holding the time card file, join mode, sort memory, duplicate
+     *                  policy, threads, tax engine and gross pay cache.
+     * @param output The action to call for every employee once its record is updated.
+     * @throws IOException if the time card file cannot be read.
      */
-    private static void writeUpdatedEmployeesToFile(List<IEmployee> employees, String employeeFile) {
-        // Convert each employee to a CSV formatted string using the toCSV method and collect them into a list
-        List<String> updatedEmployeeLines = employees.stream()
-                .map(IEmployee::toCSV)
-                .collect(Collectors.toList());
+    private static void updateEmployeeRecords(Iterator<IEmployee> employees, Arguments arguments,
+                                              Consumer<IEmployee> output) throws IOException {
+        PayrollMetrics metrics = arguments.getMetrics();
+        Phase previous = metrics.enterTimed(Phase.JOIN);
+        try (CsvRecordReader<ITimeCard> timeCards = arguments.getJoinMode() != TimeCardJoin.Mode.MERGE ? null
+                : FileUtil.readRecords(arguments.getTimeCards(), Builder::buildTimeCardFromCSV, metrics);
+             ParallelPayroll parallelPayroll = arguments.getThreads() > 1
+                     ? new ParallelPayroll(arguments.getThreads(),
+                             (employee, timeCard) -> processTimeCard(employee, timeCard, arguments), output)
+                     : null) {
+            BiConsumer<IEmployee, ITimeCard> payroll = parallelPayroll;
+            if (payroll == null) {
+                payroll = (employee, timeCard) -> {
+                    processTimeCard(employee, timeCard, arguments);
+                    output.accept(employee);
+                };
+            }
 
-        // Add the CSV header line at the beginning of the list
-        updatedEmployeeLines.add(0, FileUtil.EMPLOYEE_HEADER);
+            if (arguments.getJoinMode() == TimeCardJoin.Mode.MERGE) {
+                // Both files are sorted by ID, so the time cards are parsed lazily while they are merged
+                TimeCardJoin.mergeJoin(employees, timeCards, arguments.getDuplicatePolicy(), payroll);
+            } else if (arguments.getJoinMode() == TimeCardJoin.Mode.SORT) {
+                // Sort the time cards within the memory budget, with runs spilled next to the pay stub file
+                Path tempDir = Path.of(arguments.getPayrollFile()).toAbsolutePath().getParent();
+                try (ExternalTimeCardSort sortedTimeCards = new ExternalTimeCardSort(arguments.getTimeCards(),
+                        arguments.getSortMemory(), tempDir, metrics)) {
+                    TimeCardJoin.mergeJoin(employees, sortedTimeCards, arguments.getDuplicatePolicy(), payroll);
+                }
+            } else {
+                // Build the time card index once while parsing the time cards
+                TimeCardJoin.hashJoin(employees, indexTimeCards(arguments), payroll);
+            }
 
-        // Try to write the list of CSV lines to the specified file
-        try {
-            FileUtil.writeFile(employeeFile, updatedEmployeeLines);
-        } catch (Exception e) {
-            System.err.println("Error writing update employee records to file: " + e.getMessage());
+            if (parallelPayroll != null) {
+                parallelPayroll.finish();
+            }
+        } finally {
+            metrics.enter(previous);
         }
     }
 
     /**
-     * Generates pay stub records for each employee and writes them to the specified file.
-     * @param employees List of employees to generate pay stubs for.
-     * @param payrollFile The file path to write the generated pay stub records to.
+     * Parses the time card file into a time card index. With more than one thread, the file is
+     * parsed in parallel by a ParallelCsvLoader; the time cards are still added in file order, so
+     * the duplicate policy sees them in the same order either way.
+     * @param arguments The arguments holding the time card file, duplicate policy, threads and metrics.
+     * @return The time card index.
+     * @throws IOException if the time card file cannot be read.
      */
-    private static void generatePayStubs(List<IEmployee> employees, String payrollFile) {
-        // Create a list to store the CSV lines for the pay stubs
-        List<String> payStubLines = new ArrayList<>();
+    private static TimeCardIndex indexTimeCards(Arguments arguments) throws IOException {
+        return indexTimeCards(arguments.getTimeCards(), arguments);
+    }
 
-        // Add the CSV header line for the pay stubs
-        payStubLines.add(FileUtil.PAY_STUB_HEADER);
+    /**
+     * Parses a time card file into a time card index, in parallel with more than one thread.
+     * @param timeCardFile The time card file.
+     * @param arguments The arguments holding the duplicate policy, threads and metrics.
+     * @return The time card index.
+     * @throws IOException if the time card file cannot be read.
+     */
+    private static TimeCardIndex indexTimeCards(String timeCardFile, Arguments arguments) throws IOException {
+        TimeCardIndex timeCardIndex = new TimeCardIndex(arguments.getDuplicatePolicy());
+        if (arguments.getThreads() > 1) {
+            ParallelCsvLoader.load(timeCardFile, Builder::buildTimeCardFromCSV, arguments.getThreads(),
+                    arguments.getMetrics()).forEach(timeCardIndex::add);
+        } else {
+            try (CsvRecordReader<ITimeCard> timeCards = FileUtil.readRecords(timeCardFile,
+                    Builder::buildTimeCardFromCSV, arguments.getMetrics())) {
+                timeCards.forEachRemaining(timeCardIndex::add);
+            }
+        }
+        return timeCardIndex;
+    }
 
-        for (IEmployee employee : employees) {
-            // Cast the IEmployee interface to the Employee class to call the getPayStub method
+    /**
+     * Processes the payroll of an employee with its time card.
+     * @param employee The employee.
+     * @param timeCard The time card of the employee, or null if it has none.
+     * @param arguments The arguments holding the tax engine, the gross pay cache and the metrics.
+     */
+    private static void processTimeCard(IEmployee employee, ITimeCard timeCard, Arguments arguments) {
+        // If a matching time card is found and the hours worked are not negative
+        if (timeCard != null && timeCard.getHoursWorked() >= 0) {
+            Phase previous = arguments.getMetrics().enter(Phase.COMPUTE);
+            // Cast the IEmployee interface to the Employee class
             Employee emp = (Employee) employee;
-            PayStub payStub = emp.getPayStub();
 
-            // If the pay stub is not null, add it to the list of pay stub lines in CSV format
-            if (payStub != null) {
-                payStubLines.add(payStub.toCSV());
+            // Process the payroll for the employee based on the hours worked
+            if (arguments.getGrossPayCache() != null) {
+                emp.processPayroll(timeCard.getHoursWorked(), arguments.getTaxEngine(), arguments.getGrossPayCache());
+            } else {
+                emp.processPayroll(timeCard.getHoursWorked(), arguments.getTaxEngine());
             }
+            arguments.getMetrics().enter(previous);
         }
+    }
 
-        // Try to write the list of pay stub lines to the specified file
+    /**
+     * Writes the updated record of an employee, and its pay stub if it was paid in this run.
+     * @param employee The employee with an updated record.
+     * @param record The record writer used to format both records.
+     * @param employeeWriter The writer of the updated employee records.
+     * @param payStubWriter The writer of the pay stub records.
+     * @param metrics The metrics timing the serialize and write phases.
+     * @throws UncheckedIOException if a record cannot be written.
+     */
+    private static void writeEmployeeRecords(IEmployee employee, CsvRecordWriter record,
+                                             AtomicFileWriter employeeWriter, AtomicFileWriter payStubWriter,
+                                             PayrollMetrics metrics) {
+        Phase previous = metrics.enter(Phase.SERIALIZE);
         try {
-            FileUtil.writeFile(payrollFile, payStubLines);
-        } catch (Exception e) {
-            System.err.println("Error writing pay stub records to file: " + e.getMessage());
+            // Cast the IEmployee interface to the Employee class to call the writeCSV and getPayStub methods
+            Employee emp = (Employee) employee;
+
+            // Format the employee as a CSV record in place and write it without creating a String
+            emp.writeCSV(record);
+            metrics.enter(Phase.WRITE);
+            employeeWriter.writeRecord(record);
+
+            // If the pay stub is not null, write it in CSV format
+            PayStub payStub = emp.getPayStub();
+            if (payStub != null) {
+                metrics.enter(Phase.SERIALIZE);
+                payStub.writeCSV(record);
+                metrics.enter(Phase.WRITE);
+                payStubWriter.writeRecord(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        metrics.enter(previous);
+        metrics.addRecords(1);
     }
 
     /**
@@ -165,6 +696,78 @@ public final class PayrollGenerator {
          * File path for time card records.
          */
         private String timeCards = DEFAULT_TIME_CARD_FILE;
+        /**
+         * Join mode used to match employees with their time cards.
+         */
+        private TimeCardJoin.Mode joinMode = TimeCardJoin.Mode.HASH;
+        /**
+         * Memory budget in bytes of the external sort of the time cards.
+         */
+        private long sortMemory = ExternalTimeCardSort.DEFAULT_MEMORY_BUDGET;
+        /**
+         * Policy used when an employee has more than one time card.
+         */
+        private DuplicatePolicy duplicatePolicy = DuplicatePolicy.FIRST;
+        /**
+         * Number of threads used to process the payroll, 1 for sequential processing.
+         */
+        private int threads = 1;
+        /**
+         * Size in bytes of the output buffer of each output file.
+         */
+        private int bufferSize = AtomicFileWriter.DEFAULT_BUFFER_SIZE;
+        /**
+         * The number of employees between checkpoints of a full run, or 0 for no checkpoints.
+         */
+        private int checkpointInterval;
+        /**
+         * Whether the time cards option is a directory or glob of pay period files.
+         */
+        private boolean multiPeriod;
+        /**
+         * Whether to run the payroll only for the employees in the time card batch.
+         */
+        private boolean incremental;
+        /**
+         * Number of incremental batches kept in the delta log before it is compacted.
+         */
+        private int compactionInterval = DEFAULT_COMPACTION_INTERVAL;
+        /**
+         * Whether to compute the payroll with the columnar batch kernel.
+         */
+        private boolean columnar;
+        /**
+         * Whether to run the payroll as a pipeline of reader, parser, compute and writer threads.
+         */
+        private boolean pipelined;
+        /**
+         * File path for tax rules, or null for the default flat tax rate.
+         */
+        private String taxRulesFile;
+        /**
+         * Jurisdictions of the tax rules to apply, empty for every jurisdiction in the file.
+         */
+        private List<String> jurisdictions = List.of();
+        /**
+         * Tax engine calculating the taxes, compiled from the tax rules once the options are processed.
+         */
+        private TaxEngine taxEngine = FlatTaxEngine.DEFAULT;
+        /**
+         * Cache of gross pay calculations, or null to calculate the gross pay of every employee.
+         */
+        private GrossPayCache grossPayCache;
+        /**
+         * File path for the JSON metrics summary, or null to run without metrics.
+         */
+        private String metricsFile;
+        /**
+         * Metrics of the run, disabled unless a metrics file is given.
+         */
+        private PayrollMetrics metrics = PayrollMetrics.DISABLED;
+        /**
+         * Port of the payroll service, 0 for any free port, or -1 to run the payroll once.
+         */
+        private int servicePort = -1;
 
         /**
          * Private constructor to prevent instantiation.
@@ -197,19 +800,209 @@ public final class PayrollGenerator {
             return timeCards;
         }
 
+        /**
+         * Gets the join mode.
+         * @return The join mode.
+         */
+        public TimeCardJoin.Mode getJoinMode() {
+            return joinMode;
+        }
+
+        /**
+         * Gets the memory budget of the external sort of the time cards.
+         * @return The memory budget in bytes.
+         */
+        public long getSortMemory() {
+            return sortMemory;
+        }
+
+        /**
+         * Gets the duplicate time card policy.
+         * @return The duplicate time card policy.
+         */
+        public DuplicatePolicy getDuplicatePolicy() {
+            return duplicatePolicy;
+        }
+
+        /**
+         * Gets the number of payroll threads.
+         * @return The number of payroll threads.
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Gets the size of the output buffers.
+         * @return The size of the output buffers in bytes.
+         */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        /**
+         * Gets the number of employees between checkpoints of a full run.
+         * @return The checkpoint interval, or 0 if the run is not checkpointed.
+         */
+        public int getCheckpointInterval() {
+            return checkpointInterval;
+        }
+
+        /**
+         * Gets the tax rules file.
+         * @return The tax rules file, or null if the flat tax applies.
+         */
+        public String getTaxRulesFile() {
+            return taxRulesFile;
+        }
+
+        /**
+         * Gets the jurisdictions of the tax rules to apply.
+         * @return The jurisdictions, or an empty list for all of them.
+         */
+        public List<String> getJurisdictions() {
+            return jurisdictions;
+        }
+
+        /**
+         * Checks whether the payroll runs over several pay periods.
+         * @return true if the time cards option is a directory or glob of pay period files.
+         */
+        public boolean isMultiPeriod() {
+            return multiPeriod;
+        }
+
+        /**
+         * Checks whether the payroll runs only for the employees in the time card batch.
+         * @return true in incremental mode.
+         */
+        public boolean isIncremental() {
+            return incremental;
+        }
+
+        /**
+         * Checks whether the payroll is computed with the columnar batch kernel.
+         * @return true in columnar mode.
+         */
+        public boolean isColumnar() {
+            return columnar;
+        }
+
+        /**
+         * Checks whether the payroll runs as a pipeline of stages on their own threads.
+         * @return true in pipelined mode.
+         */
+        public boolean isPipelined() {
+            return pipelined;
+        }
+
+        /**
+         * Gets the number of incremental batches kept in the delta log before it is compacted.
+         * @return The compaction interval.
+         */
+        public int getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        /**
+         * Gets the tax engine.
+         * @return The tax engine compiled from the tax rules, or the default flat tax engine.
+         */
+        public TaxEngine getTaxEngine() {
+            return taxEngine;
+        }
+
+        /**
+         * Gets the gross pay cache.
+         * @return The gross pay cache, or null if gross pay is not cached.
+         */
+        public GrossPayCache getGrossPayCache() {
+            return grossPayCache;
+        }
+
+        /**
+         * Gets the metrics file path.
+         * @return The metrics file path, or null if the run has no metrics.
+         */
+        public String getMetricsFile() {
+            return metricsFile;
+        }
+
+        /**
+         * Gets the metrics of the run.
+         * @return The metrics, or the disabled metrics if no metrics file is given.
+         */
+        public PayrollMetrics getMetrics() {
+            return metrics;
+        }
+
+        /**
+         * Gets the port of the payroll service.
+         * @return The port, 0 for any free port, or -1 if the payroll runs once.
+         */
+        public int getServicePort() {
+            return servicePort;
+        }
+
         /**
          * Prints the help message for the command-line arguments.
          */
         public void printHelp() {
             System.out.println(
-                    "Usage: java student.PayrollGenerator [-e employee_file] [-t time_cards_file] [-o payroll_file]");
+                    "Usage: java student.PayrollGenerator [-e employee_file] [-t time_cards_file] [-o payroll_file]"
+                            + " [-j join_mode] [-s sort_memory] [-d duplicate_policy] [-p threads]"
+                            + " [-b buffer_size] [-i] [-c compaction_interval] [-n checkpoint_interval] [-k] [-l]"
+                            + " [-x tax_rules_file] [-r jurisdictions] [-g cache_size] [-m metrics_file] [-w port]");
+            System.out.println("CSV files ending in .gz are read and written gzip-compressed.");
             System.out.println("Options:");
             System.out.println(
-                    "  -e employee_file  Input file containing employee information. Default is employees.csv");
+                    "  -e employee_file  Input file containing employee information, CSV or a .bin employee store."
+                            + " Default is employees.csv");
             System.out.println(
-                    "  -t time_cards_file  Input file containing time card information. Default is time_cards.csv");
+                    "  -t time_cards_file  Input file containing time card information, or a directory or glob of"
+                            + " pay period files paid in order into one pay stub file each. Default is time_cards.csv");
             System.out.println(
                     "  -o payroll_file  Output file containing payroll information. Default is pay_stubs.csv");
+            System.out.println(
+                    "  -j join_mode  hash, merge for files already sorted by employee ID, or sort for time cards"
+                            + " in any order and employees sorted by ID. Default is hash");
+            System.out.println(
+                    "  -s sort_memory  Memory budget of the sort join in bytes, or with a k, m or g suffix."
+                            + " Default is 64m");
+            System.out.println(
+                    "  -d duplicate_policy  first, sum or reject duplicate time cards. Default is first");
+            System.out.println(
+                    "  -p threads  Number of threads processing the payroll and parsing the time cards,"
+                            + " 0 for all cores. Default is 1");
+            System.out.println(
+                    "  -b buffer_size  Size in bytes of the buffer of each output file. Default is 1048576");
+            System.out.println(
+                    "  -i  Incremental run: pay only the employees in the time card batch and log their changes."
+                            + " Cannot be combined with -k, -l or -j");
+            System.out.println(
+                    "  -c compaction_interval  Incremental batches logged before compacting the log. Default is 10");
+            System.out.println(
+                    "  -n checkpoint_interval  Checkpoint a full run every checkpoint_interval employees, so the same"
+                            + " command resumes it after a crash");
+            System.out.println(
+                    "  -k  Compute the payroll with the columnar batch kernel, holding the whole roster in memory."
+                            + " Needs the hash join");
+            System.out.println(
+                    "  -l  Pipelined run: read, parse, pay and write on separate threads, with -p threads"
+                            + " each parsing and paying. Needs the hash join");
+            System.out.println(
+                    "  -x tax_rules_file  Tax brackets and capped taxes by jurisdiction. Default is a flat 22.65%");
+            System.out.println(
+                    "  -r jurisdictions  Comma-separated jurisdictions of the tax rules to apply. Default is all");
+            System.out.println(
+                    "  -g cache_size  Cache up to cache_size gross pay results per thread by type, pay rate"
+                            + " and hours; its hits and misses are in the -m metrics. A lookup usually costs"
+                            + " more than calculating the gross pay. Default is no cache");
+            System.out.println(
+                    "  -m metrics_file  Write phase timings, throughput and allocation of the run as JSON");
+            System.out.println(
+                    "  -w port  Keep the roster in memory and serve payroll jobs: POST a time card batch to"
+                            + " http://localhost:port/payroll to get its pay stubs. 0 picks a free port");
             System.out.println("  -h                Print this help message");
         }
 
@@ -245,6 +1038,179 @@ public final class PayrollGenerator {
                         arguments.printHelp();
                         System.exit(1);
                     }
+                } else if (args[i].equals("-j")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.joinMode = TimeCardJoin.Mode.fromString(args[i + 1]);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Invalid join mode: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -j option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-s")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.sortMemory = parseSize(args[i + 1]);
+                            if (arguments.sortMemory < ExternalTimeCardSort.MIN_MEMORY_BUDGET) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException | ArithmeticException e) {
+                            System.out.println("Invalid sort memory: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -s option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-d")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.duplicatePolicy = DuplicatePolicy.fromString(args[i + 1]);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Invalid duplicate policy: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -d option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-p")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            int threads = Integer.parseInt(args[i + 1]);
+                            arguments.threads = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid number of threads: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -p option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-b")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.bufferSize = Integer.parseInt(args[i + 1]);
+                            if (arguments.bufferSize < AtomicFileWriter.MIN_BUFFER_SIZE) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid buffer size: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -b option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-k")) {
+                    arguments.columnar = true;
+                } else if (args[i].equals("-l")) {
+                    arguments.pipelined = true;
+                } else if (args[i].equals("-i")) {
+                    arguments.incremental = true;
+                } else if (args[i].equals("-c")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.compactionInterval = Integer.parseInt(args[i + 1]);
+                            if (arguments.compactionInterval < 1) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid compaction interval: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -c option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-n")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.checkpointInterval = Integer.parseInt(args[i + 1]);
+                            if (arguments.checkpointInterval < 1) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid checkpoint interval: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -n option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-x")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.taxRulesFile = args[i + 1];
+                    } else {
+                        System.out.println("Missing argument for -x option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-r")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.jurisdictions = List.of(args[i + 1].split(","));
+                    } else {
+                        System.out.println("Missing argument for -r option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-g")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.grossPayCache = new GrossPayCache(Integer.parseInt(args[i + 1]));
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Invalid gross pay cache size: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -g option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-m")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        arguments.metricsFile = args[i + 1];
+                        arguments.metrics = new PayrollMetrics(PayrollMetrics.DEFAULT_SAMPLE_INTERVAL);
+                    } else {
+                        System.out.println("Missing argument for -m option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
+                } else if (args[i].equals("-w")) {
+                    if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                        try {
+                            arguments.servicePort = Integer.parseInt(args[i + 1]);
+                            if (arguments.servicePort < 0 || arguments.servicePort > 65535) {
+                                throw new NumberFormatException();
+                            }
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid service port: " + args[i + 1]);
+                            arguments.printHelp();
+                            System.exit(1);
+                        }
+                    } else {
+                        System.out.println("Missing argument for -w option");
+                        arguments.printHelp();
+                        System.exit(1);
+                    }
                 } else if (args[i].equals("-h")) {
                     arguments.printHelp();
                     System.exit(0);
@@ -254,7 +1220,76 @@ public final class PayrollGenerator {
                     System.exit(1);
                 }
             }
+
+            // Compile the tax rules once, before any employee is paid
+            if (arguments.taxRulesFile != null) {
+                try {
+                    arguments.taxEngine = TaxRules.load(arguments.taxRulesFile, arguments.jurisdictions);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Invalid tax rules: " + e.getMessage());
+                    arguments.printHelp();
+                    System.exit(1);
+                }
+            } else if (!arguments.jurisdictions.isEmpty()) {
+                System.out.println("The -r option needs a tax rules file");
+                arguments.printHelp();
+                System.exit(1);
+            }
+            arguments.multiPeriod = PayPeriods.isMultiPeriod(arguments.timeCards);
+            if (arguments.multiPeriod && (arguments.incremental || arguments.columnar || arguments.pipelined
+                    || arguments.joinMode != TimeCardJoin.Mode.HASH)) {
+                System.out.println("A directory or glob of time card files cannot be combined with -i, -k, -l or -j");
+                arguments.printHelp();
+                System.exit(1);
+            }
+            if (arguments.incremental && (arguments.columnar || arguments.pipelined
+                    || arguments.joinMode != TimeCardJoin.Mode.HASH)) {
+                System.out.println("The -i option cannot be combined with -k, -l or -j");
+                arguments.printHelp();
+                System.exit(1);
+            }
+            if (arguments.checkpointInterval > 0 && (arguments.multiPeriod || arguments.incremental
+                    || arguments.columnar || arguments.pipelined
+                    || EmployeeStore.isStoreFile(arguments.employeeFile))) {
+                System.out.println("The -n option only applies to a full run of a CSV employee file");
+                arguments.printHelp();
+                System.exit(1);
+            }
+            if (arguments.pipelined && arguments.joinMode != TimeCardJoin.Mode.HASH) {
+                System.out.println("The -l option needs the hash join");
+                arguments.printHelp();
+                System.exit(1);
+            }
+            if (arguments.columnar && arguments.joinMode != TimeCardJoin.Mode.HASH) {
+                System.out.println("The -k option needs the hash join");
+                arguments.printHelp();
+                System.exit(1);
+            }
             return arguments;
         }
+
+        /**
+         * Parses a size in bytes, optionally followed by a k, m or g suffix for kibibytes,
+         * mebibytes or gibibytes.
+         * @param size The size, e.g. "65536" or "64m".
+         * @return The size in bytes.
+         * @throws NumberFormatException if the size is not a number.
+         * @throws ArithmeticException if the size does not fit in a long.
+         */
+        private static long parseSize(String size) {
+            String number = size.trim().toLowerCase();
+            int shift = 0;
+            if (number.endsWith("k")) {
+                shift = 10;
+            } else if (number.endsWith("m")) {
+                shift = 20;
+            } else if (number.endsWith("g")) {
+                shift = 30;
+            }
+            if (shift > 0) {
+                number = number.substring(0, number.length() - 1);
+            }
+            return Math.multiplyExact(Long.parseLong(number), 1L << shift);
+        }
     }
 }
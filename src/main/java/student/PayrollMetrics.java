@@ -0,0 +1,708 @@
+package student;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The PayrollMetrics class measures where the time of a payroll run goes. Each thread moves
+ * between the phases of the run with enter, which returns the phase it left so nested phases can
+ * be restored, and the time between two calls belongs to the phase that was entered. Reading the
+ * clock costs more than most of the work a record does in a phase, so only a random sample of
+ * about one in every sample interval phase visits is timed, with the allocation of the thread
+ * during the visit; phases entered once for a whole batch are always timed with enterTimed.
+ * The totals of each phase are estimated from the samples, and the latency of a visit is kept in
+ * a histogram per phase. Each thread keeps its own counters, so timing takes no locks.
+ * At the end of a run the metrics are written as a JSON summary and committed as JFR events.
+ * The DISABLED metrics do nothing at all.
+ */
+public class PayrollMetrics {
+
+    /**
+     * The phases of a payroll run.
+     */
+    public enum Phase {
+        /**
+         * Reading lines from the input files.
+         */
+        READ,
+
+        /**
+         * Parsing lines into employees and time cards.
+         */
+        PARSE,
+
+        /**
+         * Matching employees with their time cards.
+         */
+        JOIN,
+
+        /**
+         * Computing the payroll of the employees.
+         */
+        COMPUTE,
+
+        /**
+         * Formatting employees and pay stubs as CSV records.
+         */
+        SERIALIZE,
+
+        /**
+         * Encoding and writing the records to the output files.
+         */
+        WRITE;
+
+        /**
+         * Gets the name of the phase in the JSON summary.
+         * @return The lower-case name of the phase.
+         */
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The default number of phase visits per timed visit.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /**
+     * Metrics that measure nothing.
+     */
+    public static final PayrollMetrics DISABLED = new PayrollMetrics(false, 1);
+
+    /**
+     * The number of phases.
+     */
+    private static final int PHASES = Phase.values().length;
+
+    /**
+     * The percentiles reported for each phase.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Whether the metrics measure anything.
+     */
+    private final boolean enabled;
+
+    /**
+     * The mean number of phase visits per timed visit.
+     */
+    private final int sampleInterval;
+
+    /**
+     * The clock of each thread.
+     */
+    private final ThreadLocal<PhaseClock> clock = ThreadLocal.withInitial(this::newClock);
+
+    /**
+     * The clocks of every thread that entered a phase.
+     */
+    private final List<PhaseClock> clocks = new ArrayList<>();
+
+    /**
+     * The number of employee records processed.
+     */
+    private final LongAdder records = new LongAdder();
+
+    /**
+     * The gross pay cache of the run, or null if it has none.
+     */
+    private GrossPayCache grossPayCache;
+
+    /**
+     * The time the run started, from System.nanoTime.
+     */
+    private long startTime;
+
+    /**
+     * The time the run finished, from System.nanoTime.
+     */
+    private long finishTime;
+
+    /**
+     * Constructs metrics that measure a run.
+     * @param sampleInterval The mean number of phase visits per timed visit, 1 to time every visit.
+     * @throws IllegalArgumentException if the sample interval is not positive.
+     */
+    public PayrollMetrics(int sampleInterval) {
+        this(true, sampleInterval);
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Invalid sample interval: " + sampleInterval);
+        }
+    }
+
+    /**
+     * Constructs metrics.
+     * @param enabled Whether the metrics measure anything.
+     * @param sampleInterval The mean number of phase visits per timed visit.
+     */
+    private PayrollMetrics(boolean enabled, int sampleInterval) {
+        this.enabled = enabled;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Checks whether the metrics measure anything.
+     * @return false for the DISABLED metrics.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the wall clock of the run.
+     */
+    public void start() {
+        if (enabled) {
+            startTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops the wall clock of the run. Every thread must have left its phases, and the threads that
+     * entered phases must be finished or otherwise synchronized with the caller.
+     */
+    public void finish() {
+        if (enabled) {
+            finishTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Counts processed employee records.
+     * @param count The number of records.
+     */
+    public void addRecords(long count) {
+        if (enabled) {
+            records.add(count);
+        }
+    }
+
+    /**
+     * Reports the hits and misses of the gross pay cache of the run with the metrics.
+     * @param cache The gross pay cache, or null if the run has none.
+     */
+    public void setGrossPayCache(GrossPayCache cache) {
+        if (enabled) {
+            grossPayCache = cache;
+        }
+    }
+
+    /**
+     * Moves the current thread into a phase, timing the visit if it is sampled.
+     * @param phase The phase to enter, or null to leave every phase.
+     * @return The phase the thread was in, or null if it was in none.
+     */
+    public Phase enter(Phase phase) {
+        return enabled ? clock.get().enter(phase, false) : null;
+    }
+
+    /**
+     * Moves the current thread into a phase and always times the visit. Used for phases that are
+     * entered once for a whole batch, which a sample would usually miss.
+     * @param phase The phase to enter.
+     * @return The phase the thread was in, or null if it was in none.
+     */
+    public Phase enterTimed(Phase phase) {
+        return enabled ? clock.get().enter(phase, true) : null;
+    }
+
+    /**
+     * Gets the estimated total time spent in a phase by every thread.
+     * @param phase The phase.
+     * @return The estimated time in nanoseconds.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return merge().nanos[phase.ordinal()];
+    }
+
+    /**
+     * Gets the number of employee records processed.
+     * @return The number of records.
+     */
+    public long getRecords() {
+        return records.sum();
+    }
+
+    /**
+     * Formats the metrics of the run as JSON.
+     * @return The JSON summary.
+     */
+    public String toJSON() {
+        Summary summary = merge();
+        long wallNanos = finishTime - startTime;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"wallNanos\": ").append(wallNanos).append(",\n");
+        json.append("  \"records\": ").append(getRecords()).append(",\n");
+        json.append("  \"recordsPerSecond\": ").append(perSecond(getRecords(), wallNanos)).append(",\n");
+        json.append("  \"allocatedBytes\": ").append(AllocationBean.INSTANCE != null ? summary.totalAllocated() : -1)
+                .append(",\n");
+        json.append("  \"sampleInterval\": ").append(sampleInterval).append(",\n");
+        if (grossPayCache != null) {
+            json.append("  \"grossPayCache\": {\"hits\": ").append(grossPayCache.getHits())
+                    .append(", \"misses\": ").append(grossPayCache.getMisses())
+                    .append(", \"entries\": ").append(grossPayCache.size()).append("},\n");
+        }
+        json.append("  \"phases\": {");
+        for (Phase phase : Phase.values()) {
+            int p = phase.ordinal();
+            LatencyHistogram histogram = summary.histograms[p];
+            json.append(p == 0 ? "\n" : ",\n");
+            json.append("    \"").append(phase.key()).append("\": {");
+            json.append("\"visits\": ").append(summary.visits[p]);
+            json.append(", \"timedVisits\": ").append(histogram.getCount());
+            json.append(", \"nanos\": ").append(summary.nanos[p]);
+            json.append(", \"allocatedBytes\": ").append(AllocationBean.INSTANCE != null ? summary.allocated[p] : -1);
+            json.append(", \"visitsPerSecond\": ").append(perSecond(summary.visits[p], summary.nanos[p]));
+            json.append(", \"latencyNanos\": {");
+            for (double percentile : PERCENTILES) {
+                json.append("\"p").append(String.valueOf(percentile).replace(".0", "").replace('.', '_'))
+                        .append("\": ").append(histogram.getValueAtPercentile(percentile)).append(", ");
+            }
+            json.append("\"max\": ").append(histogram.getMax());
+            json.append(", \"mean\": ").append(Math.round(histogram.getMean())).append("}}");
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON summary of the run to a file.
+     * @param file The file path to write to.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJSON(String file) throws IOException {
+        Files.writeString(Path.of(file), toJSON(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Commits the metrics of the run as JFR events: one event for the run and one per phase.
+     * Nothing is done unless a flight recorder is running and enabled for the events; the event
+     * classes are not even loaded otherwise, since loading one starts the flight recorder.
+     */
+    public void commitEvents() {
+        if (!enabled || !FlightRecorder.isInitialized()) {
+            return;
+        }
+        RunEvent run = new RunEvent();
+        if (run.shouldCommit()) {
+            run.records = getRecords();
+            run.wallTime = finishTime - startTime;
+            run.commit();
+        }
+
+        PhaseEvent event = new PhaseEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        Summary summary = merge();
+        for (Phase phase : Phase.values()) {
+            int p = phase.ordinal();
+            event = new PhaseEvent();
+            event.phase = phase.key();
+            event.visits = summary.visits[p];
+            event.time = summary.nanos[p];
+            event.allocated = summary.allocated[p];
+            event.p50 = summary.histograms[p].getValueAtPercentile(50);
+            event.p99 = summary.histograms[p].getValueAtPercentile(99);
+            event.max = summary.histograms[p].getMax();
+            event.commit();
+        }
+    }
+
+    /**
+     * Creates and registers the clock of the current thread.
+     * @return The clock.
+     */
+    private PhaseClock newClock() {
+        PhaseClock threadClock = new PhaseClock(sampleInterval, Thread.currentThread().getId());
+        synchronized (clocks) {
+            clocks.add(threadClock);
+        }
+        return threadClock;
+    }
+
+    /**
+     * Adds up the clocks of every thread.
+     * @return The summary of every phase.
+     */
+    private Summary merge() {
+        Summary summary = new Summary();
+        synchronized (clocks) {
+            for (PhaseClock threadClock : clocks) {
+                threadClock.addTo(summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Gets the number of events per second.
+     * @param count The number of events.
+     * @param nanos The time they took in nanoseconds.
+     * @return The number of events per second, rounded, or zero if no time was measured.
+     */
+    private static long perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : Math.round(count * 1e9 / nanos);
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     * @return The allocated bytes, or zero if the JVM cannot measure it.
+     */
+    private static long allocatedBytes() {
+        return AllocationBean.INSTANCE != null ? AllocationBean.INSTANCE.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * The holder of the thread bean measuring allocation. The management classes take a while to
+     * load and initialize, so they are only loaded when metrics are enabled and first read it.
+     */
+    private static final class AllocationBean {
+
+        /**
+         * The thread bean measuring allocation, or null if the JVM cannot measure it.
+         */
+        private static final com.sun.management.ThreadMXBean INSTANCE = allocationBean();
+
+        /**
+         * Gets the thread bean of the JVM if it can measure the allocation of threads.
+         * @return The thread bean, or null.
+         */
+        private static com.sun.management.ThreadMXBean allocationBean() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+                if (allocationBean.isThreadAllocatedMemorySupported()
+                        && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The phase counters of one thread. Only the thread itself updates them.
+     */
+    private static final class PhaseClock {
+
+        /**
+         * The mean number of visits per timed visit.
+         */
+        private final int sampleInterval;
+
+        /**
+         * The state of the random generator choosing the sampled visits.
+         */
+        private long seed;
+
+        /**
+         * The number of visits left before the next sampled visit.
+         */
+        private long countdown;
+
+        /**
+         * The phase the thread is in, or null.
+         */
+        private Phase current;
+
+        /**
+         * Whether the current visit is timed.
+         */
+        private boolean timing;
+
+        /**
+         * Whether the current visit is timed because it was entered with enterTimed.
+         */
+        private boolean forced;
+
+        /**
+         * The time the current visit started, if it is timed.
+         */
+        private long visitStart;
+
+        /**
+         * The allocated bytes of the thread when the current visit started, if it is timed.
+         */
+        private long visitAllocated;
+
+        /**
+         * The number of visits of each phase.
+         */
+        private final long[] visits = new long[PHASES];
+
+        /**
+         * The number of visits of each phase entered with enterTimed.
+         */
+        private final long[] forcedVisits = new long[PHASES];
+
+        /**
+         * The time of the visits entered with enterTimed, per phase.
+         */
+        private final long[] forcedNanos = new long[PHASES];
+
+        /**
+         * The allocation of the visits entered with enterTimed, per phase.
+         */
+        private final long[] forcedAllocated = new long[PHASES];
+
+        /**
+         * The number of sampled visits, per phase.
+         */
+        private final long[] sampledVisits = new long[PHASES];
+
+        /**
+         * The time of the sampled visits, per phase.
+         */
+        private final long[] sampledNanos = new long[PHASES];
+
+        /**
+         * The allocation of the sampled visits, per phase.
+         */
+        private final long[] sampledAllocated = new long[PHASES];
+
+        /**
+         * The latency of every timed visit, per phase.
+         */
+        private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES];
+
+        /**
+         * Constructs the clock of a thread.
+         * @param sampleInterval The mean number of visits per timed visit.
+         * @param threadID The ID of the thread, seeding the random generator.
+         */
+        private PhaseClock(int sampleInterval, long threadID) {
+            this.sampleInterval = sampleInterval;
+            this.seed = threadID * 0x9E3779B97F4A7C15L + 1;
+            for (int p = 0; p < PHASES; p++) {
+                histograms[p] = new LatencyHistogram();
+            }
+            this.countdown = nextGap();
+        }
+
+        /**
+         * Ends the current visit and starts a visit of another phase.
+         * @param phase The phase to enter, or null to leave every phase.
+         * @param force Whether to time the new visit whether it is sampled or not.
+         * @return The phase the thread was in.
+         */
+        private Phase enter(Phase phase, boolean force) {
+            Phase previous = current;
+            boolean timeNext = phase != null && (force || --countdown <= 0);
+            long now = 0;
+            long allocated = 0;
+            if (timing || timeNext) {
+                now = System.nanoTime();
+                allocated = allocatedBytes();
+            }
+
+            if (previous != null) {
+                int p = previous.ordinal();
+                visits[p]++;
+                if (timing) {
+                    long nanos = now - visitStart;
+                    histograms[p].record(nanos);
+                    if (forced) {
+                        forcedVisits[p]++;
+                        forcedNanos[p] += nanos;
+                        forcedAllocated[p] += allocated - visitAllocated;
+                    } else {
+                        sampledVisits[p]++;
+                        sampledNanos[p] += nanos;
+                        sampledAllocated[p] += allocated - visitAllocated;
+                    }
+                }
+            }
+
+            current = phase;
+            timing = timeNext;
+            if (timeNext) {
+                forced = force;
+                visitStart = now;
+                visitAllocated = allocated;
+                if (!force) {
+                    countdown = nextGap();
+                }
+            }
+            return previous;
+        }
+
+        /**
+         * Draws the number of visits to the next sampled visit, uniformly between 1 and twice the
+         * sample interval minus 1, so the sampled visits do not follow the order of the phases.
+         * @return The number of visits.
+         */
+        private long nextGap() {
+            if (sampleInterval == 1) {
+                return 1;
+            }
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return 1 + Math.floorMod(seed, 2L * sampleInterval - 1);
+        }
+
+        /**
+         * Adds the estimated totals of this thread to a summary. The visits that were not entered
+         * with enterTimed are estimated from their sampled visits.
+         * @param summary The summary.
+         */
+        private void addTo(Summary summary) {
+            for (int p = 0; p < PHASES; p++) {
+                long sampledCount = visits[p] - forcedVisits[p];
+                double scale = sampledVisits[p] == 0 ? 0 : (double) sampledCount / sampledVisits[p];
+                summary.visits[p] += visits[p];
+                summary.nanos[p] += forcedNanos[p] + Math.round(sampledNanos[p] * scale);
+                summary.allocated[p] += forcedAllocated[p] + Math.round(sampledAllocated[p] * scale);
+                summary.histograms[p].add(histograms[p]);
+            }
+        }
+    }
+
+    /**
+     * The estimated totals of every thread, per phase.
+     */
+    private static final class Summary {
+
+        /**
+         * The number of visits of each phase.
+         */
+        private final long[] visits = new long[PHASES];
+
+        /**
+         * The estimated time of each phase in nanoseconds.
+         */
+        private final long[] nanos = new long[PHASES];
+
+        /**
+         * The estimated allocation of each phase in bytes.
+         */
+        private final long[] allocated = new long[PHASES];
+
+        /**
+         * The latency of the timed visits of each phase.
+         */
+        private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES];
+
+        /**
+         * Constructs an empty summary.
+         */
+        private Summary() {
+            for (int p = 0; p < PHASES; p++) {
+                histograms[p] = new LatencyHistogram();
+            }
+        }
+
+        /**
+         * Gets the estimated allocation of every phase.
+         * @return The allocated bytes.
+         */
+        private long totalAllocated() {
+            long total = 0;
+            for (long bytes : allocated) {
+                total += bytes;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * The JFR event of a payroll run.
+     */
+    @Name("student.PayrollRun")
+    @Label("Payroll Run")
+    @Category("Payroll")
+    @Description("The records and wall time of a payroll run")
+    static final class RunEvent extends Event {
+
+        /**
+         * The number of employee records processed.
+         */
+        @Label("Records")
+        long records;
+
+        /**
+         * The wall time of the run.
+         */
+        @Label("Wall Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long wallTime;
+    }
+
+    /**
+     * The JFR event of one phase of a payroll run.
+     */
+    @Name("student.PayrollPhase")
+    @Label("Payroll Phase")
+    @Category("Payroll")
+    @Description("The estimated time, allocation and latency of a phase of a payroll run")
+    static final class PhaseEvent extends Event {
+
+        /**
+         * The name of the phase.
+         */
+        @Label("Phase")
+        String phase;
+
+        /**
+         * The number of visits of the phase.
+         */
+        @Label("Visits")
+        long visits;
+
+        /**
+         * The estimated time of the phase.
+         */
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+
+        /**
+         * The estimated allocation of the phase.
+         */
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        /**
+         * The median latency of a visit.
+         */
+        @Label("Median Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+
+        /**
+         * The 99th percentile latency of a visit.
+         */
+        @Label("99th Percentile Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+
+        /**
+         * The largest latency of a visit.
+         */
+        @Label("Max Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long max;
+    }
+}
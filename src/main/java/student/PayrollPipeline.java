@@ -0,0 +1,362 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The PayrollPipeline class runs the payroll of a roster as a pipeline of stages on their own
+ * threads, so reading, parsing, computing and writing overlap and the run takes about as long as
+ * its slowest stage instead of the sum of all of them:
+ * <ol>
+ * <li>a reader thread reads the employee lines into batches,</li>
+ * <li>parser workers build the employees of a batch,</li>
+ * <li>compute workers process the payroll of the employees of a batch,</li>
+ * <li>the calling thread hands the employees to the output, one batch at a time in input order.</li>
+ * </ol>
+ * The stages are connected by bounded queues, so a stage that gets ahead blocks until the next one
+ * catches up, and the number of batches between the reader and the output is capped so that
+ * batches finished out of order cannot pile up while the output waits for an earlier one.
+ * Memory use is therefore bounded whatever the size of the roster.
+ * The first exception thrown by a stage stops the pipeline and is thrown by run.
+ */
+public class PayrollPipeline {
+
+    /**
+     * The default number of employees per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    /**
+     * The default number of batches each queue holds.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    /**
+     * The number of parser worker threads.
+     */
+    private final int parserThreads;
+
+    /**
+     * The number of compute worker threads.
+     */
+    private final int computeThreads;
+
+    /**
+     * The number of employees per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The number of batches each queue holds.
+     */
+    private final int queueCapacity;
+
+    /**
+     * Constructs a PayrollPipeline with the default batch size and queue capacity.
+     * @param parserThreads The number of parser worker threads.
+     * @param computeThreads The number of compute worker threads.
+     */
+    public PayrollPipeline(int parserThreads, int computeThreads) {
+        this(parserThreads, computeThreads, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a PayrollPipeline.
+     * @param parserThreads The number of parser worker threads.
+     * @param computeThreads The number of compute worker threads.
+     * @param batchSize The number of employees per batch.
+     * @param queueCapacity The number of batches each queue holds.
+     * @throws IllegalArgumentException if any value is less than 1.
+     */
+    public PayrollPipeline(int parserThreads, int computeThreads, int batchSize, int queueCapacity) {
+        if (parserThreads < 1 || computeThreads < 1 || batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads, batch size and queue capacity must be positive");
+        }
+        this.parserThreads = parserThreads;
+        this.computeThreads = computeThreads;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Runs the payroll of every employee line and returns once every employee is output.
+     * The parser and the payroll are called on worker threads, concurrently for different
+     * employees; the output is called on the calling thread.
+     * @param lines The employee lines, read on the reader thread.
+     * @param parser The function that builds an employee from its line.
+     * @param payroll The action that processes the payroll of an employee.
+     * @param output The action to call for every employee, in line order, once its payroll is processed.
+     * @throws RuntimeException the first exception thrown by a stage.
+     * @throws Error the first error thrown by a stage.
+     */
+    public void run(Iterator<String> lines, Function<String, IEmployee> parser, Consumer<IEmployee> payroll,
+                    Consumer<IEmployee> output) {
+        Run run = new Run();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> run.read(lines), "payroll-reader"));
+        for (int i = 0; i < parserThreads; i++) {
+            threads.add(new Thread(() -> run.parse(parser), "payroll-parser-" + i));
+        }
+        for (int i = 0; i < computeThreads; i++) {
+            threads.add(new Thread(() -> run.compute(payroll), "payroll-compute-" + i));
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Throwable failure = null;
+        try {
+            run.write(output);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new IllegalStateException("Payroll pipeline interrupted", e);
+        }
+
+        // Stop the stages that are still running after a failure, and wait for every stage to end
+        for (Thread thread : threads) {
+            if (failure != null) {
+                thread.interrupt();
+            }
+        }
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * A batch of consecutive employees moving through the pipeline.
+     */
+    private static final class Batch {
+
+        /**
+         * The marker batch sent after the last batch.
+         */
+        private static final Batch END = new Batch(-1, 0);
+
+        /**
+         * The position of the batch in the input.
+         */
+        private final long sequence;
+
+        /**
+         * The employee lines of the batch.
+         */
+        private final String[] lines;
+
+        /**
+         * The employees built from the lines.
+         */
+        private final IEmployee[] employees;
+
+        /**
+         * The number of employees in the batch.
+         */
+        private int size;
+
+        /**
+         * The exception thrown by the stage that failed, or null for a batch of employees.
+         */
+        private Throwable failure;
+
+        /**
+         * Constructs an empty batch.
+         * @param sequence The position of the batch in the input.
+         * @param capacity The number of employees the batch holds.
+         */
+        private Batch(long sequence, int capacity) {
+            this.sequence = sequence;
+            this.lines = new String[capacity];
+            this.employees = new IEmployee[capacity];
+        }
+
+        /**
+         * Constructs the batch reporting the failure of a stage.
+         * @param failure The exception thrown by the stage.
+         * @return The failure batch.
+         */
+        private static Batch failed(Throwable failure) {
+            Batch batch = new Batch(-1, 0);
+            batch.failure = failure;
+            return batch;
+        }
+    }
+
+    /**
+     * The queues and counters of one run of the pipeline.
+     */
+    private final class Run {
+
+        /**
+         * The batches of lines waiting to be parsed.
+         */
+        private final BlockingQueue<Batch> toParse = new ArrayBlockingQueue<>(queueCapacity);
+
+        /**
+         * The batches of employees waiting for their payroll.
+         */
+        private final BlockingQueue<Batch> toCompute = new ArrayBlockingQueue<>(queueCapacity);
+
+        /**
+         * The batches of paid employees waiting for the output, in any order.
+         */
+        private final BlockingQueue<Batch> toWrite = new ArrayBlockingQueue<>(queueCapacity);
+
+        /**
+         * The permits of the batches that may be between the reader and the output. There are
+         * enough for every queue to be full and every worker busy, so the queues never wait on
+         * the permits, but no more, so the output never holds more than that out of order.
+         */
+        private final Semaphore inFlight = new Semaphore(3 * queueCapacity + parserThreads + computeThreads);
+
+        /**
+         * The number of parser workers that have not seen the end of the input yet.
+         */
+        private final AtomicInteger parsersLeft = new AtomicInteger(parserThreads);
+
+        /**
+         * The number of compute workers that have not seen the end of the input yet.
+         */
+        private final AtomicInteger computersLeft = new AtomicInteger(computeThreads);
+
+        /**
+         * Reads the lines into batches and sends them to the parser workers.
+         * @param lines The employee lines.
+         */
+        private void read(Iterator<String> lines) {
+            try {
+                long sequence = 0;
+                while (lines.hasNext()) {
+                    inFlight.acquire();
+                    Batch batch = new Batch(sequence++, batchSize);
+                    while (batch.size < batchSize && lines.hasNext()) {
+                        batch.lines[batch.size++] = lines.next();
+                    }
+                    toParse.put(batch);
+                }
+                for (int i = 0; i < parserThreads; i++) {
+                    toParse.put(Batch.END);
+                }
+            } catch (InterruptedException e) {
+                // The pipeline is stopping after a failure
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Builds the employees of each batch and sends them to the compute workers.
+         * @param parser The function that builds an employee from its line.
+         */
+        private void parse(Function<String, IEmployee> parser) {
+            try {
+                for (Batch batch = toParse.take(); batch != Batch.END; batch = toParse.take()) {
+                    for (int i = 0; i < batch.size; i++) {
+                        batch.employees[i] = parser.apply(batch.lines[i]);
+                        batch.lines[i] = null;
+                    }
+                    toCompute.put(batch);
+                }
+                // The last parser to finish tells every compute worker that the input has ended
+                if (parsersLeft.decrementAndGet() == 0) {
+                    for (int i = 0; i < computeThreads; i++) {
+                        toCompute.put(Batch.END);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The pipeline is stopping after a failure
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Processes the payroll of the employees of each batch and sends them to the output.
+         * @param payroll The action that processes the payroll of an employee.
+         */
+        private void compute(Consumer<IEmployee> payroll) {
+            try {
+                for (Batch batch = toCompute.take(); batch != Batch.END; batch = toCompute.take()) {
+                    for (int i = 0; i < batch.size; i++) {
+                        payroll.accept(batch.employees[i]);
+                    }
+                    toWrite.put(batch);
+                }
+                if (computersLeft.decrementAndGet() == 0) {
+                    toWrite.put(Batch.END);
+                }
+            } catch (InterruptedException e) {
+                // The pipeline is stopping after a failure
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Hands the employees of each batch to the output in input order, holding the batches
+         * that arrive early until the batches before them are output.
+         * @param output The action to call for every employee.
+         * @throws InterruptedException if the calling thread is interrupted.
+         * @throws RuntimeException the first exception thrown by a stage.
+         * @throws Error the first error thrown by a stage.
+         */
+        private void write(Consumer<IEmployee> output) throws InterruptedException {
+            Map<Long, Batch> early = new HashMap<>();
+            long next = 0;
+            for (Batch batch = toWrite.take(); batch != Batch.END; batch = toWrite.take()) {
+                if (batch.failure instanceof RuntimeException) {
+                    throw (RuntimeException) batch.failure;
+                } else if (batch.failure instanceof Error) {
+                    throw (Error) batch.failure;
+                }
+                early.put(batch.sequence, batch);
+                for (Batch ready = early.remove(next); ready != null; ready = early.remove(next)) {
+                    for (int i = 0; i < ready.size; i++) {
+                        output.accept(ready.employees[i]);
+                    }
+                    next++;
+                    inFlight.release();
+                }
+            }
+        }
+
+        /**
+         * Reports the failure of a stage to the output, which stops the pipeline.
+         * @param failure The exception thrown by the stage.
+         */
+        private void fail(Throwable failure) {
+            try {
+                toWrite.put(Batch.failed(failure));
+            } catch (InterruptedException e) {
+                // The pipeline is already stopping after another failure
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package student;
+
+/**
+ * The PayrollResult class holds the result of one payroll computation for an employee: gross pay,
+ * taxable pay, taxes, net pay and the new year-to-date totals, all in cents. It is immutable, so the
+ * same result can be shared by the pay stub and the year-to-date update of the employee.
+ */
+public final class PayrollResult {
+
+    /**
+     * The gross pay.
+     */
+    private final long grossPay;
+
+    /**
+     * The gross pay minus the pre-tax deductions.
+     */
+    private final long taxablePay;
+
+    /**
+     * The taxes on the taxable pay.
+     */
+    private final long taxes;
+
+    /**
+     * The taxable pay minus the taxes.
+     */
+    private final long netPay;
+
+    /**
+     * The year-to-date earnings including the net pay.
+     */
+    private final long ytdEarnings;
+
+    /**
+     * The year-to-date taxes paid including the taxes.
+     */
+    private final long ytdTaxesPaid;
+
+    /**
+     * Constructs a PayrollResult with the specified payroll details.
+     * @param grossPay The gross pay in cents.
+     * @param taxablePay The gross pay minus the pre-tax deductions in cents.
+     * @param taxes The taxes on the taxable pay in cents.
+     * @param netPay The taxable pay minus the taxes in cents.
+     * @param ytdEarnings The year-to-date earnings including the net pay in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid including the taxes in cents.
+     */
+    public PayrollResult(long grossPay, long taxablePay, long taxes, long netPay,
+                         long ytdEarnings, long ytdTaxesPaid) {
+        this.grossPay = grossPay;
+        this.taxablePay = taxablePay;
+        this.taxes = taxes;
+        this.netPay = netPay;
+        this.ytdEarnings = ytdEarnings;
+        this.ytdTaxesPaid = ytdTaxesPaid;
+    }
+
+    /**
+     * Gets the gross pay.
+     * @return The gross pay in cents.
+     */
+    public long getGrossPay() {
+        return grossPay;
+    }
+
+    /**
+     * Gets the gross pay minus the pre-tax deductions.
+     * @return The taxable pay in cents.
+     */
+    public long getTaxablePay() {
+        return taxablePay;
+    }
+
+    /**
+     * Gets the taxes on the taxable pay.
+     * @return The taxes in cents.
+     */
+    public long getTaxes() {
+        return taxes;
+    }
+
+    /**
+     * Gets the taxable pay minus the taxes.
+     * @return The net pay in cents.
+     */
+    public long getNetPay() {
+        return netPay;
+    }
+
+    /**
+     * Gets the year-to-date earnings including the net pay.
+     * @return The new year-to-date earnings in cents.
+     */
+    public long getYtdEarnings() {
+        return ytdEarnings;
+    }
+
+    /**
+     * Gets the year-to-date taxes paid including the taxes.
+     * @return The new year-to-date taxes paid in cents.
+     */
+    public long getYtdTaxesPaid() {
+        return ytdTaxesPaid;
+    }
+}
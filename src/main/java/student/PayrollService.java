@@ -0,0 +1,409 @@
+package student;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PayrollService class keeps a roster in memory and runs payroll jobs against it, so a small
+ * off-cycle payroll costs a lookup per time card instead of a JVM start and a pass over the whole
+ * employee file. A job is a time card batch in the format of the time card file; its result is
+ * the pay stubs of the paid employees in the format of the pay stub file, in roster order.
+ * <p>
+ * Jobs are posted to {@code /payroll} over HTTP on the loopback interface and run one at a time.
+ * The changed employee records of each job are appended to the EmployeeDeltaLog of the employee
+ * file and forced to disk before its pay stubs are returned, and the log is compacted into the
+ * employee file after every compaction interval jobs, exactly as by incremental runs; a job whose
+ * batch was already applied, by the service or by an incremental run, is refused.
+ * On start, the roster is read from the employee file with the records in the delta log applied.
+ * Each job holds the EmployeeFileLock of the employee file, so PayrollGenerator runs do not start
+ * while it runs, and reloads the roster first if such a run changed the employee file or its
+ * delta log since the last job.
+ * <p>
+ * On a JVM with CRaC, a warm service can be checkpointed and restored through CheckpointSupport:
+ * it stops listening before the checkpoint, and after the restore it reloads the roster if the
+ * employee file or its delta log changed in the meantime and listens on the same port again.
+ */
+public class PayrollService implements Closeable {
+
+    /**
+     * The path jobs are posted to.
+     */
+    public static final String PAYROLL_PATH = "/payroll";
+
+    /**
+     * The name recorded in the delta log as the time card file of a job.
+     */
+    private static final String JOB_SOURCE = "payroll_service";
+
+    /**
+     * The employees of the roster, in employee file order.
+     */
+    private final List<Employee> roster = new ArrayList<>();
+
+    /**
+     * The position of each employee in the roster, by employee ID.
+     */
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    /**
+     * The employee file.
+     */
+    private final String employeeFile;
+
+    /**
+     * The delta log the changed records of each job are appended to.
+     */
+    private EmployeeDeltaLog deltaLog;
+
+    /**
+     * The sizes and modification times of the employee file and its delta log when the roster
+     * was last in step with them.
+     */
+    private String fileState;
+
+    /**
+     * The tax engine calculating the taxes.
+     */
+    private final TaxEngine taxEngine;
+
+    /**
+     * The cache of gross pay calculations, or null to calculate the gross pay of every employee.
+     */
+    private final GrossPayCache grossPayCache;
+
+    /**
+     * The policy used when an employee has more than one time card in a job.
+     */
+    private final DuplicatePolicy duplicatePolicy;
+
+    /**
+     * The number of jobs kept in the delta log before it is compacted.
+     */
+    private final int compactionInterval;
+
+    /**
+     * The lock of the server, separate from the lock of the jobs so that closing the service does
+     * not wait for the job that is running while holding the server.
+     */
+    private final Object serverLock = new Object();
+
+    /**
+     * The HTTP server, or null until the service is started.
+     */
+    private HttpServer server;
+
+    /**
+     * The port the service listens on, or -1 until it is started.
+     */
+    private int port = -1;
+
+    /**
+     * The resource registered with CRaC, kept so that it is not collected, or null without CRaC.
+     */
+    private final Object checkpointResource;
+
+    /**
+     * Constructs a PayrollService and loads its roster.
+     * @param employeeFile The employee CSV file.
+     * @param taxEngine The tax engine calculating the taxes.
+     * @param grossPayCache The cache of gross pay calculations, or null for none.
+     * @param duplicatePolicy The policy used when an employee has more than one time card in a job.
+     * @param compactionInterval The number of jobs kept in the delta log before it is compacted.
+     * @throws IOException if the employee file or its delta log cannot be read.
+     */
+    public PayrollService(String employeeFile, TaxEngine taxEngine, GrossPayCache grossPayCache,
+                          DuplicatePolicy duplicatePolicy, int compactionInterval) throws IOException {
+        this.employeeFile = employeeFile;
+        this.taxEngine = taxEngine;
+        this.grossPayCache = grossPayCache;
+        this.duplicatePolicy = duplicatePolicy;
+        this.compactionInterval = compactionInterval;
+        load();
+        this.checkpointResource = CheckpointSupport.register(this::beforeCheckpoint, this::afterRestore);
+    }
+
+    /**
+     * Reads the roster from the employee file with the records in the delta log applied.
+     * @throws IOException if the employee file or its delta log cannot be read.
+     */
+    private void load() throws IOException {
+        // Read into new collections, so the roster is left as it was if the files cannot be read
+        String state = fileState();
+        EmployeeDeltaLog log = EmployeeDeltaLog.open(employeeFile);
+        List<Employee> employees = new ArrayList<>();
+        Map<String, Integer> employeePositions = new HashMap<>();
+        try (CsvRecordReader<String> lines = FileUtil.readRecords(employeeFile, line -> line)) {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                String latest = log.get(EmployeeDeltaLog.recordID(line));
+                Employee employee = (Employee) Builder.buildEmployeeFromCSV(latest != null ? latest : line);
+                employeePositions.put(employee.getID(), employees.size());
+                employees.add(employee);
+            }
+        }
+        roster.clear();
+        roster.addAll(employees);
+        positions.clear();
+        positions.putAll(employeePositions);
+        deltaLog = log;
+        fileState = state;
+    }
+
+    /**
+     * Gets the sizes and modification times of the employee file and its delta log.
+     * @return The state of the files.
+     * @throws IOException if a file cannot be read.
+     */
+    private String fileState() throws IOException {
+        StringBuilder state = new StringBuilder();
+        for (Path file : List.of(Path.of(employeeFile), Path.of(employeeFile + EmployeeDeltaLog.DELTA_SUFFIX))) {
+            if (Files.exists(file)) {
+                state.append(Files.size(file)).append('@').append(Files.getLastModifiedTime(file));
+            }
+            state.append(';');
+        }
+        return state.toString();
+    }
+
+    /**
+     * Gets the number of employees in the roster.
+     * @return The number of employees.
+     */
+    public int size() {
+        return roster.size();
+    }
+
+    /**
+     * Starts serving jobs over HTTP on the loopback interface.
+     * @param port The port, or 0 for any free port.
+     * @return The port the service listens on.
+     * @throws IOException if the port cannot be bound.
+     * @throws IllegalStateException if the service is already started.
+     */
+    public int start(int port) throws IOException {
+        synchronized (serverLock) {
+            if (server != null) {
+                throw new IllegalStateException("Payroll service already started");
+            }
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext(PAYROLL_PATH, this::handle);
+            server.start();
+            this.port = server.getAddress().getPort();
+            return this.port;
+        }
+    }
+
+    /**
+     * Stops serving jobs. An exchange in progress is given a second to finish, but a job that is
+     * running is not waited for; to let it finish, close the service while holding its lock, which
+     * every job holds while it runs.
+     */
+    @Override
+    public void close() {
+        synchronized (serverLock) {
+            if (server != null) {
+                server.stop(1);
+                server = null;
+            }
+        }
+    }
+
+    /**
+     * Stops listening before a checkpoint, as an open socket cannot be saved, once the job that is
+     * running is done.
+     */
+    private void beforeCheckpoint() {
+        synchronized (this) {
+            close();
+        }
+    }
+
+    /**
+     * Reloads the roster after a restore if its files changed since the checkpoint, and listens
+     * on the same port again if the service was started.
+     * @throws UncheckedIOException if the roster cannot be reloaded or the port cannot be bound.
+     */
+    private void afterRestore() {
+        try {
+            synchronized (this) {
+                if (!fileState().equals(fileState)) {
+                    load();
+                }
+            }
+            if (port >= 0) {
+                start(port);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs a payroll job. Time cards of employees that are not in the roster are ignored.
+     * @param timeCards The time card batch, with a header line like the time card file.
+     * @return The pay stubs of the paid employees, with a header line like the pay stub file.
+     * @throws IOException if the employee file cannot be locked or reloaded, or the delta log cannot
+     *                     be written; the roster is then left as it was.
+     * @throws IllegalArgumentException if a time card is invalid, or rejected by the duplicate policy.
+     * @throws IllegalStateException if the batch was already applied.
+     */
+    public synchronized String runJob(byte[] timeCards) throws IOException {
+        EmployeeFileLock lock = EmployeeFileLock.acquire(employeeFile);
+        try {
+            // A PayrollGenerator run may have changed the files since the last job
+            if (fileState == null || !fileState().equals(fileState)) {
+                load();
+            }
+            return pay(timeCards);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Pays the employees of a job against a roster that is in step with its files.
+     * @param timeCards The time card batch, with a header line like the time card file.
+     * @return The pay stubs of the paid employees, with a header line like the pay stub file.
+     * @throws IOException if the delta log cannot be written; the roster is then left as it was.
+     * @throws IllegalArgumentException if a time card is invalid, or rejected by the duplicate policy.
+     * @throws IllegalStateException if the batch was already applied.
+     */
+    private String pay(byte[] timeCards) throws IOException {
+        String batchID = EmployeeDeltaLog.batchID(timeCards);
+        if (deltaLog.isApplied(batchID)) {
+            throw new IllegalStateException("Time card batch already applied: " + batchID);
+        }
+
+        // Find the employees of the batch and pay them in roster order, as an incremental run would
+        TimeCardIndex timeCardIndex = new TimeCardIndex(duplicatePolicy);
+        List<Integer> paid = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(timeCards),
+                StandardCharsets.UTF_8))) {
+            // Skip the header line
+            lines.readLine();
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ITimeCard timeCard = Builder.buildTimeCardFromCSV(line);
+                Integer position = positions.get(timeCard.getEmployeeID());
+                if (position != null && timeCardIndex.get(timeCard.getEmployeeID()) == null) {
+                    paid.add(position);
+                }
+                timeCardIndex.add(timeCard);
+            }
+        }
+        paid.sort(null);
+
+        List<String> previous = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        StringBuilder payStubs = new StringBuilder(FileUtil.PAY_STUB_HEADER).append('\n');
+        CsvRecordWriter record = new CsvRecordWriter();
+        try {
+            for (int position : paid) {
+                Employee employee = roster.get(position);
+                double hoursWorked = timeCardIndex.get(employee.getID()).getHoursWorked();
+                if (hoursWorked < 0) {
+                    continue;
+                }
+                previous.add(employee.writeCSV(record).toString());
+                if (grossPayCache != null) {
+                    employee.processPayroll(hoursWorked, taxEngine, grossPayCache);
+                } else {
+                    employee.processPayroll(hoursWorked, taxEngine);
+                }
+                if (employee.getPayStub() != null) {
+                    payStubs.append(employee.getPayStub().writeCSV(record)).append('\n');
+                    changed.add(employee.writeCSV(record).toString());
+                }
+            }
+            deltaLog.append(batchID, JOB_SOURCE, changed);
+        } catch (IOException | RuntimeException e) {
+            // The job did not happen: put the employees back as they were before it
+            for (String employee : previous) {
+                roster.set(positions.get(EmployeeDeltaLog.recordID(employee)),
+                        (Employee) Builder.buildEmployeeFromCSV(employee));
+            }
+            throw e;
+        }
+        if (deltaLog.getPendingBatches() >= compactionInterval) {
+            try {
+                deltaLog.compact();
+            } catch (IOException e) {
+                // The job is already durable in the delta log, which is compacted again after the next job
+                System.err.println("Error compacting delta log: " + e.getMessage());
+            }
+        }
+        try {
+            fileState = fileState();
+        } catch (IOException e) {
+            // The roster is then reloaded before the next job, which is always safe
+            fileState = null;
+        }
+        return payStubs.toString();
+    }
+
+    /**
+     * Handles an HTTP request: a POST of a time card batch is answered with its pay stubs.
+     * @param exchange The HTTP exchange.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Time card batches must be posted to " + PAYROLL_PATH + "\n");
+                return;
+            }
+            byte[] timeCards;
+            try (InputStream body = exchange.getRequestBody()) {
+                timeCards = body.readAllBytes();
+            }
+            try {
+                respond(exchange, 200, runJob(timeCards));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "Invalid time card batch: " + e.getMessage() + "\n");
+            } catch (IllegalStateException e) {
+                respond(exchange, 409, e.getMessage() + "\n");
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error running payroll job: " + e.getMessage());
+                respond(exchange, 500, "Error running payroll job: " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Sends the response of an HTTP request.
+     * @param exchange The HTTP exchange.
+     * @param status The HTTP status code.
+     * @param body The body of the response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                status == 200 ? "text/csv; charset=utf-8" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package student;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The RosterColumns class holds a roster as parallel arrays, one per field, instead of one object
+ * per employee. The money columns are long cents and the type is one byte per employee, so a batch
+ * computation over the roster reads each column sequentially. BatchPayroll computes the payroll of
+ * the whole roster on these columns and stores the net pay and taxes of each employee in two more
+ * columns.
+ */
+public class RosterColumns {
+
+    /**
+     * The type byte of hourly employees.
+     */
+    public static final byte HOURLY = 0;
+
+    /**
+     * The type byte of salary employees.
+     */
+    public static final byte SALARY = 1;
+
+    /**
+     * The initial capacity of the columns.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The number of employees.
+     */
+    private int size;
+
+    /**
+     * The type of each employee.
+     */
+    byte[] types;
+
+    /**
+     * The name of each employee.
+     */
+    String[] names;
+
+    /**
+     * The ID of each employee.
+     */
+    String[] ids;
+
+    /**
+     * The pay rate of each employee in cents.
+     */
+    long[] payRates;
+
+    /**
+     * The pre-tax deductions of each employee in cents.
+     */
+    long[] pretaxDeductions;
+
+    /**
+     * The year-to-date earnings of each employee in cents.
+     */
+    long[] ytdEarnings;
+
+    /**
+     * The year-to-date taxes paid of each employee in cents.
+     */
+    long[] ytdTaxesPaid;
+
+    /**
+     * The net pay of each employee in the last batch, in cents.
+     */
+    long[] netPay;
+
+    /**
+     * The taxes of each employee in the last batch, in cents.
+     */
+    long[] taxes;
+
+    /**
+     * Whether each employee was paid in the last batch.
+     */
+    boolean[] paid;
+
+    /**
+     * Constructs an empty roster.
+     */
+    public RosterColumns() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Loads a roster from employees.
+     * @param employees The employees, in roster order.
+     * @return The roster.
+     */
+    public static RosterColumns load(Iterator<? extends IEmployee> employees) {
+        RosterColumns roster = new RosterColumns();
+        employees.forEachRemaining(roster::add);
+        return roster;
+    }
+
+    /**
+     * Adds an employee at the end of the roster.
+     * @param employee The employee to add.
+     */
+    public void add(IEmployee employee) {
+        Employee emp = (Employee) employee;
+        if (size == types.length) {
+            allocate(2 * size);
+        }
+        types[size] = emp instanceof HourlyEmployee ? HOURLY : SALARY;
+        names[size] = emp.getName();
+        ids[size] = emp.getID();
+        payRates[size] = emp.getPayRateCents();
+        pretaxDeductions[size] = emp.getPretaxDeductionsCents();
+        ytdEarnings[size] = emp.getYTDEarningsCents();
+        ytdTaxesPaid[size] = emp.getYTDTaxesPaidCents();
+        size++;
+    }
+
+    /**
+     * Gets the number of employees.
+     * @return The number of employees.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the ID of an employee.
+     * @param index The index of the employee.
+     * @return The employee ID.
+     */
+    public String getID(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the year-to-date earnings of an employee.
+     * @param index The index of the employee.
+     * @return The year-to-date earnings in cents.
+     */
+    public long getYTDEarningsCents(int index) {
+        return ytdEarnings[index];
+    }
+
+    /**
+     * Gets the year-to-date taxes paid of an employee.
+     * @param index The index of the employee.
+     * @return The year-to-date taxes paid in cents.
+     */
+    public long getYTDTaxesPaidCents(int index) {
+        return ytdTaxesPaid[index];
+    }
+
+    /**
+     * Gets the net pay of an employee in the last batch.
+     * @param index The index of the employee.
+     * @return The net pay in cents.
+     */
+    public long getNetPayCents(int index) {
+        return netPay[index];
+    }
+
+    /**
+     * Gets the taxes of an employee in the last batch.
+     * @param index The index of the employee.
+     * @return The taxes in cents.
+     */
+    public long getTaxesCents(int index) {
+        return taxes[index];
+    }
+
+    /**
+     * Checks whether an employee was paid in the last batch.
+     * @param index The index of the employee.
+     * @return true if the employee was paid.
+     */
+    public boolean isPaid(int index) {
+        return paid[index];
+    }
+
+    /**
+     * Gets the hours worked by each employee from a time card index.
+     * @param timeCards The time card index.
+     * @return The hours worked by each employee, NaN for employees without a time card.
+     */
+    public double[] hoursWorked(TimeCardIndex timeCards) {
+        double[] hours = new double[size];
+        for (int i = 0; i < size; i++) {
+            ITimeCard timeCard = timeCards.get(ids[i]);
+            hours[i] = timeCard != null ? timeCard.getHoursWorked() : Double.NaN;
+        }
+        return hours;
+    }
+
+    /**
+     * Writes an employee as a new CSV record, with the same fields as Employee.writeCSV.
+     * @param index The index of the employee.
+     * @param record The record writer to write to; its current record is replaced.
+     * @return The record writer.
+     */
+    public CsvRecordWriter writeEmployeeCSV(int index, CsvRecordWriter record) {
+        return record.reset()
+                .text(types[index] == HOURLY ? HourlyEmployee.TYPE : SalaryEmployee.TYPE)
+                .text(names[index])
+                .text(ids[index])
+                .money(payRates[index], 1)
+                .money(pretaxDeductions[index], 1)
+                .money(ytdEarnings[index])
+                .money(ytdTaxesPaid[index]);
+    }
+
+    /**
+     * Writes the pay stub of an employee in the last batch as a new CSV record, with the same
+     * fields as PayStub.writeCSV.
+     * @param index The index of the employee.
+     * @param record The record writer to write to; its current record is replaced.
+     * @return The record writer.
+     */
+    public CsvRecordWriter writePayStubCSV(int index, CsvRecordWriter record) {
+        return record.reset()
+                .text(names[index])
+                .money(netPay[index])
+                .money(taxes[index])
+                .money(ytdEarnings[index])
+                .money(ytdTaxesPaid[index]);
+    }
+
+    /**
+     * Grows every column to a new capacity.
+     * @param capacity The new capacity.
+     */
+    private void allocate(int capacity) {
+        if (types == null) {
+            types = new byte[capacity];
+            names = new String[capacity];
+            ids = new String[capacity];
+            payRates = new long[capacity];
+            pretaxDeductions = new long[capacity];
+            ytdEarnings = new long[capacity];
+            ytdTaxesPaid = new long[capacity];
+            return;
+        }
+        types = Arrays.copyOf(types, capacity);
+        names = Arrays.copyOf(names, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        payRates = Arrays.copyOf(payRates, capacity);
+        pretaxDeductions = Arrays.copyOf(pretaxDeductions, capacity);
+        ytdEarnings = Arrays.copyOf(ytdEarnings, capacity);
+        ytdTaxesPaid = Arrays.copyOf(ytdTaxesPaid, capacity);
+    }
+}
@@ -1,14 +1,21 @@
 package student;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 /**
  * The SalaryEmployee class represents an employee who is paid a fixed salary.
  * It extends the Employee class and provides an implementation for calculating gross pay.
  */
 public class SalaryEmployee extends Employee {
 
+    /**
+     * The type of all salary employees.
+     */
+    public static final String TYPE = "SALARY";
+
+    /**
+     * The number of pay periods per year.
+     */
+    static final long PAY_PERIODS = 24;
+
     /**
      * Constructs an SalaryEmployee object with the specified details.
      * @param name The name of the employee.
@@ -20,23 +27,58 @@ public class SalaryEmployee extends Employee {
      */
     public SalaryEmployee(String name, String id, double payRate, double ytdEarnings,
                           double ytdTaxesPaid, double pretaxDeductions) {
-        super("SALARY", name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+        super(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+    }
+
+    /**
+     * Constructs an SalaryEmployee object with the specified details in cents.
+     * @param name The name of the employee.
+     * @param id The ID of the employee.
+     * @param payRate The annual salary of the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @param pretaxDeductions The pre-tax deductions of the employee in cents.
+     */
+    private SalaryEmployee(String name, String id, long payRate, long ytdEarnings, long ytdTaxesPaid,
+                           long pretaxDeductions) {
+        super(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
     }
 
     /**
-     * Calculates the gross pay of the salary employee based on hours worked.
-     * The gross pay is calculated by dividing the annual salary by 24.
+     * Creates a SalaryEmployee with the specified details in cents, in employee CSV field order.
+     * @param name The name of the employee.
+     * @param id The ID of the employee.
+     * @param payRate The annual salary of the employee in cents.
+     * @param pretaxDeductions The pre-tax deductions of the employee in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee in cents.
+     * @param ytdTaxesPaid The year-to-date taxes paid by the employee in cents.
+     * @return The new employee.
+     */
+    public static SalaryEmployee ofCents(String name, String id, long payRate, long pretaxDeductions,
+                                         long ytdEarnings, long ytdTaxesPaid) {
+        return new SalaryEmployee(name, id, payRate, ytdEarnings, ytdTaxesPaid, pretaxDeductions);
+    }
+
+    /**
+     * Calculates the gross pay in cents of the salary employee based on hours worked.
+     * The gross pay is calculated by dividing the annual salary by 24, rounded half-even to the cent.
      * @param hoursWorked The number of hours worked.
-     * @return The gross pay.
+     * @return The gross pay in cents.
      */
     @Override
-    protected BigDecimal calculateGrossPay(double hoursWorked) {
-        BigDecimal annualRate = BigDecimal.valueOf(getPayRate());
-        BigDecimal grossPay;
-
-        grossPay = annualRate.divide(BigDecimal.valueOf(24), 2, RoundingMode.HALF_EVEN);
+    protected long calculateGrossPayCents(double hoursWorked) {
+        return Money.divideHalfEven(getPayRateCents(), PAY_PERIODS);
+    }
 
-        return grossPay;
+    /**
+     * Gets the hours bucket of a number of hours worked, which is always zero since the gross pay
+     * of a salary employee does not depend on the hours worked.
+     * @param hoursWorked The number of hours worked.
+     * @return Zero.
+     */
+    @Override
+    protected long hoursBucket(double hoursWorked) {
+        return 0;
     }
 
     /**
@@ -45,6 +87,6 @@ public class SalaryEmployee extends Employee {
      */
     @Override
     public String getEmployeeType() {
-        return "SALARY";
+        return TYPE;
     }
 }
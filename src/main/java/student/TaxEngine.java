@@ -0,0 +1,18 @@
+package student;
+
+/**
+ * The TaxEngine interface calculates the taxes withheld from the pay of one pay period.
+ * Employee.computePayroll and BatchPayroll call it once per employee, so implementations
+ * work on long cents, do not allocate, and keep any rule tables they need ready before the run.
+ * Implementations must be safe to call from several payroll threads at once.
+ */
+public interface TaxEngine {
+
+    /**
+     * Calculates the taxes on the taxable pay of one pay period.
+     * @param taxablePay The pay after pre-tax deductions in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee before this pay period in cents.
+     * @return The taxes in cents.
+     */
+    long calculateTaxes(long taxablePay, long ytdEarnings);
+}
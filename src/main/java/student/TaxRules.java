@@ -0,0 +1,222 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TaxRules class loads tax rules from a CSV file and compiles them into one TaxTable per
+ * jurisdiction. The file has a header line and one rule per line:
+ * <pre>
+ * jurisdiction,kind,threshold,rate
+ * FEDERAL,bracket,0.00,0.10
+ * FEDERAL,bracket,485.00,0.12
+ * FICA,capped,168600.00,0.062
+ * </pre>
+ * A bracket rule taxes the taxable pay of a pay period from its threshold up to the next threshold
+ * of the same jurisdiction at its rate. A capped rule taxes the taxable pay at its rate until the
+ * year-to-date earnings reach its threshold, the wage base.
+ * The compiled tables of a file are cached until the file changes, so the rules are parsed once
+ * no matter how many times they are loaded.
+ */
+public final class TaxRules {
+
+    /**
+     * The kind of a progressive bracket rule.
+     */
+    public static final String BRACKET = "bracket";
+
+    /**
+     * The kind of a rule capped by a wage base.
+     */
+    public static final String CAPPED = "capped";
+
+    /**
+     * The compiled tables of each loaded file, by absolute path.
+     */
+    private static final Map<Path, CachedTables> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TaxRules() {
+
+    }
+
+    /**
+     * Loads the tax engine of some jurisdictions of a tax rules file. The taxes of a pay period are
+     * the sum of the taxes of each jurisdiction.
+     * @param file The tax rules file.
+     * @param jurisdictions The names of the jurisdictions, ignoring case, or an empty list for
+     *                      every jurisdiction in the file.
+     * @return The tax engine.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a rule is invalid or a jurisdiction is not in the file.
+     */
+    public static TaxEngine load(String file, List<String> jurisdictions) throws IOException {
+        Map<String, TaxTable> tables = tables(file);
+        List<TaxTable> selected = new ArrayList<>();
+        if (jurisdictions.isEmpty()) {
+            selected.addAll(tables.values());
+        }
+        for (String jurisdiction : jurisdictions) {
+            TaxTable table = tables.get(jurisdiction.trim().toUpperCase(Locale.ROOT));
+            if (table == null) {
+                throw new IllegalArgumentException("Unknown tax jurisdiction in " + file + ": " + jurisdiction);
+            }
+            selected.add(table);
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No tax rules in " + file);
+        }
+        return selected.size() == 1 ? selected.get(0) : new CombinedTaxEngine(selected.toArray(new TaxTable[0]));
+    }
+
+    /**
+     * Gets the compiled tables of a tax rules file, from the cache unless the file changed since
+     * it was compiled.
+     * @param file The tax rules file.
+     * @return The table of each jurisdiction, by upper-case name, in file order.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a rule is invalid.
+     */
+    static Map<String, TaxTable> tables(String file) throws IOException {
+        Path path = Path.of(file).toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(path);
+        CachedTables cached = CACHE.get(path);
+        if (cached == null || !cached.modified.equals(modified)) {
+            cached = new CachedTables(modified, compile(file));
+            CACHE.put(path, cached);
+        }
+        return cached.tables;
+    }
+
+    /**
+     * Parses a tax rules file and compiles the rules of each jurisdiction.
+     * @param file The tax rules file.
+     * @return The table of each jurisdiction, by upper-case name, in file order.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a rule is invalid.
+     */
+    private static Map<String, TaxTable> compile(String file) throws IOException {
+        // The rules of each jurisdiction as {threshold, rate} pairs, brackets first and capped rules second
+        Map<String, List<List<long[]>>> rules = new LinkedHashMap<>();
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        try (CsvRecordReader<String> lines = FileUtil.readRecords(file, line -> line)) {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                try {
+                    tokenizer.reset(line);
+                    String jurisdiction = nextField(tokenizer, line).fieldString().toUpperCase(Locale.ROOT);
+                    String kind = nextField(tokenizer, line).fieldString().toLowerCase(Locale.ROOT);
+                    long threshold = nextField(tokenizer, line).fieldCents();
+                    long rate = Money.rateFromDouble(nextField(tokenizer, line).fieldDouble());
+                    List<List<long[]>> jurisdictionRules = rules.computeIfAbsent(jurisdiction,
+                            name -> List.of(new ArrayList<>(), new ArrayList<>()));
+                    if (kind.equals(BRACKET)) {
+                        jurisdictionRules.get(0).add(new long[] {threshold, rate});
+                    } else if (kind.equals(CAPPED)) {
+                        jurisdictionRules.get(1).add(new long[] {threshold, rate});
+                    } else {
+                        throw new IllegalArgumentException("Unknown kind of tax rule: " + line);
+                    }
+                } catch (NumberFormatException | ArithmeticException e) {
+                    throw new IllegalArgumentException("Invalid tax rule: " + line, e);
+                }
+            }
+        }
+
+        Map<String, TaxTable> tables = new LinkedHashMap<>();
+        rules.forEach((jurisdiction, jurisdictionRules) -> {
+            List<long[]> brackets = jurisdictionRules.get(0);
+            List<long[]> capped = jurisdictionRules.get(1);
+            tables.put(jurisdiction, new TaxTable(jurisdiction,
+                    brackets.stream().mapToLong(rule -> rule[0]).toArray(),
+                    brackets.stream().mapToLong(rule -> rule[1]).toArray(),
+                    capped.stream().mapToLong(rule -> rule[0]).toArray(),
+                    capped.stream().mapToLong(rule -> rule[1]).toArray()));
+        });
+        return tables;
+    }
+
+    /**
+     * Advances a tokenizer to the next field of a tax rule.
+     * @param tokenizer The tokenizer over the rule.
+     * @param line The rule, for the error message.
+     * @return The tokenizer.
+     * @throws IllegalArgumentException if the rule has no more fields.
+     */
+    private static CsvTokenizer nextField(CsvTokenizer tokenizer, String line) {
+        if (!tokenizer.nextField()) {
+            throw new IllegalArgumentException("Invalid tax rule: " + line);
+        }
+        return tokenizer;
+    }
+
+    /**
+     * The compiled tables of a file with the modification time of the file they were compiled from.
+     */
+    private static final class CachedTables {
+
+        /**
+         * The modification time of the file.
+         */
+        private final FileTime modified;
+
+        /**
+         * The table of each jurisdiction.
+         */
+        private final Map<String, TaxTable> tables;
+
+        /**
+         * Constructs the cached tables of a file.
+         * @param modified The modification time of the file.
+         * @param tables The table of each jurisdiction.
+         */
+        private CachedTables(FileTime modified, Map<String, TaxTable> tables) {
+            this.modified = modified;
+            this.tables = tables;
+        }
+    }
+
+    /**
+     * A tax engine that adds the taxes of several jurisdictions.
+     */
+    private static final class CombinedTaxEngine implements TaxEngine {
+
+        /**
+         * The table of each jurisdiction.
+         */
+        private final TaxTable[] tables;
+
+        /**
+         * Constructs a combined tax engine.
+         * @param tables The table of each jurisdiction.
+         */
+        private CombinedTaxEngine(TaxTable[] tables) {
+            this.tables = tables;
+        }
+
+        /**
+         * Calculates the taxes as the sum of the taxes of each jurisdiction.
+         * @param taxablePay The pay after pre-tax deductions in cents.
+         * @param ytdEarnings The year-to-date earnings of the employee before this pay period in cents.
+         * @return The taxes in cents.
+         */
+        @Override
+        public long calculateTaxes(long taxablePay, long ytdEarnings) {
+            long taxes = 0;
+            for (TaxTable table : tables) {
+                taxes += table.calculateTaxes(taxablePay, ytdEarnings);
+            }
+            return taxes;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * The TaxTable class is the compiled tax rules of one jurisdiction. Progressive brackets are kept
+ * as flat arrays sorted by threshold, with the tax owed below each threshold computed once, so the
+ * taxes of a pay period are one binary search and one multiplication. Capped rules, such as a
+ * social security tax with a wage base, apply a rate only to the part of the pay below the wage
+ * base that the year-to-date earnings have not used yet.
+ * The taxes of a jurisdiction are rounded half-even to the cent once, after all its rules are added.
+ * A table is immutable once compiled and safe to share between threads and runs.
+ */
+public final class TaxTable implements TaxEngine {
+
+    /**
+     * The name of the jurisdiction.
+     */
+    private final String jurisdiction;
+
+    /**
+     * The lower bound of each bracket in cents, in increasing order and starting at zero.
+     */
+    private final long[] thresholds;
+
+    /**
+     * The rate of each bracket in millionths.
+     */
+    private final long[] rates;
+
+    /**
+     * The tax owed on the pay below the threshold of each bracket, in millionths of a cent.
+     */
+    private final long[] baseTaxes;
+
+    /**
+     * The wage base of each capped rule in cents.
+     */
+    private final long[] wageBases;
+
+    /**
+     * The rate of each capped rule in millionths.
+     */
+    private final long[] cappedRates;
+
+    /**
+     * Compiles the tax rules of a jurisdiction. The brackets may be given in any order; pay below
+     * the lowest threshold is not taxed by the brackets.
+     * @param jurisdiction The name of the jurisdiction.
+     * @param thresholds The lower bound of each bracket in cents.
+     * @param rates The rate of each bracket in millionths.
+     * @param wageBases The wage base of each capped rule in cents.
+     * @param cappedRates The rate of each capped rule in millionths.
+     * @throws IllegalArgumentException if a threshold, wage base or rate is negative, if two brackets
+     *                                  have the same threshold, or if the array lengths do not match.
+     */
+    public TaxTable(String jurisdiction, long[] thresholds, long[] rates, long[] wageBases, long[] cappedRates) {
+        if (thresholds.length != rates.length || wageBases.length != cappedRates.length) {
+            throw new IllegalArgumentException("Mismatched tax rules for " + jurisdiction);
+        }
+        this.jurisdiction = jurisdiction;
+
+        // Sort the brackets by threshold, with a zero-rate bracket from zero if none starts there
+        Integer[] order = new Integer[thresholds.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compare(thresholds[a], thresholds[b]));
+        boolean fromZero = thresholds.length > 0 && thresholds[order[0]] == 0;
+        int size = thresholds.length + (fromZero ? 0 : 1);
+        this.thresholds = new long[size];
+        this.rates = new long[size];
+        this.baseTaxes = new long[size];
+        int offset = size - thresholds.length;
+        for (int i = 0; i < order.length; i++) {
+            this.thresholds[offset + i] = thresholds[order[i]];
+            this.rates[offset + i] = rates[order[i]];
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (this.thresholds[i] < 0 || this.rates[i] < 0) {
+                throw new IllegalArgumentException("Negative tax bracket for " + jurisdiction);
+            }
+            if (i > 0) {
+                if (this.thresholds[i] == this.thresholds[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate tax bracket for " + jurisdiction + ": "
+                            + Money.format(this.thresholds[i]));
+                }
+                this.baseTaxes[i] = Math.addExact(this.baseTaxes[i - 1],
+                        Math.multiplyExact(this.thresholds[i] - this.thresholds[i - 1], this.rates[i - 1]));
+            }
+        }
+
+        for (int i = 0; i < wageBases.length; i++) {
+            if (wageBases[i] < 0 || cappedRates[i] < 0) {
+                throw new IllegalArgumentException("Negative capped tax rule for " + jurisdiction);
+            }
+        }
+        this.wageBases = wageBases.clone();
+        this.cappedRates = cappedRates.clone();
+    }
+
+    /**
+     * Gets the name of the jurisdiction.
+     * @return The name of the jurisdiction.
+     */
+    public String getJurisdiction() {
+        return jurisdiction;
+    }
+
+    /**
+     * Calculates the taxes of the jurisdiction on the taxable pay of one pay period. Pay that is
+     * zero or negative owes no taxes.
+     * @param taxablePay The pay after pre-tax deductions in cents.
+     * @param ytdEarnings The year-to-date earnings of the employee before this pay period in cents,
+     *                    counted against the wage base of the capped rules.
+     * @return The taxes in cents.
+     */
+    @Override
+    public long calculateTaxes(long taxablePay, long ytdEarnings) {
+        if (taxablePay <= 0) {
+            return 0;
+        }
+
+        // The bracket of the pay is the last one whose threshold is not above it
+        int bracket = Arrays.binarySearch(thresholds, taxablePay);
+        if (bracket < 0) {
+            bracket = -bracket - 2;
+        }
+        long taxes = Math.addExact(baseTaxes[bracket],
+                Math.multiplyExact(taxablePay - thresholds[bracket], rates[bracket]));
+
+        for (int i = 0; i < wageBases.length; i++) {
+            long cappedPay = Math.max(0, Math.min(taxablePay, wageBases[i] - ytdEarnings));
+            taxes = Math.addExact(taxes, Math.multiplyExact(cappedPay, cappedRates[i]));
+        }
+        return Money.divideHalfEven(taxes, Money.RATE_SCALE);
+    }
+}
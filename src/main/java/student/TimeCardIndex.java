@@ -0,0 +1,59 @@
+package student;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The TimeCardIndex class indexes time cards by employee ID. The index is built once while the
+ * time card file is parsed, so finding the time card of an employee takes constant time instead
+ * of a scan of every time card.
+ */
+public class TimeCardIndex {
+
+    /**
+     * The time cards keyed by employee ID.
+     */
+    private final Map<String, ITimeCard> timeCards = new HashMap<>();
+
+    /**
+     * The policy used when an employee has more than one time card.
+     */
+    private final DuplicatePolicy duplicatePolicy;
+
+    /**
+     * Constructs an empty TimeCardIndex with the specified duplicate policy.
+     * @param duplicatePolicy The policy used when an employee has more than one time card.
+     */
+    public TimeCardIndex(DuplicatePolicy duplicatePolicy) {
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    /**
+     * Adds a time card to the index, resolving duplicates with the duplicate policy.
+     * @param timeCard The time card to add.
+     * @throws IllegalArgumentException if the time card is a duplicate and the policy is REJECT.
+     */
+    public void add(ITimeCard timeCard) {
+        ITimeCard existing = timeCards.putIfAbsent(timeCard.getEmployeeID(), timeCard);
+        if (existing != null) {
+            timeCards.put(timeCard.getEmployeeID(), duplicatePolicy.resolve(existing, timeCard));
+        }
+    }
+
+    /**
+     * Gets the time card of the employee with the given ID.
+     * @param employeeID The ID of the employee.
+     * @return The time card of the employee, or null if the employee has no time card.
+     */
+    public ITimeCard get(String employeeID) {
+        return timeCards.get(employeeID);
+    }
+
+    /**
+     * Gets the number of employees with a time card in the index.
+     * @return The number of indexed employees.
+     */
+    public int size() {
+        return timeCards.size();
+    }
+}
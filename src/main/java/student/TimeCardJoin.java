@@ -0,0 +1,155 @@
+package student;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * The TimeCardJoin class provides static methods to match employees with their time cards.
+ * The hash join looks every employee up in a TimeCardIndex, and the sort-merge join walks an
+ * employee sequence and a time card sequence that are both already sorted by employee ID.
+ * Both joins run in time linear to the size of their inputs.
+ */
+public final class TimeCardJoin {
+
+    /**
+     * The join modes supported by the payroll generator.
+     */
+    public enum Mode {
+        /**
+         * Index the time cards by employee ID and look every employee up in the index.
+         */
+        HASH,
+
+        /**
+         * Merge employees and time cards that are both sorted by employee ID.
+         */
+        MERGE,
+
+        /**
+         * Sort the time cards by employee ID within a memory budget, spilling to temporary files,
+         * and merge them with employees sorted by employee ID.
+         */
+        SORT;
+
+        /**
+         * Gets the join mode matching the given name, ignoring case.
+         * @param name The name of the join mode.
+         * @return The matching join mode.
+         * @throws IllegalArgumentException if no join mode matches the name.
+         */
+        public static Mode fromString(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TimeCardJoin() {
+
+    }
+
+    /**
+     * Matches every employee with its time card using a time card index.
+     * @param employees The employees to match.
+     * @param index The time card index.
+     * @param action The action to call for every employee with its time card, or null if it has none.
+     */
+    public static void hashJoin(Iterator<? extends IEmployee> employees, TimeCardIndex index,
+                                BiConsumer<IEmployee, ITimeCard> action) {
+        while (employees.hasNext()) {
+            IEmployee employee = employees.next();
+            action.accept(employee, index.get(employee.getID()));
+        }
+    }
+
+    /**
+     * Matches every employee with its time card by merging two sequences sorted by employee ID.
+     * Time cards that do not belong to any employee are skipped.
+     * @param employees The employees to match, sorted by ID.
+     * @param timeCards The time cards to match, sorted by employee ID.
+     * @param duplicatePolicy The policy used when an employee has more than one time card.
+     * @param action The action to call for every employee with its time card, or null if it has none.
+     * @throws IllegalArgumentException if either sequence is not sorted by employee ID.
+     */
+    public static void mergeJoin(Iterator<? extends IEmployee> employees, Iterator<? extends ITimeCard> timeCards,
+                                 DuplicatePolicy duplicatePolicy, BiConsumer<IEmployee, ITimeCard> action) {
+        TimeCardGroups groups = new TimeCardGroups(timeCards, duplicatePolicy);
+        ITimeCard timeCard = groups.next();
+        String previousID = null;
+
+        while (employees.hasNext()) {
+            IEmployee employee = employees.next();
+            String id = employee.getID();
+            if (previousID != null && previousID.compareTo(id) > 0) {
+                throw new IllegalArgumentException("Employees are not sorted by ID: " + id);
+            }
+            previousID = id;
+
+            // Skip the time cards of employees that come before the current one
+            while (timeCard != null && timeCard.getEmployeeID().compareTo(id) < 0) {
+                timeCard = groups.next();
+            }
+
+            if (timeCard != null && timeCard.getEmployeeID().equals(id)) {
+                action.accept(employee, timeCard);
+            } else {
+                action.accept(employee, null);
+            }
+        }
+    }
+
+    /**
+     * Inner class that reads sorted time cards and resolves consecutive time cards of the same
+     * employee into one time card.
+     */
+    private static final class TimeCardGroups {
+        /**
+         * The sorted time cards.
+         */
+        private final Iterator<? extends ITimeCard> timeCards;
+        /**
+         * The policy used when an employee has more than one time card.
+         */
+        private final DuplicatePolicy duplicatePolicy;
+        /**
+         * The time card read ahead of the current group, or null if there is none.
+         */
+        private ITimeCard lookahead;
+
+        /**
+         * Constructs a TimeCardGroups object over the specified time cards.
+         * @param timeCards The sorted time cards.
+         * @param duplicatePolicy The policy used when an employee has more than one time card.
+         */
+        private TimeCardGroups(Iterator<? extends ITimeCard> timeCards, DuplicatePolicy duplicatePolicy) {
+            this.timeCards = timeCards;
+            this.duplicatePolicy = duplicatePolicy;
+            this.lookahead = timeCards.hasNext() ? timeCards.next() : null;
+        }
+
+        /**
+         * Gets the time card of the next employee.
+         * @return The resolved time card, or null if there are no more time cards.
+         * @throws IllegalArgumentException if the time cards are not sorted by employee ID.
+         */
+        private ITimeCard next() {
+            ITimeCard group = lookahead;
+            lookahead = null;
+            while (group != null && timeCards.hasNext()) {
+                ITimeCard timeCard = timeCards.next();
+                int order = group.getEmployeeID().compareTo(timeCard.getEmployeeID());
+                if (order == 0) {
+                    group = duplicatePolicy.resolve(group, timeCard);
+                } else if (order < 0) {
+                    lookahead = timeCard;
+                    break;
+                } else {
+                    throw new IllegalArgumentException(
+                            "Time cards are not sorted by employee ID: " + timeCard.getEmployeeID());
+                }
+            }
+            return group;
+        }
+    }
+}
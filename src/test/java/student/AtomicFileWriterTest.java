@@ -0,0 +1,105 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLinesAreEncodedAsUtf8AcrossBufferFlushes() throws IOException {
+        Path file = dir.resolve("out.csv");
+        List<String> lines = List.of("name,amount", "Zo\u00eb \u00c5ngstr\u00f6m,12.50", "\u5c71\u7530 \ud83d\ude00,0.01", "");
+        try (AtomicFileWriter writer = new AtomicFileWriter(file.toString(), AtomicFileWriter.MIN_BUFFER_SIZE)) {
+            for (String line : lines) {
+                writer.writeLine(line);
+            }
+            writer.commit(false);
+        }
+        assertEquals(lines, Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUncommittedWriterLeavesTargetUntouched() throws IOException {
+        Path file = Files.writeString(dir.resolve("out.csv"), "old" + System.lineSeparator());
+        try (AtomicFileWriter writer = new AtomicFileWriter(file.toString(), AtomicFileWriter.MIN_BUFFER_SIZE)) {
+            writer.writeLine("a line that is longer than the buffer of the writer");
+        }
+        assertEquals(List.of("old"), Files.readAllLines(file));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testBufferSizeIsValidated() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AtomicFileWriter(dir.resolve("out.csv").toString(), AtomicFileWriter.MIN_BUFFER_SIZE - 1));
+    }
+
+    @Test
+    void testResumableWriterResumesFromCheckpoint() throws IOException {
+        Path file = Files.writeString(dir.resolve("out.csv"), "old" + System.lineSeparator());
+        long length;
+        try (AtomicFileWriter writer = AtomicFileWriter.resume(file.toString(), AtomicFileWriter.MIN_BUFFER_SIZE, 0)) {
+            writer.writeLine("first");
+            length = writer.checkpoint();
+            writer.writeLine("lost after the checkpoint");
+        }
+        assertEquals(List.of("old"), Files.readAllLines(file));
+
+        // The lines after the checkpoint are dropped when the writer is resumed
+        try (AtomicFileWriter writer = AtomicFileWriter.resume(file.toString(), AtomicFileWriter.MIN_BUFFER_SIZE,
+                length)) {
+            writer.writeLine("second");
+            writer.commit(false);
+        }
+        assertEquals(List.of("first", "second"), Files.readAllLines(file));
+        assertFalse(Files.exists(dir.resolve("out.csv" + AtomicFileWriter.CHECKPOINT_TEMP_SUFFIX)));
+        assertThrows(IOException.class, () -> AtomicFileWriter.resume(file.toString(), 1024, length));
+    }
+
+    @Test
+    void testGzipFileIsCompressedInBlocksAndResumable() throws IOException {
+        Path file = dir.resolve("out.csv.gz");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 120_000; i++) {
+            lines.add("HOURLY,Employee " + i + ",e" + i + ",20.00,0,1000,200");
+        }
+        long length;
+        try (AtomicFileWriter writer = AtomicFileWriter.resume(file.toString(), 4096, 0)) {
+            for (String line : lines.subList(0, 100_000)) {
+                writer.writeLine(line);
+            }
+            length = writer.checkpoint();
+            writer.writeLine("lost after the checkpoint");
+        }
+        try (AtomicFileWriter writer = AtomicFileWriter.resume(file.toString(), 4096, length)) {
+            for (String line : lines.subList(100_000, lines.size())) {
+                writer.writeLine(line);
+            }
+            writer.commit(false);
+        }
+
+        // More than one block, and every member is read back as one stream
+        assertTrue(lines.size() * 40L > 2 * ParallelGzipWriter.BLOCK_SIZE);
+        assertTrue(Files.size(file) < lines.size() * 40L / 3);
+        try (BufferedReader reader = CompressedFiles.newBufferedReader(file.toString())) {
+            assertEquals(lines, reader.lines().collect(Collectors.toList()));
+        }
+        assertThrows(IOException.class, () -> new AtomicFileWriter(dir.resolve("out.csv.zst").toString()));
+    }
+}
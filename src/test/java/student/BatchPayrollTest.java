@@ -0,0 +1,53 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPayrollTest {
+
+    @Test
+    void testKernelMatchesEmployeePayroll() {
+        Random random = new Random(7);
+        List<Employee> employees = new ArrayList<>();
+        List<Double> hours = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String id = "e" + i;
+            double pretax = random.nextInt(100000) / 100.0;
+            employees.add(i % 3 == 0
+                    ? new SalaryEmployee("S " + i, id, random.nextInt(30000000) / 100.0, pretax, 1000.0, 200.0)
+                    : new HourlyEmployee("H " + i, id, random.nextInt(10000) / 100.0, pretax, 1000.0, 200.0));
+            int kind = random.nextInt(10);
+            hours.add(kind == 0 ? Double.NaN : kind == 1 ? -1.0 : random.nextInt(8000) / 100.0);
+        }
+        RosterColumns roster = RosterColumns.load(employees.iterator());
+        double[] hoursWorked = hours.stream().mapToDouble(Double::doubleValue).toArray();
+
+        BatchPayroll.compute(roster, hoursWorked);
+
+        CsvRecordWriter expected = new CsvRecordWriter();
+        CsvRecordWriter actual = new CsvRecordWriter();
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            boolean paid = hoursWorked[i] >= 0;
+            if (paid) {
+                employee.processPayroll(hoursWorked[i]);
+                assertEquals(employee.getPayStub().writeCSV(expected).toString(),
+                        roster.writePayStubCSV(i, actual).toString(), "employee " + i);
+            }
+            assertEquals(paid, roster.isPaid(i));
+            assertEquals(employee.writeCSV(expected).toString(), roster.writeEmployeeCSV(i, actual).toString());
+        }
+    }
+
+    @Test
+    void testHoursMustMatchRoster() {
+        RosterColumns roster = new RosterColumns();
+        roster.add(new HourlyEmployee("Luffy", "s192", 30.0, 0.0, 0.0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> BatchPayroll.compute(roster, new double[2]));
+    }
+}
@@ -0,0 +1,43 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuilderTest {
+
+    @Test
+    void testBuildEmployeeFromCSV() {
+        IEmployee employee = Builder.buildEmployeeFromCSV("SALARY,Nami,s193,200000,1000,17017,4983");
+        assertEquals("SALARY", employee.getEmployeeType());
+        assertEquals("Nami", employee.getName());
+        assertEquals("s193", employee.getID());
+        assertEquals(200000.0, employee.getPayRate());
+        assertEquals(1000.0, employee.getPretaxDeductions());
+        assertEquals(17017.0, employee.getYTDEarnings());
+        assertEquals(4983.0, employee.getYTDTaxesPaid());
+    }
+
+    @Test
+    void testBuildEmployeeWithQuotedName() {
+        IEmployee employee = Builder.buildEmployeeFromCSV("HOURLY,\"Yagami, Light\",x101,25.00,0,10000,2265");
+        assertEquals("Yagami, Light", employee.getName());
+        assertEquals("x101", employee.getID());
+        assertEquals(25.0, employee.getPayRate());
+        assertEquals("HOURLY,\"Yagami, Light\",x101,25.0,0.0,10000.00,2265.00", employee.toCSV());
+    }
+
+    @Test
+    void testBuildEmployeeRejectsBadInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Builder.buildEmployeeFromCSV("MANAGER,Nami,s193,200000,1000,17017,4983"));
+        assertThrows(IllegalArgumentException.class, () -> Builder.buildEmployeeFromCSV("SALARY,Nami,s193"));
+    }
+
+    @Test
+    void testBuildTimeCardFromCSV() {
+        ITimeCard timeCard = Builder.buildTimeCardFromCSV(" s192 , 45.5");
+        assertEquals("s192", timeCard.getEmployeeID());
+        assertEquals(45.5, timeCard.getHoursWorked());
+    }
+}
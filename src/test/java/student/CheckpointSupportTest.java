@@ -0,0 +1,62 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointSupportTest {
+
+    // A stand-in for the CRaC Resource interface.
+    public interface Resource {
+        void beforeCheckpoint(Context<? extends Resource> context) throws Exception;
+
+        void afterRestore(Context<? extends Resource> context) throws Exception;
+    }
+
+    // A stand-in for the CRaC Context class that checkpoints and restores its resources at once.
+    public static class Context<R extends Resource> {
+        private final List<R> resources = new ArrayList<>();
+
+        public void register(R resource) {
+            resources.add(resource);
+        }
+
+        void checkpointAndRestore() throws Exception {
+            for (R resource : resources) {
+                resource.beforeCheckpoint(this);
+            }
+            for (R resource : resources) {
+                resource.afterRestore(this);
+            }
+        }
+    }
+
+    // A stand-in for the CRaC Core class.
+    public static class Core {
+        static final Context<Resource> GLOBAL = new Context<>();
+
+        public static Context<Resource> getGlobalContext() {
+            return GLOBAL;
+        }
+    }
+
+    @Test
+    void testActionsRunAroundCheckpoint() throws Exception {
+        List<String> events = new ArrayList<>();
+        Object resource = CheckpointSupport.register(CheckpointSupportTest.class.getName() + "$",
+                () -> events.add("before"), () -> events.add("after"));
+        assertNotNull(resource);
+        assertTrue(Core.GLOBAL.resources.contains(resource));
+
+        Core.GLOBAL.checkpointAndRestore();
+        assertEquals(List.of("before", "after"), events);
+    }
+
+    @Test
+    void testMissingApiIsIgnored() {
+        assertNull(CheckpointSupport.register("student.missing.", () -> { }, () -> { }));
+    }
+}
@@ -0,0 +1,62 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordWriterTest {
+
+    @Test
+    void testTextAndMoneyFields() {
+        CsvRecordWriter record = new CsvRecordWriter()
+                .text("HOURLY").text("Luffy").money(3000, 1).money(3050, 1).money(110224).money(-5);
+        assertEquals("HOURLY,Luffy,30.0,30.5,1102.24,-0.05", record.toString());
+    }
+
+    @Test
+    void testQuotesTextOnlyWhenNeeded() {
+        CsvRecordWriter record = new CsvRecordWriter()
+                .text("Doe, John").text("The \"Boss\"").text(" padded").text("");
+        assertEquals("\"Doe, John\",\"The \"\"Boss\"\"\",\" padded\",", record.toString());
+        assertEquals("Luffy", new CsvRecordWriter().text("Luffy").toString());
+    }
+
+    @Test
+    void testEmptyFirstFieldIsKept() {
+        CsvRecordWriter record = new CsvRecordWriter().text("").text("a").money(100);
+        assertEquals(",a,1.00", record.toString());
+
+        CsvTokenizer tokenizer = new CsvTokenizer().reset(record.chars());
+        List<String> fields = new ArrayList<>();
+        while (tokenizer.nextField()) {
+            fields.add(tokenizer.fieldString());
+        }
+        assertEquals(List.of("", "a", "1.00"), fields);
+
+        // A reset record starts without a separator again
+        assertEquals(",b", record.reset().text("").text("b").toString());
+    }
+
+    @Test
+    void testResetStartsANewRecord() {
+        CsvRecordWriter record = new CsvRecordWriter().text("first").money(100);
+        record.reset().text("second");
+        assertEquals("second", record.toString());
+        assertEquals("second", record.chars().toString());
+    }
+
+    @Test
+    void testOutputIsLocaleIndependent() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            assertEquals("1102.24,30.5", new CsvRecordWriter().money(110224).money(3050, 1).toString());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
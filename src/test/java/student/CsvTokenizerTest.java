@@ -0,0 +1,71 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    private CsvTokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() {
+        tokenizer = new CsvTokenizer();
+    }
+
+    private List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        tokenizer.reset(line);
+        while (tokenizer.nextField()) {
+            fields.add(tokenizer.fieldString());
+        }
+        return fields;
+    }
+
+    @Test
+    void testPlainFieldsAreTrimmed() {
+        assertEquals(List.of("HOURLY", "Luffy", "s192", "30.00"), fields(" HOURLY , Luffy,s192 ,30.00"));
+        assertEquals(List.of("a", "", "b", ""), fields("a,,b,"));
+    }
+
+    @Test
+    void testQuotedFields() {
+        assertEquals(List.of("Doe, John", "12"), fields("\"Doe, John\",12"));
+        assertEquals(List.of("The \"Boss\"", "x"), fields(" \"The \"\"Boss\"\"\" , x"));
+        assertThrows(IllegalArgumentException.class, () -> fields("\"unterminated,12"));
+        assertThrows(IllegalArgumentException.class, () -> fields("\"quoted\"tail,12"));
+    }
+
+    @Test
+    void testFieldDoubleMatchesParseDouble() {
+        for (String number : List.of("0", "-0", "30.00", "200000", "0.2265", "17017.123", ".5", "1.",
+                "+4.25", "123456789012345678", "0.1234567890123456789", "1e3", "4983.0000000000001")) {
+            tokenizer.reset(number + ",");
+            tokenizer.nextField();
+            assertEquals(Double.parseDouble(number), tokenizer.fieldDouble(), number);
+        }
+        tokenizer.reset("abc");
+        tokenizer.nextField();
+        assertThrows(NumberFormatException.class, () -> tokenizer.fieldDouble());
+    }
+
+    @Test
+    void testFieldEquals() {
+        tokenizer.reset(" SALARY ,HOURLY");
+        tokenizer.nextField();
+        assertTrue(tokenizer.fieldEquals("SALARY"));
+        assertFalse(tokenizer.fieldEquals("HOURLY"));
+    }
+
+    @Test
+    void testQuotedFieldsWrittenByRecordWriterAreReadBack() {
+        List<String> values = List.of("Luffy", "Doe, John", "The \"Boss\"", " padded ", "");
+        CsvRecordWriter record = new CsvRecordWriter();
+        values.forEach(record::text);
+        assertEquals(values, fields(record.toString()));
+    }
+}
@@ -0,0 +1,78 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeDeltaLogTest {
+
+    @TempDir
+    Path dir;
+
+    private Path employeeFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        employeeFile = Files.write(dir.resolve("employees.csv"), List.of(FileUtil.EMPLOYEE_HEADER,
+                "HOURLY,Luffy,s192,30.0,0.0,20000.00,4530.00",
+                "SALARY,Nami,s193,200000.0,1000.0,17017.00,4983.00"));
+    }
+
+    @Test
+    void testAppendedRecordsAreReplayed() throws IOException {
+        EmployeeDeltaLog log = EmployeeDeltaLog.open(employeeFile.toString());
+        log.append("batch1", "cards1.csv", List.of("HOURLY,Luffy,s192,30.0,0.0,21102.24,4852.76"));
+
+        EmployeeDeltaLog reopened = EmployeeDeltaLog.open(employeeFile.toString());
+        assertTrue(reopened.isApplied("batch1"));
+        assertFalse(reopened.isApplied("batch2"));
+        assertEquals("HOURLY,Luffy,s192,30.0,0.0,21102.24,4852.76", reopened.get("s192"));
+        assertNull(reopened.get("s193"));
+        assertEquals(1, reopened.getPendingBatches());
+    }
+
+    @Test
+    void testInterruptedAppendIsIgnoredAndTruncated() throws IOException {
+        EmployeeDeltaLog log = EmployeeDeltaLog.open(employeeFile.toString());
+        log.append("batch1", "cards1.csv", List.of("HOURLY,Luffy,s192,30.0,0.0,21102.24,4852.76"));
+        Path deltaFile = Path.of(employeeFile + EmployeeDeltaLog.DELTA_SUFFIX);
+        Files.writeString(deltaFile, "SALARY,Nami,s193,200000.0,1000.0,99999.99,0.00\nHOURLY,Lu",
+                StandardOpenOption.APPEND);
+
+        EmployeeDeltaLog reopened = EmployeeDeltaLog.open(employeeFile.toString());
+        assertNull(reopened.get("s193"));
+        assertFalse(reopened.isApplied("batch2"));
+
+        reopened.append("batch2", "cards2.csv", List.of("SALARY,Nami,s193,200000.0,1000.0,22689.33,6644.00"));
+        assertEquals(List.of("HOURLY,Luffy,s192,30.0,0.0,21102.24,4852.76", "#batch,batch1,cards1.csv",
+                "SALARY,Nami,s193,200000.0,1000.0,22689.33,6644.00", "#batch,batch2,cards2.csv"),
+                Files.readAllLines(deltaFile));
+    }
+
+    @Test
+    void testCompactionMergesRecordsAndKeepsBatches() throws IOException {
+        EmployeeDeltaLog log = EmployeeDeltaLog.open(employeeFile.toString());
+        log.append("batch1", "cards1.csv", List.of("HOURLY,Luffy,s192,30.0,0.0,21102.24,4852.76"));
+        log.append("batch2", "cards2.csv", List.of("HOURLY,Luffy,s192,30.0,0.0,22204.48,5175.52"));
+        log.compact();
+
+        assertEquals(List.of(FileUtil.EMPLOYEE_HEADER,
+                "HOURLY,Luffy,s192,30.0,0.0,22204.48,5175.52",
+                "SALARY,Nami,s193,200000.0,1000.0,17017.00,4983.00"), Files.readAllLines(employeeFile));
+        assertFalse(Files.exists(Path.of(employeeFile + EmployeeDeltaLog.DELTA_SUFFIX)));
+
+        EmployeeDeltaLog reopened = EmployeeDeltaLog.open(employeeFile.toString());
+        assertTrue(reopened.isApplied("batch1"));
+        assertTrue(reopened.isApplied("batch2"));
+        assertNull(reopened.get("s192"));
+        assertEquals(0, reopened.getPendingBatches());
+    }
+}
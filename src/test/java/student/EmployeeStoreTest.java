@@ -0,0 +1,86 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private Path csvFile;
+    private Path storeFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csvFile = Files.write(dir.resolve("employees.csv"), List.of(FileUtil.EMPLOYEE_HEADER,
+                "HOURLY,Luffy,s192,30.0,0.0,20000.00,4530.00",
+                "SALARY,\"Amane, Misa\",x102,150000.0,500.0,12000.00,3500.00",
+                "HOURLY,Zo\u00eb,z1,25.5,10.0,0.00,0.00"));
+        storeFile = dir.resolve("employees" + EmployeeStore.FILE_EXTENSION);
+    }
+
+    @Test
+    void testImportAndExportRoundTrip() throws IOException {
+        assertEquals(3, EmployeeStore.importCSV(csvFile.toString(), storeFile));
+        Path exported = dir.resolve("exported.csv");
+        try (EmployeeStore store = EmployeeStore.open(storeFile)) {
+            assertEquals(3, store.size());
+            assertEquals("x102", store.getID(1));
+            IEmployee employee = store.get(1);
+            assertEquals("SALARY", employee.getEmployeeType());
+            assertEquals("Amane, Misa", employee.getName());
+            assertEquals(150000.0, employee.getPayRate());
+            store.exportCSV(exported.toString());
+        }
+        assertEquals(Files.readAllLines(csvFile), Files.readAllLines(exported));
+    }
+
+    @Test
+    void testYTDUpdatesAreWrittenInPlace() throws IOException {
+        EmployeeStore.importCSV(csvFile.toString(), storeFile);
+        long size = Files.size(storeFile);
+        try (EmployeeStore store = EmployeeStore.open(storeFile)) {
+            store.setYTD(0, 2110224L, 485276L);
+        }
+        assertEquals(size, Files.size(storeFile));
+        try (EmployeeStore store = EmployeeStore.open(storeFile)) {
+            assertEquals(2110224L, store.getYTDEarningsCents(0));
+            assertEquals(485276L, store.getYTDTaxesPaidCents(0));
+            assertEquals(1200000L, store.getYTDEarningsCents(1));
+        }
+    }
+
+    @Test
+    void testPayrollRunOnStoreMatchesCsvRun() throws IOException {
+        Path timeCards = Files.write(dir.resolve("time_cards.csv"),
+                List.of("employee_id,hours_worked", "s192,45", "x102,0"));
+        EmployeeStore.importCSV(csvFile.toString(), storeFile);
+
+        PayrollGenerator.main(new String[] {"-e", csvFile.toString(), "-t", timeCards.toString(),
+            "-o", dir.resolve("csv_stubs.csv").toString()});
+        PayrollGenerator.main(new String[] {"-e", storeFile.toString(), "-t", timeCards.toString(),
+            "-o", dir.resolve("store_stubs.csv").toString()});
+
+        assertEquals(Files.readAllLines(dir.resolve("csv_stubs.csv")),
+                Files.readAllLines(dir.resolve("store_stubs.csv")));
+        Path exported = dir.resolve("exported.csv");
+        try (EmployeeStore store = EmployeeStore.open(storeFile)) {
+            store.exportCSV(exported.toString());
+        }
+        assertEquals(Files.readAllLines(csvFile), Files.readAllLines(exported));
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles() {
+        assertThrows(IOException.class, () -> EmployeeStore.open(csvFile));
+    }
+}
@@ -71,4 +71,31 @@ class EmployeeTest {
         String expectedCSV = "HOURLY,Jane Doe,10,20.0,0.0,10000.00,800.00";
         assertEquals(expectedCSV, employee.toCSV());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testComputePayrollMatchesCalculations() {
+        double hoursWorked = 45.0;
+        PayrollResult result = employee.computePayroll(hoursWorked);
+
+        assertEquals(employee.calculateNetPay(hoursWorked), Money.toBigDecimal(result.getNetPay()));
+        assertEquals(employee.calculateTaxes(hoursWorked), Money.toBigDecimal(result.getTaxes()));
+        assertEquals(employee.calculateYTDEarnings(hoursWorked), Money.toBigDecimal(result.getYtdEarnings()));
+        assertEquals(employee.calculateYTDTaxesPaid(hoursWorked), Money.toBigDecimal(result.getYtdTaxesPaid()));
+        assertEquals(result.getGrossPay() - employee.getPretaxDeductionsCents(), result.getTaxablePay());
+        assertEquals(result.getTaxablePay(), result.getNetPay() + result.getTaxes());
+    }
+
+    @Test
+    void testProcessPayrollCalculatesGrossPayOnce() {
+        int[] grossPayCalls = new int[1];
+        HourlyEmployee counted = new HourlyEmployee("Jane Doe", "10", 20.0, 0.0, 10000.00, 800.00) {
+            @Override
+            protected long calculateGrossPayCents(double hoursWorked) {
+                grossPayCalls[0]++;
+                return super.calculateGrossPayCents(hoursWorked);
+            }
+        };
+        counted.processPayroll(40.0);
+        assertEquals(1, grossPayCalls[0]);
+    }
+}
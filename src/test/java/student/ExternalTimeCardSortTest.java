@@ -0,0 +1,84 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalTimeCardSortTest {
+
+    @TempDir
+    Path dir;
+
+    private List<String> writeTimeCards(int count) throws IOException {
+        Random random = new Random(3);
+        List<String> lines = new ArrayList<>();
+        lines.add("employee_id,hours_worked");
+        for (int i = 0; i < count; i++) {
+            // Few enough IDs that most employees have several time cards
+            lines.add("e" + random.nextInt(count / 4) + "," + random.nextInt(6000) / 100.0);
+        }
+        Files.write(dir.resolve("time_cards.csv"), lines);
+        return lines.subList(1, lines.size());
+    }
+
+    private List<String> sort(long memoryBudget, int expectedRuns) throws IOException {
+        Path runDir = Files.createDirectories(dir.resolve("runs"));
+        List<String> sorted = new ArrayList<>();
+        try (ExternalTimeCardSort sort = new ExternalTimeCardSort(dir.resolve("time_cards.csv").toString(),
+                memoryBudget, runDir, PayrollMetrics.DISABLED)) {
+            assertEquals(expectedRuns, sort.getRunCount());
+            while (sort.hasNext()) {
+                ITimeCard timeCard = sort.next();
+                sorted.add(timeCard.getEmployeeID() + "," + timeCard.getHoursWorked());
+            }
+        }
+        try (var files = Files.list(runDir)) {
+            assertEquals(0, files.count());
+        }
+        return sorted;
+    }
+
+    private static List<String> stableSort(List<String> lines) {
+        List<String> sorted = new ArrayList<>();
+        for (String line : lines) {
+            ITimeCard timeCard = Builder.buildTimeCardFromCSV(line);
+            sorted.add(timeCard.getEmployeeID() + "," + timeCard.getHoursWorked());
+        }
+        sorted.sort(Comparator.comparing(line -> line.substring(0, line.indexOf(','))));
+        return sorted;
+    }
+
+    @Test
+    void testSpilledRunsAreMergedInStableOrder() throws IOException {
+        List<String> lines = writeTimeCards(20000);
+        assertEquals(stableSort(lines), sort(ExternalTimeCardSort.MIN_MEMORY_BUDGET, 24));
+    }
+
+    @Test
+    void testRunsBeyondFanInAreMergedInPasses() throws IOException {
+        List<String> lines = writeTimeCards(60000);
+        // 71 spilled runs: the oldest 64 are merged into one, leaving 8 for the last pass
+        assertEquals(stableSort(lines), sort(ExternalTimeCardSort.MIN_MEMORY_BUDGET, 8));
+    }
+
+    @Test
+    void testSmallFileIsSortedInMemory() throws IOException {
+        List<String> lines = writeTimeCards(1000);
+        assertEquals(stableSort(lines), sort(ExternalTimeCardSort.DEFAULT_MEMORY_BUDGET, 0));
+    }
+
+    @Test
+    void testMemoryBudgetTooSmall() throws IOException {
+        writeTimeCards(100);
+        assertThrows(IllegalArgumentException.class, () -> sort(1024, 0));
+    }
+}
@@ -0,0 +1,51 @@
+package student;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FootprintTest {
+
+    private static final int EMPLOYEES = 1_000_000;
+
+    @Test
+    void testEmployeeAndPayStubInstanceSizes() {
+        // Header, three references and four longs; no per-instance type or tax rate
+        assertTrue(ClassLayout.parseClass(HourlyEmployee.class).instanceSize() <= 56);
+        assertTrue(ClassLayout.parseClass(SalaryEmployee.class).instanceSize() <= 56);
+        // Header, the name and four longs; no reference back to the employee
+        assertTrue(ClassLayout.parseClass(PayStub.class).instanceSize() <= 48);
+        for (Field field : PayStub.class.getDeclaredFields()) {
+            assertFalse(IEmployee.class.isAssignableFrom(field.getType()), field.getName());
+        }
+    }
+
+    @Test
+    @Tag("footprint")
+    void testFootprintAtOneMillionEmployees() {
+        Employee[] employees = new Employee[EMPLOYEES];
+        for (int i = 0; i < EMPLOYEES; i++) {
+            String id = RosterGenerator.employeeID(i);
+            employees[i] = i % 2 == 0
+                    ? new HourlyEmployee("Employee " + i, id, 25.0, 0.0, 1000.0, 200.0)
+                    : new SalaryEmployee("Employee " + i, id, 50000.0, 1000.0, 200.0, 0.0);
+            employees[i].processPayroll(40.0);
+        }
+
+        // The employees are the roots of the graph, so the array holding them is not counted
+        GraphLayout layout = GraphLayout.parseInstance((Object[]) employees);
+        double bytesPerEmployee = layout.totalSize() / (double) EMPLOYEES;
+        // Print the class table of the footprint without the list of the million roots
+        String footprint = layout.toFootprint();
+        System.out.println(footprint.substring(footprint.lastIndexOf('\n', footprint.indexOf("COUNT")) + 1));
+        System.out.printf("Heap footprint: %.1f bytes per employee, including its pay stub, name and ID%n",
+                bytesPerEmployee);
+        // 232 bytes per employee before type and tax rate were shared and pay stubs dropped the employee
+        assertTrue(bytesPerEmployee < 232, "bytes per employee: " + bytesPerEmployee);
+    }
+}
@@ -0,0 +1,92 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrossPayCacheTest {
+
+    @Test
+    void testCachedGrossPayMatchesCalculatedGrossPay() {
+        GrossPayCache cache = new GrossPayCache(64);
+        Random random = new Random(11);
+        for (int i = 0; i < 10000; i++) {
+            double rate = 15 + random.nextInt(8);
+            double hours = random.nextInt(6000) / 100.0;
+            Employee employee = i % 2 == 0
+                    ? new HourlyEmployee("H", "h" + i, rate, 0.0, 0.0, 0.0)
+                    : new SalaryEmployee("S", "s" + i, rate * 4000, 0.0, 0.0, 0.0);
+            assertEquals(employee.calculateGrossPayCents(hours), cache.grossPay(employee, hours));
+        }
+        assertEquals(10000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        GrossPayCache cache = new GrossPayCache(10);
+        HourlyEmployee luffy = new HourlyEmployee("Luffy", "s192", 30.0, 0.0, 0.0, 0.0);
+        HourlyEmployee zoro = new HourlyEmployee("Zoro", "s193", 30.0, 0.0, 0.0, 0.0);
+        SalaryEmployee nami = new SalaryEmployee("Nami", "s194", 200000.0, 0.0, 0.0, 0.0);
+
+        cache.grossPay(luffy, 45.0);
+        // Same type, pay rate and hours bucket as Luffy
+        cache.grossPay(zoro, 45.004);
+        cache.grossPay(zoro, 40.0);
+        // Salary gross pay does not depend on the hours worked
+        cache.grossPay(nami, 10.0);
+        assertEquals(833333, cache.grossPay(nami, 80.0));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+        assertEquals("Gross pay cache: 2 hits, 3 misses, 3 entries", cache.toString());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        GrossPayCache cache = new GrossPayCache(2);
+        HourlyEmployee luffy = new HourlyEmployee("Luffy", "s192", 30.0, 0.0, 0.0, 0.0);
+        cache.grossPay(luffy, 10.0);
+        cache.grossPay(luffy, 20.0);
+        cache.grossPay(luffy, 10.0);
+        // Evicts 20 hours, which was used less recently than 10 hours
+        cache.grossPay(luffy, 30.0);
+        cache.grossPay(luffy, 10.0);
+        cache.grossPay(luffy, 20.0);
+
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void testThreadsHaveTheirOwnEntries() throws InterruptedException {
+        GrossPayCache cache = new GrossPayCache(10);
+        HourlyEmployee luffy = new HourlyEmployee("Luffy", "s192", 30.0, 0.0, 0.0, 0.0);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    assertEquals(luffy.calculateGrossPayCents(45.0), cache.grossPay(luffy, 45.0));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Each thread misses once and caches its own entry
+        assertEquals(4, cache.getMisses());
+        assertEquals(396, cache.getHits());
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new GrossPayCache(0));
+    }
+}
@@ -0,0 +1,57 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testDivideHalfEven() {
+        assertEquals(2, Money.divideHalfEven(5, 2));
+        assertEquals(4, Money.divideHalfEven(7, 2));
+        assertEquals(-2, Money.divideHalfEven(-5, 2));
+        assertEquals(-4, Money.divideHalfEven(-7, 2));
+        assertEquals(458333, Money.divideHalfEven(11000000, 24));
+    }
+
+    @Test
+    void testMultiplyRate() {
+        // 1425.00 * 0.2265 = 322.7625
+        assertEquals(32276, Money.multiplyRate(142500, 226500));
+        // 100.10 * 0.05 = 5.005, a tie rounded to the even cent
+        assertEquals(500, Money.multiplyRate(10010, 50000));
+        assertEquals(226500, Money.rateFromDouble(0.2265));
+    }
+
+    @Test
+    void testFormatMatchesStringFormat() {
+        for (long cents : List.of(0L, 5L, 99L, 100L, 3005L, 3049L, 3050L, 110224L, -5L, -3050L, 1234567891L)) {
+            double amount = cents / 100.0;
+            assertEquals(String.format("%.2f", amount), Money.format(cents), "cents " + cents);
+            assertEquals(String.format("%.1f", BigDecimal.valueOf(cents, 2)), Money.format(cents, 1),
+                    "cents " + cents);
+        }
+    }
+
+    @Test
+    void testFieldCentsRoundsHalfEven() {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        for (String amount : List.of("0", "30.00", "200000", "17017", "1.005", "1.015", "1.0050001", "-2.345",
+                "+7.1", ".5", "4.", "1e3", "99999999999999999999.99")) {
+            tokenizer.reset(amount);
+            tokenizer.nextField();
+            if (amount.startsWith("9999")) {
+                assertThrows(ArithmeticException.class, tokenizer::fieldCents);
+            } else {
+                assertEquals(Money.fromBigDecimal(new BigDecimal(amount)), tokenizer.fieldCents(), amount);
+            }
+        }
+        tokenizer.reset("abc");
+        tokenizer.nextField();
+        assertThrows(NumberFormatException.class, tokenizer::fieldCents);
+    }
+}
@@ -0,0 +1,60 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecordsMatchSequentialReaderInFileOrder() throws IOException {
+        // Large enough for several ranges, with blank lines, CRLF line ends and no final line feed
+        StringBuilder csv = new StringBuilder("employee_id,hours_worked\n");
+        for (int i = 0; i < 50000; i++) {
+            csv.append('e').append(i).append(',').append(i % 50).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 1000 == 0) {
+                csv.append("\n  \n");
+            }
+        }
+        csv.append("last,1");
+        Path file = Files.writeString(dir.resolve("time_cards.csv"), csv, StandardCharsets.UTF_8);
+        assertTrue(Files.size(file) > 4 * ParallelCsvLoader.MIN_RANGE_SIZE);
+
+        List<String> expected = new ArrayList<>();
+        try (CsvRecordReader<String> reader = FileUtil.readRecords(file.toString(), Function.identity())) {
+            reader.forEachRemaining(expected::add);
+        }
+        assertEquals(expected, ParallelCsvLoader.load(file.toString(), Function.identity(), 4,
+                PayrollMetrics.DISABLED));
+
+        List<ITimeCard> timeCards = ParallelCsvLoader.load(file.toString(), Builder::buildTimeCardFromCSV, 3,
+                PayrollMetrics.DISABLED);
+        assertEquals(50001, timeCards.size());
+        assertEquals("e49999", timeCards.get(49999).getEmployeeID());
+        assertEquals(1.0, timeCards.get(50000).getHoursWorked());
+    }
+
+    @Test
+    void testHeaderOnlyAndMultiByteCharacters() throws IOException {
+        Path empty = Files.writeString(dir.resolve("empty.csv"), "employee_id,hours_worked");
+        assertTrue(ParallelCsvLoader.load(empty.toString(), Function.identity(), 2, PayrollMetrics.DISABLED)
+                .isEmpty());
+
+        Path names = Files.writeString(dir.resolve("names.csv"), "name\nJos\u00e9\n\u6771\u4eac\n",
+                StandardCharsets.UTF_8);
+        assertEquals(List.of("Jos\u00e9", "\u6771\u4eac"),
+                ParallelCsvLoader.load(names.toString(), Function.identity(), 2, PayrollMetrics.DISABLED));
+    }
+}
@@ -0,0 +1,39 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPayrollTest {
+
+    @Test
+    void testEmployeesAreOutputInInputOrder() {
+        List<HourlyEmployee> employees = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            employees.add(new HourlyEmployee("Employee " + i, "e" + i, 20.0, 0.0, 0.0, 0.0));
+        }
+
+        List<IEmployee> output = new ArrayList<>();
+        try (ParallelPayroll payroll = new ParallelPayroll(4, 7,
+                (employee, timeCard) -> ((Employee) employee).processPayroll(timeCard.getHoursWorked()),
+                output::add)) {
+            for (HourlyEmployee employee : employees) {
+                payroll.accept(employee, new TimeCard(employee.getID(), 40.0));
+            }
+            payroll.finish();
+        }
+
+        assertEquals(employees, output);
+        for (HourlyEmployee employee : employees) {
+            assertEquals(618.8, employee.getPayStub().getNetPay(), 0.001);
+        }
+    }
+
+    @Test
+    void testInvalidThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelPayroll(0, (e, t) -> { }, e -> { }));
+    }
+}
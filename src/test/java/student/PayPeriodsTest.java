@@ -0,0 +1,56 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayPeriodsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPeriodsAreOrderedByNumberValue() {
+        assertTrue(PayPeriods.comparePeriods("period_9.csv", "period_10.csv") < 0);
+        assertTrue(PayPeriods.comparePeriods("2024-02.csv", "2024-11.csv") < 0);
+        assertTrue(PayPeriods.comparePeriods("2024-12.csv", "2025-01.csv") < 0);
+        assertTrue(PayPeriods.comparePeriods("week_b.csv", "week_a.csv") > 0);
+        assertEquals(0, PayPeriods.comparePeriods("period_3.csv", "period_3.csv"));
+    }
+
+    @Test
+    void testDirectoriesAndGlobsSelectPeriodFiles() throws IOException {
+        Path periods = Files.createDirectory(dir.resolve("periods"));
+        for (String name : List.of("2024-10.csv", "2024-2.csv", "2024-1.csv", "notes.txt")) {
+            Files.writeString(periods.resolve(name), "employee_id,hours_worked\n");
+        }
+        Path timeCards = periods.resolve("time_cards.csv");
+        Files.writeString(timeCards, "employee_id,hours_worked\n");
+
+        assertFalse(PayPeriods.isMultiPeriod(timeCards.toString()));
+        assertTrue(PayPeriods.isMultiPeriod(periods.toString()));
+        assertTrue(PayPeriods.isMultiPeriod(periods.resolve("2024-*.csv").toString()));
+
+        List<Path> glob = PayPeriods.resolve(periods.resolve("2024-*.csv").toString());
+        assertEquals(List.of("2024-1.csv", "2024-2.csv", "2024-10.csv"),
+                glob.stream().map(path -> path.getFileName().toString()).toList());
+        assertEquals(4, PayPeriods.resolve(periods.toString()).size());
+        assertThrows(IllegalArgumentException.class, () -> PayPeriods.resolve(periods.resolve("2023-*").toString()));
+        assertThrows(IllegalArgumentException.class,
+                () -> PayPeriods.resolve(dir.resolve("p*").resolve("2024-1.csv").toString()));
+    }
+
+    @Test
+    void testPayStubFileIsNamedAfterThePeriod() {
+        assertEquals(Path.of("out", "pay_stubs-2024-01.csv").toString(),
+                PayPeriods.payStubFile(Path.of("out", "pay_stubs.csv").toString(), Path.of("cards", "2024-01.csv")));
+        assertEquals("stubs-week_3", PayPeriods.payStubFile("stubs", Path.of("week_3.csv")));
+        assertEquals("pay_stubs-week_3.csv.gz", PayPeriods.payStubFile("pay_stubs.csv.gz", Path.of("week_3.csv.gz")));
+    }
+}
@@ -0,0 +1,109 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private String employeeFile() {
+        return dir.resolve("employees.csv").toString();
+    }
+
+    private String payrollFile() {
+        return dir.resolve("pay_stubs.csv").toString();
+    }
+
+    private void writeCheckpoints(String runID, int count) throws IOException {
+        PayrollCheckpoint checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        checkpoint.resume(runID);
+        try (AtomicFileWriter employees = AtomicFileWriter.resume(employeeFile(), 1024, 0);
+             AtomicFileWriter payStubs = AtomicFileWriter.resume(payrollFile(), 1024, 0)) {
+            for (int i = 1; i <= count; i++) {
+                employees.writeLine("employee " + i);
+                payStubs.writeLine("pay stub " + i);
+                checkpoint.checkpoint(i, employees, payStubs);
+            }
+        }
+    }
+
+    @Test
+    void testTornEntryIsIgnored() throws IOException {
+        writeCheckpoints("run", 2);
+        Path log = Path.of(employeeFile() + PayrollCheckpoint.CHECKPOINT_SUFFIX);
+        Files.writeString(log, "#checkpoint,run,3,", StandardOpenOption.APPEND);
+
+        PayrollCheckpoint checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        assertTrue(checkpoint.resume("run"));
+        assertEquals(2, checkpoint.getRecords());
+        int separator = System.lineSeparator().length();
+        assertEquals(2 * ("employee 1".length() + separator), checkpoint.getEmployeeLength());
+        assertEquals(2 * ("pay stub 1".length() + separator), checkpoint.getPayStubLength());
+
+        // A damaged entry ends the log just like a torn one
+        List<String> entries = Files.readAllLines(log);
+        Files.write(log, List.of(entries.get(0), entries.get(1).replace(",2,", ",9,")));
+        checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        assertTrue(checkpoint.resume("run"));
+        assertEquals(1, checkpoint.getRecords());
+    }
+
+    @Test
+    void testCheckpointOfAnotherRunIsDiscarded() throws IOException {
+        writeCheckpoints("run", 2);
+        PayrollCheckpoint checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        assertFalse(checkpoint.isEmpty());
+        assertFalse(checkpoint.resume("other run"));
+        assertEquals(0, checkpoint.getRecords());
+        assertEquals(0, checkpoint.getEmployeeLength());
+    }
+
+    @Test
+    void testInterruptedCommitIsFinished() throws IOException {
+        Files.writeString(Path.of(employeeFile()), "old employees" + System.lineSeparator());
+        writeCheckpoints("run", 1);
+        PayrollCheckpoint checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        checkpoint.resume("run");
+        try (AtomicFileWriter employees = AtomicFileWriter.resume(employeeFile(), 1024,
+                checkpoint.getEmployeeLength());
+             AtomicFileWriter payStubs = AtomicFileWriter.resume(payrollFile(), 1024,
+                     checkpoint.getPayStubLength())) {
+            employees.writeLine("employee 2");
+            checkpoint.commit(2, employees, payStubs);
+        }
+        assertEquals(List.of("employee 1", "employee 2"), Files.readAllLines(Path.of(employeeFile())));
+        assertTrue(PayrollCheckpoint.open(employeeFile(), payrollFile()).isEmpty());
+
+        // Rebuild the state of a crash right after the commit entry and the pay stub rename
+        Files.move(Path.of(employeeFile()), Path.of(employeeFile() + AtomicFileWriter.CHECKPOINT_TEMP_SUFFIX));
+        Files.move(Path.of(employeeFile() + ".bak"), Path.of(employeeFile()));
+        Files.writeString(Path.of(employeeFile() + PayrollCheckpoint.CHECKPOINT_SUFFIX),
+                "#commit,run,2,24,12," + crc("#commit,run,2,24,12") + "\n");
+        checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        assertTrue(checkpoint.isCommitting());
+        assertFalse(checkpoint.resume("run"));
+        checkpoint = PayrollCheckpoint.open(employeeFile(), payrollFile());
+        checkpoint.finishCommit();
+        assertEquals(List.of("employee 1", "employee 2"), Files.readAllLines(Path.of(employeeFile())));
+        assertEquals(List.of("pay stub 1"), Files.readAllLines(Path.of(payrollFile())));
+        assertEquals(List.of("old employees"), Files.readAllLines(Path.of(employeeFile() + ".bak")));
+        assertTrue(PayrollCheckpoint.open(employeeFile(), payrollFile()).isEmpty());
+    }
+
+    private static String crc(String entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.getBytes());
+        return String.format("%08x", crc.getValue());
+    }
+}
@@ -0,0 +1,297 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollGeneratorTest {
+
+    private static final int EMPLOYEES = 25;
+
+    @TempDir
+    Path dir;
+
+    private Path employeeFile;
+    private Path timeCardFile;
+    private Path payrollFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<String> employees = new ArrayList<>();
+        List<String> timeCards = new ArrayList<>();
+        employees.add(FileUtil.EMPLOYEE_HEADER);
+        timeCards.add("employee_id,hours_worked");
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add("HOURLY,Employee " + i + ",e" + i + ",20.00,0,1000,200");
+            timeCards.add("e" + i + ",40");
+        }
+        employeeFile = Files.write(dir.resolve("employees.csv"), employees);
+        timeCardFile = Files.write(dir.resolve("time_cards.csv"), timeCards);
+        payrollFile = dir.resolve("pay_stubs.csv");
+    }
+
+    private void run(String... options) {
+        List<String> args = new ArrayList<>(List.of("-e", employeeFile.toString(), "-t", timeCardFile.toString(),
+                "-o", payrollFile.toString()));
+        args.addAll(List.of(options));
+        PayrollGenerator.main(args.toArray(new String[0]));
+    }
+
+    @Test
+    void testEmployeeFileIsWrittenOncePerRun() {
+        int commitsBefore = AtomicFileWriter.getCommitCount();
+        run();
+        // One write for the employee file and one for the pay stub file, independent of the roster size
+        assertEquals(2, AtomicFileWriter.getCommitCount() - commitsBefore);
+    }
+
+    @Test
+    void testRunUpdatesEmployeesAndWritesPayStubs() throws IOException {
+        run();
+        List<String> employees = Files.readAllLines(employeeFile);
+        List<String> payStubs = Files.readAllLines(payrollFile);
+
+        assertEquals(EMPLOYEES + 1, employees.size());
+        assertEquals("HOURLY,Employee 0,e0,20.0,0.0,1618.80,381.20", employees.get(1));
+        assertEquals(EMPLOYEES + 1, payStubs.size());
+        assertEquals("Employee 0,618.80,181.20,1618.80,381.20", payStubs.get(1));
+        assertTrue(Files.exists(dir.resolve("employees.csv.bak")));
+        try (var files = Files.list(dir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void testParallelRunMatchesSequentialRun() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> sequentialEmployees = Files.readAllLines(employeeFile);
+        List<String> sequentialPayStubs = Files.readAllLines(payrollFile);
+
+        Files.write(employeeFile, originalEmployees);
+        run("-p", "4");
+        assertEquals(sequentialEmployees, Files.readAllLines(employeeFile));
+        assertEquals(sequentialPayStubs, Files.readAllLines(payrollFile));
+    }
+
+    @Test
+    void testPipelinedRunMatchesSequentialRun() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> sequentialEmployees = Files.readAllLines(employeeFile);
+        List<String> sequentialPayStubs = Files.readAllLines(payrollFile);
+
+        Files.write(employeeFile, originalEmployees);
+        run("-l", "-p", "3");
+        assertEquals(sequentialEmployees, Files.readAllLines(employeeFile));
+        assertEquals(sequentialPayStubs, Files.readAllLines(payrollFile));
+    }
+
+    @Test
+    void testSmallOutputBufferMatchesDefaultBuffer() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> employees = Files.readAllLines(employeeFile);
+        List<String> payStubs = Files.readAllLines(payrollFile);
+
+        Files.write(employeeFile, originalEmployees);
+        run("-b", "16");
+        assertEquals(employees, Files.readAllLines(employeeFile));
+        assertEquals(payStubs, Files.readAllLines(payrollFile));
+    }
+
+    @Test
+    void testTaxRulesApplyToEveryMode() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> flatPayStubs = Files.readAllLines(payrollFile);
+
+        // A single bracket at the default rate gives the same pay stubs as the default engine
+        Path flatRules = Files.write(dir.resolve("flat.csv"),
+                List.of("jurisdiction,kind,threshold,rate", "FLAT,bracket,0,0.2265"));
+        Files.write(employeeFile, originalEmployees);
+        run("-x", flatRules.toString());
+        assertEquals(flatPayStubs, Files.readAllLines(payrollFile));
+
+        Path rules = Files.write(dir.resolve("rules.csv"), List.of("jurisdiction,kind,threshold,rate",
+                "FEDERAL,bracket,0,0.10", "FEDERAL,bracket,500.00,0.20", "FICA,capped,1500.00,0.062"));
+        Files.write(employeeFile, originalEmployees);
+        run("-x", rules.toString(), "-r", "federal,fica");
+        List<String> payStubs = Files.readAllLines(payrollFile);
+        // 50.00 + 60.00 of federal taxes and 6.2% of the 500.00 left below the FICA wage base
+        assertEquals("Employee 0,659.00,141.00,1659.00,341.00", payStubs.get(1));
+
+        Files.write(employeeFile, originalEmployees);
+        run("-x", rules.toString(), "-r", "federal,fica", "-k");
+        assertEquals(payStubs, Files.readAllLines(payrollFile));
+        Files.write(employeeFile, originalEmployees);
+        run("-x", rules.toString(), "-r", "federal,fica", "-p", "4");
+        assertEquals(payStubs, Files.readAllLines(payrollFile));
+    }
+
+    @Test
+    void testMetricsSummaryIsWritten() throws IOException {
+        Path metricsFile = dir.resolve("metrics.json");
+        run("-m", metricsFile.toString());
+        String json = Files.readString(metricsFile);
+        assertTrue(json.contains("\"records\": " + EMPLOYEES + ","), json);
+        for (PayrollMetrics.Phase phase : PayrollMetrics.Phase.values()) {
+            assertTrue(json.contains("\"" + phase.key() + "\": {\"visits\": "), json);
+        }
+        assertEquals("Employee 0,618.80,181.20,1618.80,381.20", Files.readAllLines(payrollFile).get(1));
+    }
+
+    @Test
+    void testGrossPayCacheIsReportedWithMetrics() throws IOException {
+        Path metricsFile = dir.resolve("metrics.json");
+        run("-m", metricsFile.toString());
+        assertFalse(Files.readString(metricsFile).contains("grossPayCache"));
+
+        // Every employee has the same type, pay rate and hours, so only the first one misses
+        run("-g", "16", "-m", metricsFile.toString());
+        String json = Files.readString(metricsFile);
+        String cache = "\"grossPayCache\": {\"hits\": " + (EMPLOYEES - 1) + ", \"misses\": 1, \"entries\": 1}";
+        assertTrue(json.contains(cache), json);
+    }
+
+    @Test
+    void testSortJoinMatchesHashJoin() throws IOException {
+        // The sort join needs employees sorted by ID, and takes time cards in any order
+        List<String> employees = Files.readAllLines(employeeFile);
+        List<String> sortedEmployees = new ArrayList<>(employees.subList(1, employees.size()));
+        sortedEmployees.sort(Comparator.comparing(EmployeeDeltaLog::recordID));
+        sortedEmployees.add(0, employees.get(0));
+        Files.write(employeeFile, sortedEmployees);
+        List<String> timeCards = Files.readAllLines(timeCardFile);
+        Collections.reverse(timeCards.subList(1, timeCards.size()));
+        Files.write(timeCardFile, timeCards);
+
+        run();
+        List<String> hashEmployees = Files.readAllLines(employeeFile);
+        List<String> hashPayStubs = Files.readAllLines(payrollFile);
+
+        Files.write(employeeFile, sortedEmployees);
+        run("-j", "sort", "-s", "64k");
+        assertEquals(hashEmployees, Files.readAllLines(employeeFile));
+        assertEquals(hashPayStubs, Files.readAllLines(payrollFile));
+        try (var files = Files.list(dir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".run")));
+        }
+    }
+
+    @Test
+    void testIncrementalRunsMatchFullRunsAndSkipAppliedBatches() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        Path secondBatch = Files.write(dir.resolve("time_cards_2.csv"),
+                List.of("employee_id,hours_worked", "e3,10", "e7,45"));
+        run();
+        List<String> firstPayStubs = Files.readAllLines(payrollFile);
+        run("-t", secondBatch.toString());
+        List<String> fullEmployees = Files.readAllLines(employeeFile);
+        List<String> secondPayStubs = Files.readAllLines(payrollFile);
+
+        Files.write(employeeFile, originalEmployees);
+        int commitsBefore = AtomicFileWriter.getCommitCount();
+        run("-i");
+        assertEquals(firstPayStubs, Files.readAllLines(payrollFile));
+        run("-i", "-t", secondBatch.toString());
+        assertEquals(secondPayStubs, Files.readAllLines(payrollFile));
+        // Running a batch again is skipped, and the employee file is only written by compaction
+        run("-i", "-t", secondBatch.toString());
+        assertEquals(secondPayStubs, Files.readAllLines(payrollFile));
+        assertEquals(2, AtomicFileWriter.getCommitCount() - commitsBefore);
+        assertEquals(originalEmployees, Files.readAllLines(employeeFile));
+
+        EmployeeDeltaLog.open(employeeFile.toString()).compact();
+        assertEquals(fullEmployees, Files.readAllLines(employeeFile));
+    }
+
+    @Test
+    void testMultiPeriodRunMatchesOneRunPerPeriod() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        Path periods = Files.createDirectory(dir.resolve("periods"));
+        // Period 2 comes before period 10, and e7 has no time card in period 2
+        Path second = Files.write(periods.resolve("period_2.csv"), List.of("employee_id,hours_worked", "e3,10"));
+        Path tenth = Files.write(periods.resolve("period_10.csv"),
+                List.of("employee_id,hours_worked", "e3,45", "e7,30", "e9,-1"));
+        run("-t", second.toString());
+        List<String> secondPayStubs = Files.readAllLines(payrollFile);
+        run("-t", tenth.toString());
+        List<String> tenthPayStubs = Files.readAllLines(payrollFile);
+        List<String> sequentialEmployees = Files.readAllLines(employeeFile);
+
+        Files.write(employeeFile, originalEmployees);
+        int commitsBefore = AtomicFileWriter.getCommitCount();
+        run("-t", periods.toString());
+        assertEquals(secondPayStubs, Files.readAllLines(dir.resolve("pay_stubs-period_2.csv")));
+        assertEquals(tenthPayStubs, Files.readAllLines(dir.resolve("pay_stubs-period_10.csv")));
+        assertEquals(sequentialEmployees, Files.readAllLines(employeeFile));
+        assertEquals(3, AtomicFileWriter.getCommitCount() - commitsBefore);
+
+        Files.write(employeeFile, originalEmployees);
+        run("-t", periods.resolve("period_*.csv").toString(), "-p", "2");
+        assertEquals(tenthPayStubs, Files.readAllLines(dir.resolve("pay_stubs-period_10.csv")));
+        assertEquals(sequentialEmployees, Files.readAllLines(employeeFile));
+    }
+
+    @Test
+    void testCheckpointedRunResumesWithTheSameOutput() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> employees = Files.readAllLines(employeeFile);
+        List<String> payStubs = Files.readAllLines(payrollFile);
+
+        // A bad record stops the run after its third checkpoint
+        List<String> badEmployees = new ArrayList<>(originalEmployees);
+        badEmployees.set(18, badEmployees.get(18).replace("HOURLY", "HOURLX"));
+        Files.write(employeeFile, badEmployees);
+        FileTime modified = Files.getLastModifiedTime(employeeFile);
+        assertThrows(IllegalArgumentException.class, () -> run("-n", "5"));
+        assertEquals(badEmployees, Files.readAllLines(employeeFile));
+
+        // Repair the record in place, keeping the size and modification time the run was identified by
+        Files.write(employeeFile, originalEmployees);
+        Files.setLastModifiedTime(employeeFile, modified);
+        Path metricsFile = dir.resolve("metrics.json");
+        run("-n", "5", "-p", "2", "-m", metricsFile.toString());
+        // Only the employees after the last checkpoint are paid again
+        assertTrue(Files.readString(metricsFile).contains("\"records\": " + (EMPLOYEES - 15) + ","));
+        assertEquals(employees, Files.readAllLines(employeeFile));
+        assertEquals(payStubs, Files.readAllLines(payrollFile));
+        assertFalse(Files.exists(Path.of(employeeFile + PayrollCheckpoint.CHECKPOINT_SUFFIX)));
+        assertFalse(Files.exists(Path.of(employeeFile + AtomicFileWriter.CHECKPOINT_TEMP_SUFFIX)));
+    }
+
+    @Test
+    void testGzipFilesMatchPlainFiles() throws IOException {
+        List<String> originalEmployees = Files.readAllLines(employeeFile);
+        run();
+        List<String> employees = Files.readAllLines(employeeFile);
+        List<String> payStubs = Files.readAllLines(payrollFile);
+
+        Path gzipEmployees = dir.resolve("employees.csv.gz");
+        Path gzipTimeCards = dir.resolve("time_cards.csv.gz");
+        Path gzipPayStubs = dir.resolve("pay_stubs.csv.gz");
+        for (String[] options : List.of(new String[0], new String[] {"-k", "-p", "2"}, new String[] {"-n", "10"})) {
+            FileUtil.writeFile(gzipEmployees.toString(), originalEmployees, false);
+            FileUtil.writeFile(gzipTimeCards.toString(), Files.readAllLines(timeCardFile), false);
+            List<String> args = new ArrayList<>(List.of("-e", gzipEmployees.toString(), "-t", gzipTimeCards.toString(),
+                    "-o", gzipPayStubs.toString()));
+            args.addAll(List.of(options));
+            PayrollGenerator.main(args.toArray(new String[0]));
+            assertEquals(employees.subList(1, employees.size()), FileUtil.readFileToList(gzipEmployees.toString()));
+            assertEquals(payStubs.subList(1, payStubs.size()), FileUtil.readFileToList(gzipPayStubs.toString()));
+        }
+    }
+}
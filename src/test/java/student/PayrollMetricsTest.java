@@ -0,0 +1,86 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import student.PayrollMetrics.Phase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollMetricsTest {
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void testNestedPhasesAreRestored() {
+        PayrollMetrics metrics = new PayrollMetrics(1);
+        assertNull(metrics.enter(Phase.JOIN));
+        assertEquals(Phase.JOIN, metrics.enter(Phase.READ));
+        assertEquals(Phase.READ, metrics.enter(Phase.PARSE));
+        assertEquals(Phase.PARSE, metrics.enter(Phase.JOIN));
+        assertEquals(Phase.JOIN, metrics.enter(null));
+    }
+
+    @Test
+    void testEveryVisitIsTimedWithIntervalOne() {
+        PayrollMetrics metrics = new PayrollMetrics(1);
+        metrics.start();
+        for (int i = 0; i < 10; i++) {
+            Phase previous = metrics.enter(Phase.COMPUTE);
+            spin(1_000_000);
+            metrics.enter(previous);
+            metrics.addRecords(1);
+        }
+        metrics.finish();
+
+        assertTrue(metrics.getPhaseNanos(Phase.COMPUTE) >= 10_000_000);
+        assertEquals(0, metrics.getPhaseNanos(Phase.WRITE));
+        assertEquals(10, metrics.getRecords());
+        String json = metrics.toJSON();
+        assertTrue(json.contains("\"records\": 10,"), json);
+        assertTrue(json.contains("\"compute\": {\"visits\": 10, \"timedVisits\": 10,"), json);
+    }
+
+    @Test
+    void testSampledTotalsAreEstimated() {
+        PayrollMetrics metrics = new PayrollMetrics(8);
+        for (int i = 0; i < 2000; i++) {
+            metrics.enter(Phase.SERIALIZE);
+            spin(20_000);
+            metrics.enter(Phase.WRITE);
+            spin(60_000);
+        }
+        metrics.enter(null);
+
+        // Each visit takes at least its spin, and the estimate should be near 2000 visits of it
+        long serialize = metrics.getPhaseNanos(Phase.SERIALIZE);
+        long write = metrics.getPhaseNanos(Phase.WRITE);
+        assertTrue(serialize > 2000 * 20_000 / 2 && serialize < 2000 * 20_000 * 4, "serialize " + serialize);
+        assertTrue(write > serialize, "write " + write);
+    }
+
+    @Test
+    void testTimedVisitsAreAlwaysCounted() {
+        PayrollMetrics metrics = new PayrollMetrics(1_000_000);
+        Phase previous = metrics.enterTimed(Phase.COMPUTE);
+        spin(5_000_000);
+        metrics.enter(previous);
+        assertTrue(metrics.getPhaseNanos(Phase.COMPUTE) >= 5_000_000);
+    }
+
+    @Test
+    void testDisabledMetricsMeasureNothing() {
+        PayrollMetrics metrics = PayrollMetrics.DISABLED;
+        assertFalse(metrics.isEnabled());
+        assertNull(metrics.enter(Phase.READ));
+        assertNull(metrics.enter(Phase.PARSE));
+        metrics.addRecords(5);
+        assertEquals(0, metrics.getRecords());
+        assertEquals(0, metrics.getPhaseNanos(Phase.READ));
+        assertThrows(IllegalArgumentException.class, () -> new PayrollMetrics(0));
+    }
+}
@@ -0,0 +1,52 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollPipelineTest {
+
+    @Test
+    void testEmployeesAreOutputInInputOrder() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("HOURLY,Employee " + i + ",e" + i + ",20.00,0,0,0");
+        }
+
+        List<IEmployee> output = new ArrayList<>();
+        new PayrollPipeline(3, 4, 7, 2).run(lines.iterator(), Builder::buildEmployeeFromCSV,
+                employee -> ((Employee) employee).processPayroll(40.0), output::add);
+
+        assertEquals(lines.size(), output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals("e" + i, output.get(i).getID());
+            assertEquals(618.8, ((Employee) output.get(i)).getPayStub().getNetPay(), 0.001);
+        }
+    }
+
+    @Test
+    void testFailureOfAStageIsThrown() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("HOURLY,Employee " + i + ",e" + i + ",20.00,0,0,0");
+        }
+        lines.set(500, "INTERN,Employee 500,e500,20.00,0,0,0");
+
+        PayrollPipeline pipeline = new PayrollPipeline(2, 2, 16, 2);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(lines.iterator(),
+                Builder::buildEmployeeFromCSV, employee -> { }, employee -> { }));
+        assertThrows(IllegalStateException.class, () -> pipeline.run(lines.subList(0, 10).iterator(),
+                Builder::buildEmployeeFromCSV, employee -> { }, employee -> {
+                    throw new IllegalStateException("output failed");
+                }));
+    }
+
+    @Test
+    void testInvalidThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new PayrollPipeline(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PayrollPipeline(1, 1, 1, 0));
+    }
+}
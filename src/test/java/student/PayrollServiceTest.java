@@ -0,0 +1,128 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollServiceTest {
+
+    private static final int EMPLOYEES = 25;
+
+    @TempDir
+    Path dir;
+
+    private Path serviceEmployeeFile;
+    private Path incrementalEmployeeFile;
+    private final List<byte[]> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<String> employees = new ArrayList<>();
+        employees.add(FileUtil.EMPLOYEE_HEADER);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add("HOURLY,Employee " + i + ",e" + i + ",20.00,0,1000,200");
+        }
+        serviceEmployeeFile = Files.write(dir.resolve("service_employees.csv"), employees);
+        incrementalEmployeeFile = Files.write(dir.resolve("incremental_employees.csv"), employees);
+        batches.add("employee_id,hours_worked\ne7,45\ne3,10\nunknown,8\n".getBytes());
+        batches.add("employee_id,hours_worked\ne3,20\ne12,40\n".getBytes());
+        batches.add("employee_id,hours_worked\ne7,50\n".getBytes());
+    }
+
+    private String runIncremental(int batch) throws IOException {
+        Path timeCards = Files.write(dir.resolve("time_cards_" + batch + ".csv"), batches.get(batch));
+        Path payStubs = dir.resolve("pay_stubs_" + batch + ".csv");
+        PayrollGenerator.main(new String[] {"-e", incrementalEmployeeFile.toString(), "-t", timeCards.toString(),
+                "-o", payStubs.toString(), "-i", "-c", "2"});
+        return Files.readString(payStubs);
+    }
+
+    private PayrollService newService() throws IOException {
+        return new PayrollService(serviceEmployeeFile.toString(), FlatTaxEngine.DEFAULT, null,
+                DuplicatePolicy.FIRST, 2);
+    }
+
+    @Test
+    void testJobsMatchIncrementalRunsAndSurviveRestart() throws IOException {
+        PayrollService service = newService();
+        assertEquals(EMPLOYEES, service.size());
+        assertEquals(runIncremental(0), service.runJob(batches.get(0)));
+        assertThrows(IllegalStateException.class, () -> service.runJob(batches.get(0)));
+
+        // A new service reads the year-to-date values the first one made durable
+        PayrollService restarted = newService();
+        assertEquals(runIncremental(1), restarted.runJob(batches.get(1)));
+        assertEquals(runIncremental(2), restarted.runJob(batches.get(2)));
+        assertEquals(Files.readAllLines(incrementalEmployeeFile), Files.readAllLines(serviceEmployeeFile));
+    }
+
+    @Test
+    void testIncrementalRunBetweenJobsIsKept() throws IOException {
+        PayrollService service = newService();
+        assertEquals(runIncremental(0), service.runJob(batches.get(0)));
+
+        // An incremental run of the service employee file between two jobs
+        Path timeCards = Files.write(dir.resolve("service_time_cards_1.csv"), batches.get(1));
+        Path payStubs = dir.resolve("service_pay_stubs_1.csv");
+        PayrollGenerator.main(new String[] {"-e", serviceEmployeeFile.toString(), "-t", timeCards.toString(),
+                "-o", payStubs.toString(), "-i", "-c", "5"});
+        assertEquals(runIncremental(1), Files.readString(payStubs));
+
+        assertThrows(IllegalStateException.class, () -> service.runJob(batches.get(1)));
+        assertEquals(runIncremental(2), service.runJob(batches.get(2)));
+        EmployeeDeltaLog.open(serviceEmployeeFile.toString()).compact();
+        EmployeeDeltaLog.open(incrementalEmployeeFile.toString()).compact();
+        assertEquals(Files.readAllLines(incrementalEmployeeFile), Files.readAllLines(serviceEmployeeFile));
+    }
+
+    @Test
+    void testRunsAreRefusedWhileTheEmployeeFileIsLocked() throws IOException {
+        List<String> employees = Files.readAllLines(serviceEmployeeFile);
+        Path timeCards = Files.write(dir.resolve("service_time_cards_0.csv"), batches.get(0));
+        try (EmployeeFileLock lock = EmployeeFileLock.acquire(serviceEmployeeFile.toString())) {
+            assertNull(EmployeeFileLock.tryAcquire(serviceEmployeeFile.toString()));
+            PayrollGenerator.main(new String[] {"-e", serviceEmployeeFile.toString(), "-t", timeCards.toString(),
+                    "-o", dir.resolve("service_pay_stubs_0.csv").toString()});
+        }
+        assertEquals(employees, Files.readAllLines(serviceEmployeeFile));
+        assertFalse(Files.exists(dir.resolve("service_pay_stubs_0.csv")));
+    }
+
+    @Test
+    void testInvalidJobLeavesRosterUnchanged() throws IOException {
+        PayrollService service = newService();
+        assertThrows(IllegalArgumentException.class,
+                () -> service.runJob("employee_id,hours_worked\ne3,10\ne4,ten\n".getBytes()));
+        assertEquals(runIncremental(0), service.runJob(batches.get(0)));
+    }
+
+    @Test
+    void testJobsArePostedOverHttp() throws IOException, InterruptedException {
+        try (PayrollService service = newService()) {
+            int port = service.start(0);
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://localhost:" + port + PayrollService.PAYROLL_PATH);
+            HttpRequest post = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(batches.get(0)))
+                    .build();
+
+            HttpResponse<String> response = client.send(post, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals(runIncremental(0), response.body());
+            assertEquals(409, client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(405, client.send(HttpRequest.newBuilder(uri).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package student;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The RosterGenerator class generates synthetic employee and time card files for benchmarks and
+ * load tests. Employee IDs are zero-padded so both files are sorted by ID, hourly and salary
+ * employees alternate, and about nine in ten employees get a time card. The same count and seed
+ * always generate the same files.
+ */
+public final class RosterGenerator {
+
+    /**
+     * The default random seed.
+     */
+    private static final long DEFAULT_SEED = 42L;
+
+    /**
+     * The header for the time card CSV file.
+     */
+    private static final String TIME_CARD_HEADER = "employee_id,hours_worked";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RosterGenerator() {
+
+    }
+
+    /**
+     * Generates an employee file and a time card file.
+     * @param count The number of employees to generate.
+     * @param employeeFile The employee file path to write.
+     * @param timeCardFile The time card file path to write.
+     * @param seed The random seed.
+     * @throws IOException if a file cannot be written.
+     */
+    public static void generate(int count, Path employeeFile, Path timeCardFile, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter employees = Files.newBufferedWriter(employeeFile, StandardCharsets.UTF_8);
+             BufferedWriter timeCards = Files.newBufferedWriter(timeCardFile, StandardCharsets.UTF_8)) {
+            employees.write(FileUtil.EMPLOYEE_HEADER);
+            employees.newLine();
+            timeCards.write(TIME_CARD_HEADER);
+            timeCards.newLine();
+
+            for (int i = 0; i < count; i++) {
+                String id = employeeID(i);
+                boolean hourly = i % 2 == 0;
+                int payRate = hourly ? 15 + random.nextInt(50) : 40000 + 1000 * random.nextInt(160);
+                int pretaxDeductions = random.nextInt(4) * 250;
+                int ytdEarnings = random.nextInt(50000);
+                int ytdTaxesPaid = ytdEarnings / 5;
+
+                employees.write((hourly ? "HOURLY" : "SALARY") + ",Employee " + i + "," + id + "," + payRate + ","
+                        + pretaxDeductions + "," + ytdEarnings + "," + ytdTaxesPaid);
+                employees.newLine();
+
+                if (random.nextInt(10) != 0) {
+                    timeCards.write(id + "," + (20 + random.nextInt(41)));
+                    timeCards.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the generated ID of the employee with the given index.
+     * @param index The index of the employee.
+     * @return The employee ID.
+     */
+    public static String employeeID(int index) {
+        return String.format("e%09d", index);
+    }
+
+    /**
+     * Generates the files named on the command line.
+     * @param args The number of employees, the employee file, the time card file and an optional seed.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: java student.RosterGenerator count employee_file time_cards_file [seed]");
+            System.exit(1);
+        }
+        try {
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+            generate(Integer.parseInt(args[0]), Path.of(args[1]), Path.of(args[2]), seed);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error generating roster: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosterGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testGeneratedFilesParseAndAreSortedByID() throws IOException {
+        Path employeeFile = dir.resolve("employees.csv");
+        Path timeCardFile = dir.resolve("time_cards.csv");
+        RosterGenerator.generate(100, employeeFile, timeCardFile, 7L);
+
+        List<String> employees = FileUtil.readFileToList(employeeFile.toString());
+        List<String> timeCards = FileUtil.readFileToList(timeCardFile.toString());
+        assertEquals(100, employees.size());
+        assertFalse(timeCards.isEmpty());
+
+        String previousID = "";
+        for (String line : employees) {
+            IEmployee employee = Builder.buildEmployeeFromCSV(line);
+            assertTrue(employee.getID().compareTo(previousID) > 0);
+            previousID = employee.getID();
+        }
+        assertEquals(RosterGenerator.employeeID(99), previousID);
+        timeCards.forEach(Builder::buildTimeCardFromCSV);
+
+        Path otherEmployeeFile = dir.resolve("other_employees.csv");
+        RosterGenerator.generate(100, otherEmployeeFile, dir.resolve("other_time_cards.csv"), 7L);
+        assertEquals(Files.readAllLines(employeeFile), Files.readAllLines(otherEmployeeFile));
+    }
+}
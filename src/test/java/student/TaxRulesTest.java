@@ -0,0 +1,102 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxRulesTest {
+
+    private static final String HEADER = "jurisdiction,kind,threshold,rate";
+
+    @TempDir
+    Path dir;
+
+    private String write(String... rules) throws IOException {
+        Path file = Files.createTempFile(dir, "tax_rules", ".csv");
+        Files.write(file, List.of(HEADER));
+        Files.write(file, List.of(rules), StandardOpenOption.APPEND);
+        return file.toString();
+    }
+
+    @Test
+    void testBracketsAndWageBaseCap() throws IOException {
+        // The brackets are listed out of order on purpose
+        TaxEngine engine = TaxRules.load(write(
+                "STATE,bracket,3000.00,0.30",
+                "STATE,bracket,0,0.10",
+                "STATE,bracket,1000.00,0.20",
+                "STATE,capped,10000.00,0.062"), List.of("state"));
+
+        assertEquals(8100, engine.calculateTaxes(50000, 0));
+        assertEquals(16200, engine.calculateTaxes(100000, 0));
+        assertEquals(42400, engine.calculateTaxes(200000, 0));
+        assertEquals(104800, engine.calculateTaxes(400000, 0));
+        // Only the 200.00 left below the wage base is capped, and nothing once it is reached
+        assertEquals(6240, engine.calculateTaxes(50000, 980000));
+        assertEquals(5000, engine.calculateTaxes(50000, 1200000));
+        assertEquals(0, engine.calculateTaxes(0, 0));
+        assertEquals(0, engine.calculateTaxes(-50000, 0));
+    }
+
+    @Test
+    void testTaxesAreRoundedHalfEvenOncePerJurisdiction() throws IOException {
+        TaxEngine engine = TaxRules.load(write("A,bracket,0,0.10"), List.of());
+        assertEquals(0, engine.calculateTaxes(5, 0));
+        assertEquals(2, engine.calculateTaxes(15, 0));
+    }
+
+    @Test
+    void testBracketsAboveZeroLeaveLowerPayUntaxed() throws IOException {
+        TaxEngine engine = TaxRules.load(write("A,bracket,100.00,0.50"), List.of("A"));
+        assertEquals(0, engine.calculateTaxes(10000, 0));
+        assertEquals(2500, engine.calculateTaxes(15000, 0));
+    }
+
+    @Test
+    void testJurisdictionsAreAdded() throws IOException {
+        String file = write("FEDERAL,bracket,0,0.10", "CA,bracket,0,0.05", "OTHER,bracket,0,0.50");
+        assertEquals(1500, TaxRules.load(file, List.of("FEDERAL", "ca")).calculateTaxes(10000, 0));
+        assertEquals(6500, TaxRules.load(file, List.of()).calculateTaxes(10000, 0));
+    }
+
+    @Test
+    void testFlatRuleMatchesDefaultEngine() throws IOException {
+        TaxEngine engine = TaxRules.load(write("FLAT,bracket,0,0.2265"), List.of());
+        for (long pay = 0; pay < 100000; pay += 7) {
+            assertEquals(FlatTaxEngine.DEFAULT.calculateTaxes(pay, 0), engine.calculateTaxes(pay, 0));
+        }
+    }
+
+    @Test
+    void testTablesAreCachedUntilTheFileChanges() throws IOException {
+        String file = write("A,bracket,0,0.10");
+        TaxEngine first = TaxRules.load(file, List.of("A"));
+        assertSame(first, TaxRules.load(file, List.of("A")));
+
+        Files.write(Path.of(file), List.of(HEADER, "A,bracket,0,0.20"));
+        Files.setLastModifiedTime(Path.of(file), FileTime.fromMillis(0));
+        TaxEngine changed = TaxRules.load(file, List.of("A"));
+        assertNotSame(first, changed);
+        assertEquals(2000, changed.calculateTaxes(10000, 0));
+    }
+
+    @Test
+    void testInvalidRules() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write("A,flat,0,0.10"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write("A,bracket,zero,0.10"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write("A,bracket,0"), List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaxRules.load(write("A,bracket,0,0.10", "A,bracket,0.00,0.20"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write("A,bracket,0,-0.10"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write("A,bracket,0,0.10"), List.of("B")));
+        assertThrows(IllegalArgumentException.class, () -> TaxRules.load(write(), List.of()));
+    }
+}
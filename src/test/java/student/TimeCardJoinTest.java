@@ -0,0 +1,82 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeCardJoinTest {
+
+    private List<IEmployee> employees;
+    private List<ITimeCard> timeCards;
+
+    @BeforeEach
+    void setUp() {
+        employees = List.of(
+                new HourlyEmployee("Luffy", "a1", 30.0, 0.0, 0.0, 0.0),
+                new SalaryEmployee("Nami", "b2", 200000.0, 0.0, 0.0, 0.0),
+                new HourlyEmployee("Zoro", "c3", 25.0, 0.0, 0.0, 0.0));
+        timeCards = List.of(
+                new TimeCard("a0", 10.0),
+                new TimeCard("a1", 45.0),
+                new TimeCard("a1", 5.0),
+                new TimeCard("c3", 40.0));
+    }
+
+    private Map<String, Double> hashJoin(DuplicatePolicy policy) {
+        TimeCardIndex index = new TimeCardIndex(policy);
+        timeCards.forEach(index::add);
+        Map<String, Double> hours = new LinkedHashMap<>();
+        TimeCardJoin.hashJoin(employees.iterator(), index, (employee, timeCard) ->
+                hours.put(employee.getID(), timeCard == null ? null : timeCard.getHoursWorked()));
+        return hours;
+    }
+
+    private Map<String, Double> mergeJoin(DuplicatePolicy policy) {
+        Map<String, Double> hours = new LinkedHashMap<>();
+        TimeCardJoin.mergeJoin(employees.iterator(), timeCards.iterator(), policy, (employee, timeCard) ->
+                hours.put(employee.getID(), timeCard == null ? null : timeCard.getHoursWorked()));
+        return hours;
+    }
+
+    @Test
+    void testHashJoinUsesFirstTimeCard() {
+        Map<String, Double> hours = hashJoin(DuplicatePolicy.FIRST);
+        assertEquals(List.of("a1", "b2", "c3"), List.copyOf(hours.keySet()));
+        assertEquals(45.0, hours.get("a1"));
+        assertNull(hours.get("b2"));
+        assertEquals(40.0, hours.get("c3"));
+    }
+
+    @Test
+    void testHashJoinSumsTimeCards() {
+        assertEquals(50.0, hashJoin(DuplicatePolicy.SUM).get("a1"));
+    }
+
+    @Test
+    void testHashJoinRejectsDuplicates() {
+        assertThrows(IllegalArgumentException.class, () -> hashJoin(DuplicatePolicy.REJECT));
+    }
+
+    @Test
+    void testMergeJoinMatchesHashJoin() {
+        for (DuplicatePolicy policy : List.of(DuplicatePolicy.FIRST, DuplicatePolicy.SUM)) {
+            assertEquals(hashJoin(policy), mergeJoin(policy));
+        }
+        assertThrows(IllegalArgumentException.class, () -> mergeJoin(DuplicatePolicy.REJECT));
+    }
+
+    @Test
+    void testMergeJoinRejectsUnsortedInput() {
+        timeCards = List.of(new TimeCard("c3", 40.0), new TimeCard("a1", 45.0));
+        assertThrows(IllegalArgumentException.class, () -> mergeJoin(DuplicatePolicy.FIRST));
+
+        timeCards = List.of();
+        employees = List.of(employees.get(2), employees.get(0));
+        assertThrows(IllegalArgumentException.class, () -> mergeJoin(DuplicatePolicy.FIRST));
+    }
+}